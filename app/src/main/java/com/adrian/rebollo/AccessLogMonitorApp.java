@@ -10,6 +10,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 
+import com.adrian.rebollo.model.json.AccessLogModule;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -33,11 +34,15 @@ public class AccessLogMonitorApp {
 		TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
 	}
 
+	/**
+	 * the lines, stats and alerts are mapped by the streaming serializers of the AccessLogModule instead of their bean mapping.
+	 */
 	@Bean
 	ObjectMapper objectMapper() {
 		return new ObjectMapper()
 				.registerModule(new JavaTimeModule())
 				.registerModule(new Jdk8Module())
+				.registerModule(new AccessLogModule())
 				.configure(SerializationFeature.INDENT_OUTPUT, true)
 				.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
 				.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
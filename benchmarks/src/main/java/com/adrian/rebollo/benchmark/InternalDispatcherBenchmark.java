@@ -0,0 +1,181 @@
+package com.adrian.rebollo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.adrian.rebollo.PrimaryActiveMQ;
+import com.adrian.rebollo.PrimaryEndpoint;
+import com.adrian.rebollo.api.InternalDispatcher;
+import com.adrian.rebollo.codec.BinaryMessageCodec;
+import com.adrian.rebollo.codec.JsonMessageCodec;
+import com.adrian.rebollo.codec.MessageCodec;
+import com.adrian.rebollo.codec.MessageCodecs;
+import com.adrian.rebollo.inmemory.InMemoryChannels;
+import com.adrian.rebollo.inmemory.PrimaryInMemory;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+import com.adrian.rebollo.parser.AccessLogLineParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Dispatched lines per second, from the parsing thread until the line consumer receives them.
+ * `activemq` sends a JSON text message per line to an embedded non persistent broker (vm://) consumed by a transacted listener, as the AccessLogLineRouter does,
+ * `activemq-batch` sends them in batches of 100 lines (`adapters.activemq.line-batch.size`),
+ * and `inmemory` publishes the parsed objects into the `inmemory` profile ring buffer.
+ * `codec` is the encoding of the activemq messages (`adapters.activemq.codec`), the inmemory transport does not encode them.
+ * `lineLatency` samples the time of a single line from its dispatch until it is consumed (p50, p99... of the SampleTime mode),
+ * as the line of a quiet log waits for it, `activemq-batch` flushing its batch of one line as the reader does at the end of its reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InternalDispatcherBenchmark {
+
+	private static final int LINES = 10_000;
+	private static final String QUEUE = "internal-log-line";
+
+	@Param({"activemq", "activemq-batch", "inmemory"})
+	private String transport;
+
+	@Param({"json", "binary"})
+	private String codec;
+
+	//configured as the application one.
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.configure(SerializationFeature.INDENT_OUTPUT, true)
+			.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+
+	private volatile CountDownLatch latch;
+	private InternalDispatcher internalDispatcher;
+	private List<AccessLogLine> lines;
+	private int next;
+	private Runnable stop;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final AccessLogLineParser parser = new AccessLogLineParser(new AccessLogDateTimeDecoder());
+		lines = SampleLines.lines(LINES).stream().map(parser::apply).collect(Collectors.toList());
+
+		if (transport.startsWith("activemq")) {
+			final CachingConnectionFactory connectionFactory = new CachingConnectionFactory(
+					new ActiveMQConnectionFactory("vm://dispatcher-benchmark?broker.persistent=false&broker.useJmx=false"));
+			final PrimaryEndpoint endpoint = new PrimaryEndpoint();
+			endpoint.setInternalLogLineQueue(QUEUE);
+			final MessageCodecs messageCodecs = new MessageCodecs(List.of(new JsonMessageCodec(objectMapper), new BinaryMessageCodec()), codec);
+			final MessageCodec messageCodec = messageCodecs.getCodec();
+			final PrimaryActiveMQ primaryActiveMQ = new PrimaryActiveMQ(new JmsTemplate(connectionFactory), messageCodecs, endpoint);
+			ReflectionTestUtils.setField(primaryActiveMQ, "lineBatchSize", "activemq-batch".equals(transport) ? 100 : 1);
+			internalDispatcher = primaryActiveMQ;
+
+			final MessageListener listener = message -> {
+				final AccessLogLine[] accessLogLines;
+				try {
+					accessLogLines = messageCodec.decode(body(message), AccessLogLine[].class);
+				} catch (JMSException e) {
+					throw new IllegalStateException(e);
+				}
+				for (int i = 0; i < accessLogLines.length; i++) {
+					latch.countDown();
+				}
+			};
+			final DefaultMessageListenerContainer container = new DefaultMessageListenerContainer();
+			container.setConnectionFactory(connectionFactory);
+			container.setDestinationName(QUEUE);
+			container.setSessionTransacted(true);
+			container.setMessageListener(listener);
+			container.afterPropertiesSet();
+			container.start();
+			stop = () -> {
+				container.shutdown();
+				connectionFactory.destroy();
+			};
+		} else {
+			final InMemoryChannels channels = new InMemoryChannels(65536, 1024, 1000);
+			internalDispatcher = new PrimaryInMemory(channels);
+			channels.getLogLines().start(accessLogLine -> latch.countDown());
+			stop = () -> {
+				try {
+					channels.getLogLines().stop(5000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			};
+		}
+	}
+
+	private static Object body(Message message) throws JMSException {
+		if (message instanceof BytesMessage) {
+			final byte[] body = new byte[(int) ((BytesMessage) message).getBodyLength()];
+			((BytesMessage) message).readBytes(body);
+			return body;
+		}
+		return ((TextMessage) message).getText();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		stop.run();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void dispatch() throws InterruptedException {
+		latch = new CountDownLatch(LINES);
+		for (AccessLogLine line : lines) {
+			internalDispatcher.dispatch(line);
+		}
+		flush();
+		latch.await();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void lineLatency() throws InterruptedException {
+		latch = new CountDownLatch(1);
+		internalDispatcher.dispatch(lines.get(next));
+		next = (next + 1) % LINES;
+		flush();
+		latch.await();
+	}
+
+	private void flush() {
+		if (internalDispatcher instanceof PrimaryActiveMQ) {
+			((PrimaryActiveMQ) internalDispatcher).flushLines();
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package com.adrian.rebollo.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.Percentiles;
+import com.adrian.rebollo.model.json.AccessLogModule;
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+import com.adrian.rebollo.parser.AccessLogLineParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Time to write and read a batch of 100 lines and a stats window as the application JSON:
+ * `bean` maps them through the Jackson bean introspection, `streaming` through the {@link AccessLogModule} serializers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JsonMappingBenchmark {
+
+	private static final int LINES = 100;
+
+	@Param({"bean", "streaming"})
+	private String mapping;
+
+	private ObjectWriter writer;
+	private ObjectReader linesReader;
+	private ObjectReader statsReader;
+
+	private AccessLogLine[] lines;
+	private AccessLogStats stats;
+	private byte[] linesJson;
+	private byte[] statsJson;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		//configured as the application one.
+		final ObjectMapper objectMapper = new ObjectMapper()
+				.registerModule(new JavaTimeModule())
+				.configure(SerializationFeature.INDENT_OUTPUT, true)
+				.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+		if ("streaming".equals(mapping)) {
+			objectMapper.registerModule(new AccessLogModule());
+		}
+		writer = objectMapper.writer();
+		linesReader = objectMapper.readerFor(AccessLogLine[].class);
+		statsReader = objectMapper.readerFor(AccessLogStats.class);
+
+		final AccessLogLineParser parser = new AccessLogLineParser(new AccessLogDateTimeDecoder());
+		final List<AccessLogLine> parsed = SampleLines.lines(10_000).stream().map(parser::apply).collect(Collectors.toList());
+		lines = parsed.subList(0, LINES).toArray(new AccessLogLine[0]);
+		stats = stats(parsed);
+
+		linesJson = writer.writeValueAsBytes(lines);
+		statsJson = writer.writeValueAsBytes(stats);
+	}
+
+	/**
+	 * a window with the top 10 keys of every stat, as the AccessLogStatsComponent aggregates it.
+	 */
+	private static AccessLogStats stats(List<AccessLogLine> lines) {
+		final AccessLogStats stats = AccessLogStats.with(lines.get(0).getInsertTime(), lines.get(lines.size() - 1).getInsertTime());
+		for (AccessLogLine line : lines) {
+			final String section = line.getResource().split("/")[1];
+			stats.getRequests().incrementAndGet();
+			stats.getValidRequests().incrementAndGet();
+			stats.getTotalContent().addAndGet(line.getContentSize());
+			stats.getTopVisitsByMethod().computeIfAbsent(line.getHttpMethod().name(), k -> new AtomicLong()).incrementAndGet();
+			if (stats.getTopVisitsByHost().size() < 10 || stats.getTopVisitsByHost().containsKey(line.getHost())) {
+				stats.getTopVisitsByHost().computeIfAbsent(line.getHost(), k -> new AtomicLong()).incrementAndGet();
+			}
+			if (stats.getTopVisitsSection().size() < 10 || stats.getTopVisitsSection().containsKey(section)) {
+				stats.getTopVisitsSection().computeIfAbsent(section, k -> new AtomicLong()).incrementAndGet();
+				stats.getTopValidVisitedRequestsSections().computeIfAbsent(section, k -> new AtomicLong()).incrementAndGet();
+			}
+			stats.getTopVisitsByUser().computeIfAbsent(line.getUser(), k -> new AtomicLong()).incrementAndGet();
+			stats.getContentSizeHistogram().record(line.getContentSize());
+			stats.getHostsSketch().add(line.getHost());
+			stats.getUsersSketch().add(line.getUser());
+			stats.getResourcesSketch().add(line.getResource());
+		}
+		stats.setContentSize(Percentiles.of(stats.getContentSizeHistogram()));
+		stats.getTopVisitsSection().keySet().forEach(section -> stats.getTopVisitsSectionContentSize().put(section, stats.getContentSize()));
+		stats.setDistinctHosts(stats.getHostsSketch().estimate());
+		stats.setDistinctUsers(stats.getUsersSketch().estimate());
+		stats.setDistinctResources(stats.getResourcesSketch().estimate());
+		return stats;
+	}
+
+	@Benchmark
+	public byte[] writeLines() throws IOException {
+		return writer.writeValueAsBytes(lines);
+	}
+
+	@Benchmark
+	public AccessLogLine[] readLines() throws IOException {
+		return linesReader.readValue(linesJson);
+	}
+
+	@Benchmark
+	public byte[] writeStats() throws IOException {
+		return writer.writeValueAsBytes(stats);
+	}
+
+	@Benchmark
+	public AccessLogStats readStats() throws IOException {
+		return statsReader.readValue(statsJson);
+	}
+}
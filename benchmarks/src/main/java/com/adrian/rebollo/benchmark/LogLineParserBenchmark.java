@@ -0,0 +1,72 @@
+package com.adrian.rebollo.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+import com.adrian.rebollo.parser.AccessLogLineParser;
+import com.adrian.rebollo.parser.AccessLogLineScanner;
+import com.adrian.rebollo.parser.LogLineParser;
+
+/**
+ * Parsed lines per second of every parser engine, in a single thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LogLineParserBenchmark {
+
+	private static final int LINES = 1000;
+
+	@Param({"regex", "scanner"})
+	private String engine;
+
+	private LogLineParser logLineParser;
+	private List<String> lines;
+	private byte[][] bytes;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		logLineParser = "scanner".equals(engine) ? new AccessLogLineScanner(new AccessLogDateTimeDecoder()) : new AccessLogLineParser(new AccessLogDateTimeDecoder());
+		lines = SampleLines.lines(LINES);
+		bytes = new byte[LINES][];
+		for (int i = 0; i < LINES; i++) {
+			bytes[i] = lines.get(i).getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void parseString(Blackhole blackhole) {
+		for (String line : lines) {
+			blackhole.consume(logLineParser.apply(line));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void parseBytes(Blackhole blackhole) {
+		for (byte[] line : bytes) {
+			blackhole.consume(logLineParser.apply(line, 0, line.length));
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.adrian.rebollo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.adrian.rebollo.api.InternalDispatcher;
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+import com.adrian.rebollo.parser.AccessLogLineParser;
+import com.adrian.rebollo.parser.AccessLogLineParsingStage;
+import com.adrian.rebollo.service.StringDictionary;
+
+/**
+ * Parsed lines per second, submitting batches as the ChannelTailer does.
+ * threads=0 parses in the submitting thread, which is the layout before the parsing stage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParsingStageBenchmark {
+
+	private static final int BATCHES = 100;
+	private static final int BATCH_SIZE = 1000;
+
+	@Param({"0", "1", "2", "4", "8"})
+	private int threads;
+
+	private AccessLogLineParsingStage accessLogLineParsingStage;
+	private CountingDispatcher countingDispatcher;
+	private List<String> batch;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		countingDispatcher = new CountingDispatcher();
+		accessLogLineParsingStage = new AccessLogLineParsingStage(new AccessLogLineParser(new AccessLogDateTimeDecoder()), countingDispatcher, new StringDictionary(10_000));
+		ReflectionTestUtils.setField(accessLogLineParsingStage, "threads", threads);
+		ReflectionTestUtils.setField(accessLogLineParsingStage, "queueSize", 64);
+		accessLogLineParsingStage.init();
+		batch = SampleLines.lines(BATCH_SIZE);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		accessLogLineParsingStage.destroy();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCHES * BATCH_SIZE)
+	public void parse() throws InterruptedException {
+		countingDispatcher.expect(BATCHES * BATCH_SIZE);
+		for (int i = 0; i < BATCHES; i++) {
+			accessLogLineParsingStage.submit(batch, (long) i * BATCH_SIZE + 1);
+		}
+		countingDispatcher.await();
+	}
+
+	private static final class CountingDispatcher implements InternalDispatcher {
+
+		private volatile CountDownLatch latch;
+
+		private void expect(int lines) {
+			latch = new CountDownLatch(lines);
+		}
+
+		private void await() throws InterruptedException {
+			latch.await();
+		}
+
+		@Override
+		public void dispatch(AccessLogLine accessLogLine) {
+			latch.countDown();
+		}
+
+		@Override
+		public void dispatch(AccessLogStats accessLogStats) {
+		}
+
+		@Override
+		public void dispatch(AccessLogAlert accessLogAlert) {
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.adrian.rebollo.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.io.input.Tailer;
+import org.apache.commons.io.input.TailerListenerAdapter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.adrian.rebollo.reader.ChannelTailer;
+import com.adrian.rebollo.reader.ChannelTailerListener;
+
+/**
+ * Pickup latency and idle CPU of the reader engines, with the default `service.reader.delay` of 1 millis:
+ * `tailer` is the commons-io Tailer, `channel` the ChannelTailer polling every delay, and `watch` the ChannelTailer waiting on a WatchService.
+ * `pickup` is the time from appending a line to the file until the reader delivers it.
+ * `idle` reports the CPU micros spent by the reader thread per second while nothing is written (`readerCpuMicros` counter).
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReaderWakeupBenchmark {
+
+	private static final byte[] LINE = (SampleLines.lines(1).get(0) + "\n").getBytes(StandardCharsets.UTF_8);
+
+	@Param({"tailer", "channel", "watch"})
+	private String engine;
+
+	private final AtomicLong delivered = new AtomicLong();
+
+	private Path file;
+	private Runnable stop;
+	private Thread thread;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		file = Files.createTempFile("reader-wakeup", ".log");
+
+		if ("tailer".equals(engine)) {
+			final Tailer tailer = new Tailer(file.toFile(), new TailerListenerAdapter() {
+				@Override
+				public void handle(String line) {
+					delivered.incrementAndGet();
+				}
+			}, 1, true);
+			stop = tailer::stop;
+			thread = new Thread(tailer, "reader-wakeup");
+		} else {
+			final ChannelTailer tailer = ChannelTailer.builder()
+					.path(file)
+					.listener(new CountingListener())
+					.delay(1)
+					.end(true)
+					.bufferSize(65536)
+					.batchSize(1000)
+					.watch("watch".equals(engine))
+					.watchPoll(1000)
+					.build();
+			stop = tailer::stop;
+			thread = new Thread(tailer, "reader-wakeup");
+		}
+		thread.start();
+
+		//both tailers start from the end of the file, so the lines are only written once they are reading it.
+		while (delivered.get() == 0) {
+			Files.write(file, LINE, StandardOpenOption.APPEND);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException, InterruptedException {
+		stop.run();
+		thread.join(5000);
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long pickup() throws IOException {
+		final long expected = delivered.get() + 1;
+		Files.write(file, LINE, StandardOpenOption.APPEND);
+		while (delivered.get() < expected) {
+			Thread.onSpinWait();
+		}
+		return expected;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void idle(IdleCpu idleCpu) throws InterruptedException {
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		final long before = threads.getThreadCpuTime(thread.getId());
+		Thread.sleep(100);
+		idleCpu.readerCpuMicros += (threads.getThreadCpuTime(thread.getId()) - before) / 1000;
+	}
+
+	/**
+	 * reader thread CPU micros, which JMH reports per second of the iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class IdleCpu {
+
+		public long readerCpuMicros;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			readerCpuMicros = 0;
+		}
+	}
+
+	private final class CountingListener implements ChannelTailerListener {
+
+		@Override
+		public void init(ChannelTailer tailer) {
+		}
+
+		@Override
+		public void fileNotFound() {
+		}
+
+		@Override
+		public void fileRotated() {
+		}
+
+		@Override
+		public void handle(List<String> lines, long firstSeqId, CompletableFuture<Void> handled) {
+			delivered.addAndGet(lines.size());
+		}
+
+		@Override
+		public void handle(Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
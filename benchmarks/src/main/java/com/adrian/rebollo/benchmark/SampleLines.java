@@ -0,0 +1,29 @@
+package com.adrian.rebollo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Realistic Common Log Format lines, with a few hosts, users and sections, shared by the benchmarks.
+ */
+final class SampleLines {
+
+	private static final String[] HOSTS = {"127.0.0.1", "10.0.0.2", "192.168.1.14", "172.16.0.33"};
+	private static final String[] USERS = {"james", "jill", "frank", "mary", "-"};
+	private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+	private static final String[] RESOURCES = {"/api/user", "/report", "/shop/buy", "/api/user/1/orders", "/static/app.js"};
+	private static final int[] STATUSES = {200, 200, 200, 201, 404, 503};
+
+	private SampleLines() {
+	}
+
+	static List<String> lines(int size) {
+		final List<String> lines = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			lines.add(String.format("%s - %s [09/May/2018:16:%02d:%02d +0000] \"%s %s HTTP/1.0\" %d %d",
+					HOSTS[i % HOSTS.length], USERS[i % USERS.length], (i / 60) % 60, i % 60,
+					METHODS[i % METHODS.length], RESOURCES[i % RESOURCES.length], STATUSES[i % STATUSES.length], 100 + i));
+		}
+		return lines;
+	}
+}
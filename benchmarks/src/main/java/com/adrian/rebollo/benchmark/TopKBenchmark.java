@@ -0,0 +1,75 @@
+package com.adrian.rebollo.benchmark;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.adrian.rebollo.sketch.ExactFrequencyCounter;
+import com.adrian.rebollo.sketch.TopKSelector;
+
+/**
+ * Time to select the top 10 keys of a window, by the number of distinct keys:
+ * `sort` is the previous full sort of a copy of the map, `heap` is the {@link TopKSelector} single pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TopKBenchmark {
+
+	private static final int TOP = 10;
+
+	@Param({"10000", "100000", "1000000"})
+	private int keys;
+
+	private Map<String, AtomicLong> map;
+	private ExactFrequencyCounter counter;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final Random random = new Random(42);
+		map = new HashMap<>();
+		counter = new ExactFrequencyCounter();
+		for (int i = 0; i < keys; i++) {
+			//long tail of hosts with a few visits, like a scan.
+			final long count = random.nextInt(100) == 0 ? random.nextInt(10_000) : 1 + random.nextInt(5);
+			final String key = "10." + (i >> 16) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff);
+			map.put(key, new AtomicLong(count));
+			counter.add(key, count);
+		}
+	}
+
+	@Benchmark
+	public Map<String, AtomicLong> sort() {
+		return new HashMap<>(map).entrySet()
+				.stream()
+				.sorted((c1, c2) -> Long.valueOf(c2.getValue().get()).compareTo(c1.getValue().get()))
+				.limit(TOP)
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+						(e1, e2) -> e1, LinkedHashMap::new));
+	}
+
+	@Benchmark
+	public Map<String, AtomicLong> heap() {
+		return TopKSelector.top(counter, TOP);
+	}
+}
@@ -4,26 +4,105 @@ import java.nio.file.Paths;
 
 import org.apache.commons.io.input.Tailer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+import com.adrian.rebollo.parser.LogLineParser;
+import com.adrian.rebollo.parser.format.LogFormatCompiler;
+import com.adrian.rebollo.reader.ChannelTailer;
 import com.adrian.rebollo.reader.CustomTailerListener;
+import com.adrian.rebollo.reader.ReaderCheckpointStore;
 
 @Configuration
 @EnableAsync
 @EnableScheduling
 public class DomainServicesConfig {
 
+	/**
+	 * Dedicated executor for the reader engines.
+	 * The default @Async executor can not be used: spring-statemachine registers a synchronous `taskExecutor` bean,
+	 * which would run the endless tailing loop in the caller (main) thread and block the application startup.
+	 */
+	@Bean
+	public TaskExecutor readerExecutor() {
+		final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setThreadNamePrefix("log-reader-");
+		return executor;
+	}
+
 	/**
 	 * Provide a Configured Tailer instance.
 	 */
 	@Bean
+	@ConditionalOnProperty(value = "service.reader.engine", havingValue = "tailer", matchIfMissing = true)
 	public Tailer configuredTailer(
 			@Value("${service.reader.file-name}") String fileName,
 			@Value("${service.reader.delay}") int delay,
 			final CustomTailerListener customTailerListener) {
 		return new Tailer(Paths.get(fileName).toFile(), customTailerListener, delay, true);
 	}
+
+	/**
+	 * Provide a Configured ChannelTailer instance, which reads the file through NIO and delivers the lines in batches.
+	 * When checkpoints are enabled, it resumes from the last saved position instead of skipping what was written while stopped.
+	 * When watch is enabled, an idle reader waits for the file changes instead of polling it every delay.
+	 * When the file is renamed by a rotation, the old one is drained until it has been quiet for the rotation grace.
+	 * When archives are enabled, the rotated (and gzip compressed) archives of the file are read before tailing it.
+	 * They require the checkpoint, otherwise every restart would read (and dispatch) all of them again.
+	 */
+	@Bean
+	@ConditionalOnProperty(value = "service.reader.engine", havingValue = "channel")
+	public ChannelTailer configuredChannelTailer(
+			@Value("${service.reader.file-name}") String fileName,
+			@Value("${service.reader.delay}") int delay,
+			@Value("${service.reader.buffer-size:65536}") int bufferSize,
+			@Value("${service.reader.rotation-grace:1000}") long rotationGrace,
+			@Value("${service.reader.watch.enabled:true}") boolean watchEnabled,
+			@Value("${service.reader.watch.poll:1000}") long watchPoll,
+			@Value("${service.reader.batch-size:1000}") int batchSize,
+			@Value("${service.reader.checkpoint.enabled:false}") boolean checkpointEnabled,
+			@Value("${service.reader.checkpoint.file-name:./checkpoint/access-log.checkpoint}") String checkpointFileName,
+			@Value("${service.reader.checkpoint.interval:1000}") long checkpointInterval,
+			@Value("${service.reader.archives.enabled:false}") boolean archivesEnabled,
+			@Value("${service.reader.archives.pattern:access.log.*}") String archivesPattern,
+			@Value("${service.reader.archives.buffer-size:1048576}") int archivesBufferSize,
+			final CustomTailerListener customTailerListener) {
+		if (archivesEnabled && !checkpointEnabled) {
+			throw new IllegalStateException("service.reader.archives.enabled requires service.reader.checkpoint.enabled, "
+					+ "otherwise the archives are read again on every restart");
+		}
+		return ChannelTailer.builder()
+				.path(Paths.get(fileName))
+				.listener(customTailerListener)
+				.delay(delay)
+				.end(true)
+				.bufferSize(bufferSize)
+				.batchSize(batchSize)
+				.checkpointStore(checkpointEnabled ? new ReaderCheckpointStore(Paths.get(checkpointFileName)) : null)
+				.checkpointInterval(checkpointInterval)
+				.archivePattern(archivesEnabled ? archivesPattern : null)
+				.archiveBufferSize(archivesBufferSize)
+				.rotationGrace(rotationGrace)
+				.watch(watchEnabled)
+				.watchPoll(watchPoll)
+				.build();
+	}
+
+	/**
+	 * Provide the LogLineParser compiled from the configured nginx `log_format` or Apache `LogFormat` directive.
+	 */
+	@Bean
+	@ConditionalOnProperty(value = "service.parser.engine", havingValue = "format")
+	public LogLineParser formatLogLineParser(
+			@Value("${service.parser.format}") String format,
+			final AccessLogDateTimeDecoder accessLogDateTimeDecoder) {
+		return new LogFormatCompiler(accessLogDateTimeDecoder).compile(format);
+	}
 }
@@ -0,0 +1,17 @@
+package com.adrian.rebollo.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Log Backfill Service interface.
+ */
+public interface AccessLogBackfillService {
+
+	/**
+	 * computes the stats and alerts of an existing (archived) log file, and notifies them to the ExternalDispatchers.
+	 * @param file to backfill
+	 * @return amount of lines read from the file
+	 */
+	long backfill(Path file) throws IOException;
+}
@@ -0,0 +1,23 @@
+package com.adrian.rebollo.api;
+
+import java.util.List;
+
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.RollupResolution;
+
+/**
+ * Log Stats Rollup Service interface.
+ */
+public interface AccessLogRollupService {
+
+	/**
+	 * merges the stats of a window into the rollups of every resolution.
+	 * @param accessLogStats to handle
+	 */
+	void handle(AccessLogStats accessLogStats);
+
+	/**
+	 * @return the kept rollups of the given resolution, from the oldest to the newest.
+	 */
+	List<AccessLogStats> getRollups(RollupResolution resolution);
+}
@@ -29,4 +29,11 @@ public interface InternalDispatcher {
 	 * @param accessLogAlert to dispatch internally
 	 */
 	void dispatch(AccessLogAlert accessLogAlert);
+
+	/**
+	 * send the dispatched log lines the implementation may still be holding (ie: in a batch),
+	 * so all of them have reached their subscribers once it returns.
+	 */
+	default void flushLines() {
+	}
 }
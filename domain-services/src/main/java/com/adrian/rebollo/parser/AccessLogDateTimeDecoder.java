@@ -0,0 +1,188 @@
+package com.adrian.rebollo.parser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Decodes the access log `dd/MMM/yyyy:HH:mm:ss Z` dates into their LocalDateTime (the offset is discarded, as `toLocalDateTime` does).
+ *
+ * Consecutive lines almost always share the same second, so the last decoded date is cached and returned when the text is the same.
+ * On a cache miss the date is decoded from its fixed positions, and only the unusual ones (ie: day out of the month range, other locales)
+ * are resolved by the DateTimeFormatter, which keeps the results identical to `ZonedDateTime.parse`.
+ * It is thread-safe: the cache is a single immutable entry replaced on every miss.
+ */
+@Component
+public class AccessLogDateTimeDecoder {
+
+	private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z");
+
+	/**
+	 * `dd/MMM/yyyy:HH:mm:ss +hhmm` length.
+	 */
+	private static final int DATE_LENGTH = 26;
+
+	/**
+	 * month abbreviations as the DateTimeFormatter parses them (they depend on its locale).
+	 */
+	private static final String[] MONTHS = new String[12];
+
+	static {
+		final DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM", DATE_TIME_FORMATTER.getLocale());
+		for (int month = 1; month <= 12; month++) {
+			MONTHS[month - 1] = monthFormatter.format(LocalDate.of(2000, month, 1));
+		}
+	}
+
+	private volatile CachedDateTime last;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+
+	public LocalDateTime decode(CharSequence text) {
+		return decode(text, 0, text.length());
+	}
+
+	/**
+	 * @param text containing the date
+	 * @param start index of the date
+	 * @param end index after the date
+	 * @throws java.time.DateTimeException if it is not a valid date.
+	 */
+	public LocalDateTime decode(CharSequence text, int start, int end) {
+
+		final CachedDateTime cached = last;
+		if (cached != null && matches(text, start, end, cached.text)) {
+			hits.increment();
+			return cached.dateTime;
+		}
+
+		misses.increment();
+		LocalDateTime dateTime = decodeFixedPositions(text, start, end);
+		if (dateTime == null) {
+			fallbacks.increment();
+			dateTime = ZonedDateTime.parse(text.subSequence(start, end), DATE_TIME_FORMATTER).toLocalDateTime();
+		}
+
+		last = new CachedDateTime(text.subSequence(start, end).toString(), dateTime);
+		return dateTime;
+	}
+
+	/**
+	 * @return dates returned from the cache.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return dates not found in the cache, which have been decoded.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return cache misses which could not be decoded from the fixed positions, and have been parsed by the DateTimeFormatter.
+	 */
+	public long getFallbacks() {
+		return fallbacks.sum();
+	}
+
+	public double getHitRate() {
+		final long hitCount = getHits();
+		final long total = hitCount + getMisses();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	/**
+	 * @return the decoded date, or null when it is not a plain valid date, which must be resolved by the DateTimeFormatter.
+	 */
+	private LocalDateTime decodeFixedPositions(CharSequence text, int start, int end) {
+
+		if (end - start != DATE_LENGTH
+				|| !isDigits(text, start, 2) || text.charAt(start + 2) != '/'
+				|| text.charAt(start + 6) != '/' || !isDigits(text, start + 7, 4)
+				|| text.charAt(start + 11) != ':' || !isDigits(text, start + 12, 2)
+				|| text.charAt(start + 14) != ':' || !isDigits(text, start + 15, 2)
+				|| text.charAt(start + 17) != ':' || !isDigits(text, start + 18, 2)
+				|| text.charAt(start + 20) != ' '
+				|| (text.charAt(start + 21) != '+' && text.charAt(start + 21) != '-') || !isDigits(text, start + 22, 4)) {
+			return null;
+		}
+
+		final int month = month(text, start + 3);
+		final int day = number(text, start, 2);
+		final int year = number(text, start + 7, 4);
+		final int hour = number(text, start + 12, 2);
+		final int minute = number(text, start + 15, 2);
+		final int second = number(text, start + 18, 2);
+		final int offsetHours = number(text, start + 22, 2);
+		final int offsetMinutes = number(text, start + 24, 2);
+
+		if (month == 0 || year == 0 || day == 0 || day > Month.of(month).length(Year.isLeap(year))
+				|| hour > 23 || minute > 59 || second > 59
+				|| offsetMinutes > 59 || offsetHours > 18 || (offsetHours == 18 && offsetMinutes > 0)) {
+			return null;
+		}
+
+		return LocalDateTime.of(year, month, day, hour, minute, second);
+	}
+
+	/**
+	 * @return the month (1-12) of the abbreviation at the given index, or 0 if it is not a known one.
+	 */
+	private static int month(CharSequence text, int start) {
+		for (int month = 0; month < MONTHS.length; month++) {
+			if (MONTHS[month].length() == 3 && matches(text, start, start + 3, MONTHS[month])) {
+				return month + 1;
+			}
+		}
+		return 0;
+	}
+
+	private static int number(CharSequence text, int start, int digits) {
+		int number = 0;
+		for (int position = start; position < start + digits; position++) {
+			number = number * 10 + text.charAt(position) - '0';
+		}
+		return number;
+	}
+
+	private static boolean isDigits(CharSequence text, int start, int count) {
+		for (int position = start; position < start + count; position++) {
+			final char c = text.charAt(position);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean matches(CharSequence text, int start, int end, String expected) {
+		if (end - start != expected.length()) {
+			return false;
+		}
+		for (int i = 0; i < expected.length(); i++) {
+			if (text.charAt(start + i) != expected.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@AllArgsConstructor
+	private static final class CachedDateTime {
+		private final String text;
+		private final LocalDateTime dateTime;
+	}
+}
@@ -0,0 +1,201 @@
+package com.adrian.rebollo.parser;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.adrian.rebollo.api.InternalDispatcher;
+import com.adrian.rebollo.exception.LogLineParsingException;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.service.StringDictionary;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parsing stage between the reader and the InternalDispatcher.
+ * The reader only ships raw lines, and they are parsed and dispatched by a pool of `service.parser.threads` workers,
+ * so parsing is not capped by the single reader thread.
+ *
+ * The queue of pending batches is bounded: when it is full the reader thread parses the batch itself, which slows down the reading (backpressure).
+ * With 0 threads the lines are parsed in the reader thread, as before.
+ * Lines are dispatched in order within a batch, but batches may be dispatched in any order.
+ * The repeated fields of the parsed lines are replaced by their {@link StringDictionary} canonical instances.
+ *
+ * It is stopped in lifecycle {@link #PHASE}, before the consumers of the InternalDispatcher which use a lower phase,
+ * so the already submitted batches are dispatched while they still run. A batch submitted once stopped is discarded and logged.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccessLogLineParsingStage implements SmartLifecycle, DisposableBean {
+
+	/**
+	 * lifecycle phase of the stage, the consumers of the InternalDispatcher must be stopped after it, in a lower phase.
+	 */
+	public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 1;
+
+	private final LogLineParser logLineParser;
+	private final InternalDispatcher internalDispatcher;
+	private final StringDictionary stringDictionary;
+
+	@Value("${service.parser.threads:0}")
+	private int threads;
+	@Value("${service.parser.queue-size:64}")
+	private int queueSize;
+
+	private ThreadPoolExecutor executor;
+	private volatile boolean running;
+
+	@PostConstruct
+	public void init() {
+		if (threads > 0) {
+			final AtomicInteger threadCount = new AtomicInteger();
+			executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+					runnable -> new Thread(runnable, "log-parser-" + threadCount.incrementAndGet()),
+					callerRunsUnlessStopped());
+		}
+		LOG.info("Initializing AccessLogLineParsingStage with threads={} queueSize={}", threads, queueSize);
+	}
+
+	/**
+	 * parse and dispatch a single line, which will not get a sequence id.
+	 */
+	public void submit(String line) {
+		execute(() -> parse(line), null);
+	}
+
+	/**
+	 * parse and dispatch a batch of lines.
+	 * @param lines to parse, which must not be modified after being submitted
+	 * @param firstSeqId sequence id of the first line, the following lines are numbered consecutively
+	 */
+	public void submit(List<String> lines, long firstSeqId) {
+		submit(lines, firstSeqId, null);
+	}
+
+	/**
+	 * parse and dispatch a batch of lines, and then flush the InternalDispatcher lines and complete the given callback.
+	 * when the dispatch fails (ie: the broker is down) or the stage is stopped, the batch is logged and the callback is completed exceptionally,
+	 * so its lines are never acknowledged.
+	 * @param handled to complete once the lines have been dispatched, or null
+	 */
+	public void submit(List<String> lines, long firstSeqId, CompletableFuture<Void> handled) {
+		execute(() -> {
+			try {
+				parse(lines, firstSeqId);
+				if (handled != null) {
+					internalDispatcher.flushLines();
+					handled.complete(null);
+				}
+			} catch (RuntimeException exception) {
+				LOG.error("Could not dispatch batch with firstSeqId={} of lines={} in AccessLogLineParsingStage", firstSeqId, lines.size(), exception);
+				if (handled != null) {
+					handled.completeExceptionally(exception);
+				}
+			}
+		}, handled);
+	}
+
+	/**
+	 * backpressure: a batch which does not fit in the queue is parsed by the caller, but once stopped it is rejected.
+	 */
+	private static RejectedExecutionHandler callerRunsUnlessStopped() {
+		return (task, executor) -> {
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("AccessLogLineParsingStage has been stopped");
+			}
+			task.run();
+		};
+	}
+
+	private void execute(Runnable task, CompletableFuture<Void> handled) {
+		if (executor == null) {
+			task.run();
+			return;
+		}
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException exception) {
+			LOG.warn("Discarding batch submitted to AccessLogLineParsingStage after being stopped");
+			if (handled != null) {
+				handled.completeExceptionally(exception);
+			}
+		}
+	}
+
+	private void parse(String line) {
+		try {
+			internalDispatcher.dispatch(stringDictionary.canonical(logLineParser.apply(line)));
+		} catch (LogLineParsingException exception) {
+			LOG.error("Discarding line which could not be parsed in AccessLogLineParsingStage", exception);
+		}
+	}
+
+	/**
+	 * an invalid line must not discard the rest of the batch, so parsing errors are handled line by line.
+	 */
+	private void parse(List<String> lines, long firstSeqId) {
+		for (int i = 0; i < lines.size(); i++) {
+			try {
+				final AccessLogLine accessLogLine = stringDictionary.canonical(logLineParser.apply(lines.get(i)));
+				accessLogLine.setSeqId(firstSeqId + i);
+				internalDispatcher.dispatch(accessLogLine);
+			} catch (LogLineParsingException exception) {
+				LOG.error("Discarding line which could not be parsed in AccessLogLineParsingStage", exception);
+			}
+		}
+	}
+
+	@Override
+	public void start() {
+		running = true;
+	}
+
+	/**
+	 * when stopping the stage let the workers parse the already submitted batches.
+	 */
+	@Override
+	public void stop() {
+		running = false;
+		if (executor != null && !executor.isShutdown()) {
+			LOG.info("Stopping AccessLogLineParsingStage, proceed to stop the parser threads.");
+			executor.shutdown();
+			try {
+				executor.awaitTermination(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		return PHASE;
+	}
+
+	/**
+	 * when destroying the bean stop it, if its lifecycle has not.
+	 */
+	@Override
+	public void destroy() {
+		stop();
+	}
+}
@@ -0,0 +1,260 @@
+package com.adrian.rebollo.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.adrian.rebollo.exception.LogLineParsingException;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.HttpMethod;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Regex-free alternative to the {@link AccessLogLineParser}, which produces the same {@link AccessLogLine} results.
+ * It walks the line once from left to right, validating the same Common Log Format the regex does, and only allocates the field values.
+ * The date is decoded by the same {@link AccessLogDateTimeDecoder} the regex parser uses.
+ * UTF-8 bytes can be parsed without decoding the whole line first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "service.parser.engine", havingValue = "scanner")
+public class AccessLogLineScanner implements LogLineParser {
+
+	private static final HttpMethod[] HTTP_METHODS = HttpMethod.values();
+
+	private final AccessLogDateTimeDecoder accessLogDateTimeDecoder;
+
+	@Override
+	public AccessLogLine apply(String line) {
+		return scan(line);
+	}
+
+	@Override
+	public AccessLogLine apply(byte[] bytes, int offset, int length) {
+		return scan(new Utf8Sequence(bytes, offset, length));
+	}
+
+	private AccessLogLine scan(CharSequence line) {
+
+		LOG.debug("Proceeding to scan line={}", line);
+
+		final int length = line.length();
+
+		final int hostEnd = tokenEnd(line, 0);
+		final int identifierStart = expect(line, hostEnd, ' ');
+		final int identifierEnd = tokenEnd(line, identifierStart);
+		final int userStart = expect(line, identifierEnd, ' ');
+		final int userEnd = tokenEnd(line, userStart);
+
+		final int dateStart = expect(line, expect(line, userEnd, ' '), '[');
+		int position = dateStart;
+		while (position < length && isDateChar(line.charAt(position))) {
+			position++;
+		}
+		if (position == dateStart || position >= length || !isWhitespace(line.charAt(position))) {
+			throw parsingException(line);
+		}
+		position++;
+		if (position >= length || (line.charAt(position) != '+' && line.charAt(position) != '-')) {
+			throw parsingException(line);
+		}
+		final int dateEnd = digits(line, position + 1, 4);
+
+		final int methodStart = expect(line, expect(line, expect(line, dateEnd, ']'), ' '), '"');
+		final int methodEnd = tokenEnd(line, methodStart);
+		final int resourceStart = expect(line, methodEnd, ' ');
+		final int resourceEnd = tokenEnd(line, resourceStart);
+		final int protocolStart = expect(line, resourceEnd, ' ');
+		//the protocol token includes the closing quote, which must be its last char.
+		final int protocolEnd = tokenEnd(line, protocolStart) - 1;
+		if (protocolEnd <= protocolStart || line.charAt(protocolEnd) != '"') {
+			throw parsingException(line);
+		}
+
+		final int statusStart = expect(line, protocolEnd + 1, ' ');
+		final int statusEnd = digits(line, statusStart, 3);
+		final int contentSizeStart = expect(line, statusEnd, ' ');
+
+		return AccessLogLine.builder()
+				.host(safeParseString(line, 0, hostEnd))
+				.identifier(StringUtils.defaultIfBlank(safeParseString(line, identifierStart, identifierEnd), "NO_IDENTIFIER"))
+				.user(StringUtils.defaultIfBlank(safeParseString(line, userStart, userEnd), "NO_USER"))
+				.insertTime(LocalDateTime.now())
+				.dateTime(dateTime(line, dateStart, dateEnd))
+				.httpMethod(httpMethod(line, methodStart, methodEnd))
+				.resource(safeParseString(line, resourceStart, resourceEnd))
+				.protocol(safeParseString(line, protocolStart, protocolEnd))
+				.returnedStatus((int) number(line, statusStart, statusEnd))
+				.contentSize(number(line, contentSizeStart, contentSizeEnd(line, contentSizeStart)))
+				.build();
+	}
+
+	/**
+	 * @return the index after the non-whitespace token starting at the given index, which must not be empty.
+	 */
+	private int tokenEnd(CharSequence line, int start) {
+		int position = start;
+		while (position < line.length() && !isWhitespace(line.charAt(position))) {
+			position++;
+		}
+		if (position == start) {
+			throw parsingException(line);
+		}
+		return position;
+	}
+
+	/**
+	 * @return the index after the expected char.
+	 */
+	private int expect(CharSequence line, int position, char expected) {
+		if (position >= line.length() || line.charAt(position) != expected) {
+			throw parsingException(line);
+		}
+		return position + 1;
+	}
+
+	/**
+	 * @return the index after the expected amount of digits.
+	 */
+	private int digits(CharSequence line, int start, int count) {
+		final int end = start + count;
+		if (end > line.length()) {
+			throw parsingException(line);
+		}
+		for (int position = start; position < end; position++) {
+			if (!isDigit(line.charAt(position))) {
+				throw parsingException(line);
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * the content size is the only field not followed by a delimiter, anything after its digits is ignored.
+	 */
+	private int contentSizeEnd(CharSequence line, int start) {
+		int position = start;
+		while (position < line.length() && isDigit(line.charAt(position))) {
+			position++;
+		}
+		if (position == start) {
+			throw parsingException(line);
+		}
+		return position;
+	}
+
+	private long number(CharSequence line, int start, int end) {
+		long number = 0;
+		try {
+			for (int position = start; position < end; position++) {
+				number = Math.addExact(Math.multiplyExact(number, 10), line.charAt(position) - '0');
+			}
+		} catch (ArithmeticException exception) {
+			throw parsingException(line);
+		}
+		return number;
+	}
+
+	private HttpMethod httpMethod(CharSequence line, int start, int end) {
+		for (HttpMethod httpMethod : HTTP_METHODS) {
+			if (regionMatches(line, start, end, httpMethod.name())) {
+				return httpMethod;
+			}
+		}
+		throw parsingException(line);
+	}
+
+	private LocalDateTime dateTime(CharSequence line, int start, int end) {
+		try {
+			return accessLogDateTimeDecoder.decode(line, start, end);
+		} catch (DateTimeException exception) {
+			throw parsingException(line);
+		}
+	}
+
+	private String safeParseString(CharSequence line, int start, int end) {
+		if (end - start == 1 && line.charAt(start) == '-') {
+			return "";
+		}
+		final String safeLine = StringUtils.defaultIfBlank(line.subSequence(start, end).toString(), "");
+		return safeLine.equals("-") ? "" : safeLine;
+	}
+
+	private static boolean regionMatches(CharSequence line, int start, int end, String expected) {
+		if (end - start != expected.length()) {
+			return false;
+		}
+		for (int i = 0; i < expected.length(); i++) {
+			if (line.charAt(start + i) != expected.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * same whitespace as the regex `\s`.
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * same chars as the regex `[\w:/]`.
+	 */
+	private static boolean isDateChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_' || c == ':' || c == '/';
+	}
+
+	private static LogLineParsingException parsingException(CharSequence line) {
+		return new LogLineParsingException(String.format("An error occurred parsing the input line=%s", line));
+	}
+
+	/**
+	 * CharSequence view of UTF-8 bytes, which are only decoded when converted to String.
+	 * All the delimiters are ASCII, and the bytes of a multi-byte UTF-8 char never match an ASCII one, so the line can be scanned byte by byte.
+	 */
+	private static final class Utf8Sequence implements CharSequence {
+
+		private final byte[] bytes;
+		private final int offset;
+		private final int length;
+
+		private Utf8Sequence(byte[] bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (bytes[offset + index] & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new Utf8Sequence(bytes, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes, offset, length, StandardCharsets.UTF_8);
+		}
+	}
+}
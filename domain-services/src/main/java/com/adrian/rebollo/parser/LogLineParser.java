@@ -0,0 +1,25 @@
+package com.adrian.rebollo.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import com.adrian.rebollo.model.AccessLogLine;
+
+/**
+ * Main abstraction for parsing raw access log lines into {@link AccessLogLine}.
+ * The implementation is selected with `service.parser.engine`.
+ */
+public interface LogLineParser extends Function<String, AccessLogLine> {
+
+	/**
+	 * parse a line given as UTF-8 bytes, without the line terminator.
+	 * by default the bytes are decoded and parsed as a String, implementations may parse them directly.
+	 *
+	 * @param bytes containing the line
+	 * @param offset of the first byte of the line
+	 * @param length of the line in bytes
+	 */
+	default AccessLogLine apply(byte[] bytes, int offset, int length) {
+		return apply(new String(bytes, offset, length, StandardCharsets.UTF_8));
+	}
+}
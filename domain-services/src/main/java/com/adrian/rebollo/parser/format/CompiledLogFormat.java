@@ -0,0 +1,82 @@
+package com.adrian.rebollo.parser.format;
+
+import java.time.LocalDateTime;
+
+import com.adrian.rebollo.exception.LogLineParsingException;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+import com.adrian.rebollo.parser.LogLineParser;
+
+import lombok.Getter;
+
+/**
+ * LogLineParser for a log format compiled by the {@link LogFormatCompiler}.
+ * The format is a sequence of `literal field literal field ... literal`: every literal must be found where expected,
+ * and every field value lasts until its following literal (or until the end of the line for a last field without trailing literal).
+ * Anything after the trailing literal is ignored.
+ */
+public class CompiledLogFormat implements LogLineParser {
+
+	@Getter
+	private final String format;
+
+	/**
+	 * literals[i] precedes fields[i], and the last literal follows the last field.
+	 */
+	private final String[] literals;
+	private final LogFormatField[] fields;
+	private final AccessLogDateTimeDecoder accessLogDateTimeDecoder;
+
+	CompiledLogFormat(String format, String[] literals, LogFormatField[] fields, AccessLogDateTimeDecoder accessLogDateTimeDecoder) {
+		this.format = format;
+		this.literals = literals;
+		this.fields = fields;
+		this.accessLogDateTimeDecoder = accessLogDateTimeDecoder;
+	}
+
+	@Override
+	public AccessLogLine apply(String line) {
+
+		final AccessLogLine accessLogLine = new AccessLogLine()
+				.setHost("")
+				.setIdentifier("NO_IDENTIFIER")
+				.setUser("NO_USER")
+				.setResource("")
+				.setProtocol("")
+				.setInsertTime(LocalDateTime.now());
+
+		try {
+			int position = 0;
+			for (int i = 0; i < fields.length; i++) {
+				position = literal(line, position, literals[i]);
+				final int end = fields[i].end(line, position, literals[i + 1]);
+				if (end < 0) {
+					throw parsingException(line);
+				}
+				fields[i].set(accessLogLine, line, position, end, accessLogDateTimeDecoder);
+				position = end;
+			}
+			literal(line, position, literals[fields.length]);
+		} catch (LogLineParsingException exception) {
+			throw exception;
+		} catch (RuntimeException exception) {
+			throw parsingException(line);
+		}
+
+		return accessLogLine;
+	}
+
+	/**
+	 * @return the index after the literal expected at the given position.
+	 */
+	private int literal(String line, int position, String literal) {
+		if (!line.startsWith(literal, position)) {
+			throw parsingException(line);
+		}
+		return position + literal.length();
+	}
+
+	private static LogLineParsingException parsingException(String line) {
+		return new LogLineParsingException(String.format("An error occurred parsing the input line=%s", line));
+	}
+}
@@ -0,0 +1,168 @@
+package com.adrian.rebollo.parser.format;
+
+import static java.util.Map.entry;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Compiles an nginx `log_format` or an Apache `LogFormat` directive into a {@link CompiledLogFormat}.
+ * nginx variables are written as `$name`, Apache directives as `%x`, `%>x` or `%{arg}x`.
+ * Unknown variables and directives are skipped, and Apache escaped quotes (`\"`) are unescaped.
+ *
+ * ie: nginx combined with timings:
+ * `$remote_addr - $remote_user [$time_local] "$request" $status $body_bytes_sent "$http_referer" "$http_user_agent" $request_time $upstream_response_time`
+ * ie: Apache combined with duration:
+ * `%h %l %u %t \"%r\" %>s %b \"%{Referer}i\" \"%{User-agent}i\" %D`
+ */
+@RequiredArgsConstructor
+public class LogFormatCompiler {
+
+	private static final Map<String, LogFormatField> NGINX_VARIABLES = Map.ofEntries(
+			entry("remote_addr", LogFormatField.HOST),
+			entry("remote_user", LogFormatField.USER),
+			entry("time_local", LogFormatField.TIME_LOCAL),
+			entry("time_iso8601", LogFormatField.TIME_ISO8601),
+			entry("request", LogFormatField.REQUEST),
+			entry("request_method", LogFormatField.METHOD),
+			entry("request_uri", LogFormatField.RESOURCE),
+			entry("uri", LogFormatField.RESOURCE),
+			entry("server_protocol", LogFormatField.PROTOCOL),
+			entry("status", LogFormatField.STATUS),
+			entry("body_bytes_sent", LogFormatField.BYTES),
+			entry("bytes_sent", LogFormatField.BYTES),
+			entry("http_referer", LogFormatField.REFERRER),
+			entry("http_user_agent", LogFormatField.USER_AGENT),
+			entry("request_time", LogFormatField.REQUEST_TIME_SECONDS),
+			entry("upstream_response_time", LogFormatField.UPSTREAM_TIME_SECONDS));
+
+	/**
+	 * keyed by the directive letter, prefixed by its lower case `{arg}` when it has one.
+	 * `%t` is not here, as it is compiled to `[` TIME_LOCAL `]`.
+	 */
+	private static final Map<String, LogFormatField> APACHE_DIRECTIVES = Map.ofEntries(
+			entry("h", LogFormatField.HOST),
+			entry("a", LogFormatField.HOST),
+			entry("l", LogFormatField.IDENTIFIER),
+			entry("u", LogFormatField.USER),
+			entry("r", LogFormatField.REQUEST),
+			entry("m", LogFormatField.METHOD),
+			entry("U", LogFormatField.RESOURCE),
+			entry("H", LogFormatField.PROTOCOL),
+			entry("s", LogFormatField.STATUS),
+			entry("b", LogFormatField.BYTES),
+			entry("B", LogFormatField.BYTES),
+			entry("{referer}i", LogFormatField.REFERRER),
+			entry("{user-agent}i", LogFormatField.USER_AGENT),
+			entry("D", LogFormatField.REQUEST_TIME_MICROS),
+			entry("T", LogFormatField.REQUEST_TIME_SECONDS),
+			entry("{s}T", LogFormatField.REQUEST_TIME_SECONDS),
+			entry("{ms}T", LogFormatField.REQUEST_TIME_MILLIS),
+			entry("{us}T", LogFormatField.REQUEST_TIME_MICROS));
+
+	private static final Set<LogFormatField> TIME_FIELDS = EnumSet.of(LogFormatField.TIME_LOCAL, LogFormatField.TIME_ISO8601);
+	private static final Set<LogFormatField> METHOD_FIELDS = EnumSet.of(LogFormatField.REQUEST, LogFormatField.METHOD);
+
+	private final AccessLogDateTimeDecoder accessLogDateTimeDecoder;
+
+	/**
+	 * @throws IllegalArgumentException when the format can not be parsed without ambiguity,
+	 * or it does not contain the fields needed by the stats (time, http method and status).
+	 */
+	public CompiledLogFormat compile(String format) {
+
+		final List<String> literals = new ArrayList<>();
+		final List<LogFormatField> fields = new ArrayList<>();
+		final StringBuilder literal = new StringBuilder();
+
+		int position = 0;
+		while (position < format.length()) {
+			final char c = format.charAt(position);
+
+			if (c == '\\' && position + 1 < format.length() && (format.charAt(position + 1) == '"' || format.charAt(position + 1) == '\\')) {
+				literal.append(format.charAt(position + 1));
+				position += 2;
+			} else if (c == '$' && position + 1 < format.length() && isVariableChar(format.charAt(position + 1))) {
+				int end = position + 1;
+				while (end < format.length() && isVariableChar(format.charAt(end))) {
+					end++;
+				}
+				addField(format, literals, fields, literal, NGINX_VARIABLES.getOrDefault(format.substring(position + 1, end), LogFormatField.IGNORED));
+				position = end;
+			} else if (c == '%' && position + 1 < format.length() && format.charAt(position + 1) == '%') {
+				literal.append('%');
+				position += 2;
+			} else if (c == '%') {
+				position = apacheDirective(format, position + 1, literals, fields, literal);
+			} else {
+				literal.append(c);
+				position++;
+			}
+		}
+		literals.add(literal.toString());
+
+		if (fields.stream().noneMatch(TIME_FIELDS::contains) || fields.stream().noneMatch(METHOD_FIELDS::contains)
+				|| !fields.contains(LogFormatField.STATUS)) {
+			throw new IllegalArgumentException(String.format("Log format=%s must contain the time, the request (or method) and the status", format));
+		}
+
+		return new CompiledLogFormat(format, literals.toArray(new String[0]), fields.toArray(new LogFormatField[0]), accessLogDateTimeDecoder);
+	}
+
+	/**
+	 * compile the Apache directive starting at the given index (after the `%`).
+	 * @return the index after the directive.
+	 */
+	private int apacheDirective(String format, int position, List<String> literals, List<LogFormatField> fields, StringBuilder literal) {
+
+		//status conditions and the original/final request modifiers do not change the field.
+		while (position < format.length() && "<>!,0123456789".indexOf(format.charAt(position)) >= 0) {
+			position++;
+		}
+
+		String argument = "";
+		if (position < format.length() && format.charAt(position) == '{') {
+			final int end = format.indexOf('}', position);
+			if (end < 0) {
+				throw new IllegalArgumentException(String.format("Log format=%s has an unclosed directive argument", format));
+			}
+			argument = format.substring(position, end + 1).toLowerCase(Locale.ROOT);
+			position = end + 1;
+		}
+
+		if (position >= format.length()) {
+			throw new IllegalArgumentException(String.format("Log format=%s ends with an incomplete directive", format));
+		}
+
+		final char directive = format.charAt(position);
+		if (directive == 't' && argument.isEmpty()) {
+			literal.append('[');
+			addField(format, literals, fields, literal, LogFormatField.TIME_LOCAL);
+			literal.append(']');
+		} else {
+			addField(format, literals, fields, literal, APACHE_DIRECTIVES.getOrDefault(argument + directive, LogFormatField.IGNORED));
+		}
+		return position + 1;
+	}
+
+	private void addField(String format, List<String> literals, List<LogFormatField> fields, StringBuilder literal, LogFormatField field) {
+		if (!fields.isEmpty() && literal.length() == 0) {
+			throw new IllegalArgumentException(String.format("Log format=%s has consecutive fields without any separator", format));
+		}
+		literals.add(literal.toString());
+		literal.setLength(0);
+		fields.add(field);
+	}
+
+	private static boolean isVariableChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+}
@@ -0,0 +1,253 @@
+package com.adrian.rebollo.parser.format;
+
+import java.time.OffsetDateTime;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.HttpMethod;
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+
+/**
+ * Fields which can be extracted from a log format, and how their text is set into the {@link AccessLogLine}.
+ * Every setter receives the field boundaries inside the line, so only the values which are kept are allocated.
+ */
+public enum LogFormatField {
+
+	HOST {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setHost(safeParseString(line, start, end));
+		}
+	},
+	IDENTIFIER {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setIdentifier(StringUtils.defaultIfBlank(safeParseString(line, start, end), "NO_IDENTIFIER"));
+		}
+	},
+	USER {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setUser(StringUtils.defaultIfBlank(safeParseString(line, start, end), "NO_USER"));
+		}
+	},
+	/**
+	 * `dd/MMM/yyyy:HH:mm:ss Z`
+	 */
+	TIME_LOCAL {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setDateTime(decoder.decode(line, start, end));
+		}
+	},
+	TIME_ISO8601 {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setDateTime(OffsetDateTime.parse(line.subSequence(start, end)).toLocalDateTime());
+		}
+	},
+	/**
+	 * `METHOD RESOURCE PROTOCOL`, the resource may contain spaces.
+	 */
+	REQUEST {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			final int methodEnd = line.indexOf(' ', start);
+			final int protocolStart = line.lastIndexOf(' ', end - 1) + 1;
+			if (methodEnd < 0 || methodEnd >= end || protocolStart <= methodEnd + 1) {
+				throw new IllegalArgumentException("Invalid request");
+			}
+			METHOD.set(accessLogLine, line, start, methodEnd, decoder);
+			RESOURCE.set(accessLogLine, line, methodEnd + 1, protocolStart - 1, decoder);
+			PROTOCOL.set(accessLogLine, line, protocolStart, end, decoder);
+		}
+	},
+	METHOD {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setHttpMethod(HttpMethod.valueOf(line.substring(start, end)));
+		}
+	},
+	RESOURCE {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setResource(safeParseString(line, start, end));
+		}
+	},
+	PROTOCOL {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setProtocol(safeParseString(line, start, end));
+		}
+	},
+	STATUS {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setReturnedStatus((int) number(line, start, end));
+		}
+	},
+	/**
+	 * `-` means no bytes.
+	 */
+	BYTES {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setContentSize(isDash(line, start, end) ? 0 : number(line, start, end));
+		}
+	},
+	REFERRER {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setReferrer(safeParseString(line, start, end));
+		}
+	},
+	USER_AGENT {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setUserAgent(safeParseString(line, start, end));
+		}
+	},
+	/**
+	 * seconds with decimals, ie: nginx `$request_time`.
+	 */
+	REQUEST_TIME_SECONDS {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setRequestDuration(durationMicros(line, start, end, 1_000_000));
+		}
+	},
+	REQUEST_TIME_MILLIS {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setRequestDuration(durationMicros(line, start, end, 1_000));
+		}
+	},
+	REQUEST_TIME_MICROS {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			accessLogLine.setRequestDuration(durationMicros(line, start, end, 1));
+		}
+	},
+	/**
+	 * seconds with decimals, ie: nginx `$upstream_response_time`.
+	 * when the request has been passed to several upstreams they are separated by `, `, or by ` : ` after an internal redirect,
+	 * and the durations are added.
+	 */
+	UPSTREAM_TIME_SECONDS {
+		/**
+		 * the separators may contain the following literal (ie: a space), so it is only searched after them.
+		 */
+		@Override
+		int end(String line, int start, String next) {
+			int position = start;
+			while (true) {
+				while (position < line.length() && "0123456789.-".indexOf(line.charAt(position)) >= 0) {
+					position++;
+				}
+				if (line.startsWith(", ", position)) {
+					position += 2;
+				} else if (line.startsWith(" : ", position)) {
+					position += 3;
+				} else {
+					return super.end(line, position, next);
+				}
+			}
+		}
+
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+			Long total = null;
+			int valueStart = start;
+			while (valueStart < end) {
+				int valueEnd = valueStart;
+				while (valueEnd < end && line.charAt(valueEnd) != ',' && line.charAt(valueEnd) != ':') {
+					valueEnd++;
+				}
+				final Long duration = durationMicros(line, valueStart, valueEnd, 1_000_000);
+				if (duration != null) {
+					total = total == null ? duration : total + duration;
+				}
+				valueStart = valueEnd + 1;
+			}
+			accessLogLine.setUpstreamDuration(total);
+		}
+	},
+	/**
+	 * any other variable or directive, which is skipped.
+	 */
+	IGNORED {
+		@Override
+		void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder) {
+		}
+	};
+
+	abstract void set(AccessLogLine accessLogLine, String line, int start, int end, AccessLogDateTimeDecoder decoder);
+
+	/**
+	 * @param next literal following the field, empty when the field lasts until the end of the line
+	 * @return the index where the value starting at the given index ends, negative when the following literal is not found.
+	 */
+	int end(String line, int start, String next) {
+		return next.isEmpty() ? line.length() : line.indexOf(next, start);
+	}
+
+	private static String safeParseString(String line, int start, int end) {
+		if (isDash(line, start, end)) {
+			return "";
+		}
+		return StringUtils.defaultIfBlank(line.substring(start, end), "");
+	}
+
+	private static boolean isDash(String line, int start, int end) {
+		return end - start == 1 && line.charAt(start) == '-';
+	}
+
+	private static long number(String line, int start, int end) {
+		if (start == end) {
+			throw new NumberFormatException("Empty number");
+		}
+		long number = 0;
+		for (int position = start; position < end; position++) {
+			final char c = line.charAt(position);
+			if (c < '0' || c > '9') {
+				throw new NumberFormatException("Invalid number");
+			}
+			number = Math.addExact(Math.multiplyExact(number, 10), c - '0');
+		}
+		return number;
+	}
+
+	/**
+	 * converts a decimal duration in the given unit (micros per unit) to micros, without going through a double.
+	 * @return null when the duration has not been logged (`-`, or empty).
+	 */
+	private static Long durationMicros(String line, int start, int end, long microsPerUnit) {
+
+		while (start < end && line.charAt(start) == ' ') {
+			start++;
+		}
+		while (end > start && line.charAt(end - 1) == ' ') {
+			end--;
+		}
+		if (start == end || isDash(line, start, end)) {
+			return null;
+		}
+
+		final int dot = line.indexOf('.', start);
+		final int integerEnd = dot < 0 || dot >= end ? end : dot;
+
+		long micros = Math.multiplyExact(number(line, start, integerEnd), microsPerUnit);
+
+		long fractionUnit = microsPerUnit;
+		for (int position = integerEnd + 1; position < end; position++) {
+			final char c = line.charAt(position);
+			if (c < '0' || c > '9') {
+				throw new NumberFormatException("Invalid duration");
+			}
+			fractionUnit /= 10;
+			micros += (c - '0') * fractionUnit;
+		}
+		return micros;
+	}
+}
@@ -0,0 +1,736 @@
+package com.adrian.rebollo.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * NIO alternative to the commons-io Tailer.
+ * On every wakeup it drains all the bytes appended to the file through a {@link FileChannel} and a direct {@link ByteBuffer},
+ * splits them into lines at byte level, and hands them to the {@link ChannelTailerListener} in batches instead of one by one.
+ * A partial (not yet terminated) line is kept until its line feed is written.
+ *
+ * When a {@link ReaderCheckpointStore} is given, the position after the last handled line is saved every `checkpointInterval` millis,
+ * and the next start resumes from it (catching up the backlog at full speed, without sleeping between reads).
+ * The listener may handle the batches asynchronously and out of order, so a checkpoint only covers the batches delivered before the first
+ * one not acknowledged yet through its `handled` callback.
+ * Lines delivered after it are read again after a crash or a stop (at-least-once).
+ * When a batch could not be handled (its callback completed exceptionally) the tailer checkpoints up to it and stops,
+ * instead of reading on with a checkpoint which could never move past it again.
+ *
+ * When an `archivePattern` is given, the rotated archives of the file matching it (ie: `access.log.*`) are read before tailing it,
+ * oldest first, gzip ones (`.gz`) through a streaming decompressor, and then the tailed file is read from its beginning.
+ * The checkpoint may belong to an archive, so a catch-up after an outage resumes from it and skips the older archives.
+ *
+ * Rotations are detected by the file identity (inode) and size: when the file is renamed, the old one is drained until it is quiet for
+ * `rotationGrace` millis before reading the new one, and when it is truncated in place (copytruncate) it is read again from its beginning.
+ *
+ * With `watch`, an idle tailer blocks on a {@link WatchService} of the file directory instead of polling every `delay` millis,
+ * so it only wakes up when the file changes, with a safety poll every `watchPoll` millis as some file systems do not notify every change.
+ */
+@Slf4j
+public class ChannelTailer implements Runnable {
+
+	private static final byte LF = '\n';
+	private static final byte CR = '\r';
+
+	@Getter
+	private final Path path;
+	@Getter
+	private final long delay;
+	private final boolean end;
+	private final int batchSize;
+	private final ChannelTailerListener listener;
+	private final ReaderCheckpointStore checkpointStore;
+	private final long checkpointInterval;
+	private final String archivePattern;
+	private final int archiveBufferSize;
+	private final long rotationGrace;
+	private final boolean watch;
+	private final long watchPoll;
+
+	private volatile WatchService watchService;
+
+	/**
+	 * direct buffer avoids the intermediate copy the JDK does when reading a channel into a heap buffer.
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * bytes read from the file which still have not been split into lines (the last line may be incomplete).
+	 */
+	private byte[] pending;
+	private int pendingLength;
+
+	/**
+	 * file offset of the first pending byte.
+	 */
+	private long pendingOffset;
+
+	/**
+	 * sequence id of the last line delivered to the listener.
+	 */
+	@Getter
+	private long seqId;
+
+	private String fileKey;
+	private long lastCheckpoint;
+
+	/**
+	 * delivered batches not checkpointed yet, in delivery order, only tracked with a checkpoint store.
+	 */
+	private final Queue<Delivery> deliveries = new ArrayDeque<>();
+
+	private volatile boolean run = true;
+
+	/**
+	 * renamed files, which are drained before reading the new one.
+	 */
+	private final AtomicLong rotations = new AtomicLong();
+	/**
+	 * files truncated in place (copytruncate).
+	 */
+	private final AtomicLong truncations = new AtomicLong();
+	/**
+	 * bytes read from renamed files after their rotation has been detected.
+	 */
+	private final AtomicLong drainedBytes = new AtomicLong();
+	/**
+	 * unterminated lines discarded at a rotation or truncation.
+	 */
+	private final AtomicLong lostLines = new AtomicLong();
+
+	@Builder
+	public ChannelTailer(Path path, ChannelTailerListener listener, long delay, boolean end, int bufferSize, int batchSize,
+			ReaderCheckpointStore checkpointStore, long checkpointInterval, String archivePattern, int archiveBufferSize, long rotationGrace,
+			boolean watch, long watchPoll) {
+		this.path = path;
+		this.listener = listener;
+		this.delay = delay;
+		this.end = end;
+		this.batchSize = batchSize;
+		this.checkpointStore = checkpointStore;
+		this.checkpointInterval = checkpointInterval;
+		this.archivePattern = archivePattern;
+		this.archiveBufferSize = archiveBufferSize > 0 ? archiveBufferSize : bufferSize;
+		this.rotationGrace = rotationGrace;
+		this.watch = watch;
+		this.watchPoll = watchPoll;
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.pending = new byte[bufferSize];
+	}
+
+	@Override
+	public void run() {
+
+		FileChannel channel = null;
+
+		try {
+			final Optional<ReaderCheckpoint> checkpoint = checkpointStore == null ? Optional.empty() : checkpointStore.load();
+			final boolean archivesRead = archivePattern != null && catchUp(checkpoint);
+
+			while (run && channel == null) {
+				channel = open();
+				if (channel == null) {
+					listener.fileNotFound();
+					sleep();
+				}
+			}
+
+			if (channel == null) {
+				return;
+			}
+
+			long position = startPosition(channel, checkpoint, archivesRead);
+			channel.position(position);
+			pendingOffset = position;
+			//registered before the first read, so nothing appended after it is missed.
+			watch();
+			listener.init(this);
+
+			while (run) {
+
+				final String currentFileKey = currentFileKey();
+
+				if (currentFileKey != null && !currentFileKey.equals(fileKey)) {
+					//the file has been renamed (or replaced) and a new one created in its place: drain the old one, and read the new one from the beginning.
+					final long drained = drainRotated(channel, position);
+					rotations.incrementAndGet();
+					LOG.info("File={} has been rotated, drained {} bytes from the previous file, rotations={} truncations={} drainedBytes={} lostLines={}.",
+							path, drained, rotations, truncations, drainedBytes, lostLines);
+					listener.fileRotated();
+					channel.close();
+					channel = reopen();
+					if (channel == null) {
+						break;
+					}
+					position = 0;
+					pendingOffset = 0;
+					fileKey = fileKey();
+					checkpoint();
+					continue;
+				}
+
+				if (currentFileKey != null && channel.size() < position) {
+					//copytruncate: the file has been copied and truncated in place, so it is still the same file and it is read again from the beginning.
+					//the lines written between the last read and the truncation are only in the copy.
+					discardPartialLine();
+					truncations.incrementAndGet();
+					LOG.warn("File={} has been truncated from {} to {} bytes, rotations={} truncations={} drainedBytes={} lostLines={}.",
+							path, position, channel.size(), rotations, truncations, drainedBytes, lostLines);
+					listener.fileRotated();
+					position = 0;
+					channel.position(position);
+					pendingOffset = 0;
+					checkpoint();
+					continue;
+				}
+
+				final long drained = drain(channel);
+
+				//only wait when there was nothing new to read, so a backlog is consumed at full speed.
+				if (drained == position) {
+					awaitChange();
+				}
+				position = drained;
+
+				if (System.currentTimeMillis() - lastCheckpoint >= checkpointInterval) {
+					checkpoint();
+				}
+			}
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			listener.handle(exception);
+		} catch (Exception exception) {
+			listener.handle(exception);
+		} finally {
+			close(channel);
+			closeWatchService();
+			checkpoint();
+		}
+	}
+
+	public long getRotations() {
+		return rotations.get();
+	}
+
+	public long getTruncations() {
+		return truncations.get();
+	}
+
+	public long getDrainedBytes() {
+		return drainedBytes.get();
+	}
+
+	public long getLostLines() {
+		return lostLines.get();
+	}
+
+	/**
+	 * stops the tailer, which will finish its current iteration.
+	 */
+	public void stop() {
+		this.run = false;
+		//wakes up a tailer waiting for a change.
+		closeWatchService();
+	}
+
+	/**
+	 * the start position is the checkpoint offset when it belongs to the same file.
+	 * if the checkpointed file has been replaced while stopped, the new one has not been read at all, so it starts from the beginning.
+	 * it also starts from the beginning when its archives have just been read, as its lines follow theirs.
+	 */
+	private long startPosition(FileChannel channel, Optional<ReaderCheckpoint> checkpoint, boolean archivesRead) throws IOException {
+
+		fileKey = fileKey();
+		final long size = channel.size();
+
+		if (archivesRead) {
+			return 0;
+		}
+
+		if (checkpoint.isEmpty()) {
+			return end ? size : 0;
+		}
+
+		seqId = checkpoint.get().getSeqId();
+
+		if (checkpoint.get().getFileKey().equals(fileKey) && checkpoint.get().getOffset() <= size) {
+			LOG.info("Resuming ChannelTailer from checkpoint={}, catching up {} bytes.", checkpoint.get(), size - checkpoint.get().getOffset());
+			return checkpoint.get().getOffset();
+		}
+
+		LOG.warn("Checkpoint={} does not belong to the current file={} with fileKey={}, reading it from the beginning.", checkpoint.get(), path, fileKey);
+		return 0;
+	}
+
+	/**
+	 * drain the remainder of a renamed file until nothing has been appended to it for `rotationGrace` millis,
+	 * as the writer may keep appending to it until it reopens its file (ie: nginx until it is signaled by logrotate).
+	 * its last unterminated line will never be completed, so it is discarded.
+	 * @return the drained bytes.
+	 */
+	private long drainRotated(FileChannel channel, long position) throws IOException, InterruptedException {
+
+		final long start = position;
+		long appended = System.currentTimeMillis();
+
+		do {
+			final long drained = drain(channel);
+			if (drained != position) {
+				position = drained;
+				appended = System.currentTimeMillis();
+			} else if (rotationGrace > 0) {
+				sleep();
+			}
+		} while (run && System.currentTimeMillis() - appended < rotationGrace);
+
+		discardPartialLine();
+		drainedBytes.addAndGet(position - start);
+		return position - start;
+	}
+
+	/**
+	 * discard the pending bytes of an unterminated line which will never be completed, counting it as a possibly lost line.
+	 */
+	private void discardPartialLine() {
+		if (pendingLength > 0) {
+			LOG.warn("Discarding unterminated line of {} bytes from file={}.", pendingLength, path);
+			lostLines.incrementAndGet();
+		}
+		pendingLength = 0;
+	}
+
+	/**
+	 * read the rotated archives, oldest first, when they have not been read yet.
+	 * the archives older than the checkpointed one are skipped, and the checkpointed one is resumed from its offset.
+	 * @return true when at least an archive has been read, so the tailed file must be read from its beginning.
+	 */
+	private boolean catchUp(Optional<ReaderCheckpoint> checkpoint) throws IOException {
+
+		if (checkpoint.isPresent() && Files.exists(path) && checkpoint.get().getFileKey().equals(fileKey(path))) {
+			//the checkpoint belongs to the tailed file, so its archives have already been read.
+			return false;
+		}
+
+		final Set<String> read = new HashSet<>();
+		List<Path> archives = archives();
+		long offset = 0;
+
+		if (checkpoint.isPresent()) {
+			seqId = checkpoint.get().getSeqId();
+			final List<String> keys = new ArrayList<>(archives.size());
+			for (Path archive : archives) {
+				keys.add(fileKey(archive));
+			}
+			final int checkpointed = keys.indexOf(checkpoint.get().getFileKey());
+			if (checkpointed < 0) {
+				LOG.warn("Checkpoint={} does not belong to any archive of file={}, reading all of them.", checkpoint.get(), path);
+			} else {
+				read.addAll(keys.subList(0, checkpointed));
+				offset = checkpoint.get().getOffset();
+			}
+		}
+
+		LOG.info("Catching up {} archives of file={} matching pattern={}.", archives.size() - read.size(), path, archivePattern);
+
+		boolean archivesRead = false;
+		boolean found = true;
+		while (run && found) {
+			found = false;
+			for (Path archive : archives) {
+				final String key = fileKey(archive);
+				if (run && read.add(key)) {
+					readArchive(archive, key, offset);
+					offset = 0;
+					found = true;
+					archivesRead = true;
+				}
+			}
+			//the tailed file may have been rotated meanwhile, its new archive is read too.
+			archives = archives();
+		}
+
+		pendingLength = 0;
+		return archivesRead;
+	}
+
+	/**
+	 * read the whole archive from the given offset (of the decompressed content), delivering its lines in batches.
+	 * unlike the tailed file, the last line of an archive is delivered even without a line feed, as nothing will be appended.
+	 */
+	private void readArchive(Path archive, String key, long offset) throws IOException {
+
+		LOG.info("Reading archive={} from offset={}.", archive, offset);
+
+		fileKey = key;
+		pendingLength = 0;
+		pendingOffset = offset;
+
+		List<String> batch = new ArrayList<>(batchSize);
+
+		try (InputStream input = openArchive(archive)) {
+			skip(input, offset);
+
+			int read;
+			ensureCapacity(archiveBufferSize);
+			while (run && (read = input.read(pending, pendingLength, archiveBufferSize)) >= 0) {
+				final int scanFrom = pendingLength;
+				pendingLength += read;
+				batch = split(scanFrom, batch);
+				ensureCapacity(pendingLength + archiveBufferSize);
+
+				if (System.currentTimeMillis() - lastCheckpoint >= checkpointInterval) {
+					deliver(batch);
+					batch = new ArrayList<>(batchSize);
+					checkpoint();
+				}
+			}
+		}
+
+		if (run && pendingLength > 0) {
+			batch.add(new String(pending, 0, pendingLength, StandardCharsets.UTF_8));
+			pendingOffset += pendingLength;
+			pendingLength = 0;
+		}
+		deliver(batch);
+		checkpoint();
+	}
+
+	/**
+	 * gzip archives are decompressed while they are read, through an inflater with a buffer of `archiveBufferSize`.
+	 */
+	private InputStream openArchive(Path archive) throws IOException {
+		final InputStream input = Files.newInputStream(archive);
+		return archive.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(input, archiveBufferSize) : input;
+	}
+
+	private static void skip(InputStream input, long bytes) throws IOException {
+		long remaining = bytes;
+		while (remaining > 0) {
+			final long skipped = input.skip(remaining);
+			if (skipped <= 0) {
+				if (input.read() < 0) {
+					return;
+				}
+				remaining--;
+			} else {
+				remaining -= skipped;
+			}
+		}
+	}
+
+	/**
+	 * @return the archives of the tailed file matching `archivePattern` in its directory, from the oldest to the newest.
+	 * they are sorted by last modified time, and then by rotation number descending (`access.log.2.gz` is older than `access.log.1`).
+	 */
+	private List<Path> archives() throws IOException {
+
+		final Path directory = path.toAbsolutePath().getParent();
+		final List<Path> archives = new ArrayList<>();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, archivePattern)) {
+			for (Path archive : stream) {
+				if (!archive.getFileName().equals(path.getFileName()) && Files.isRegularFile(archive)) {
+					archives.add(archive);
+				}
+			}
+		}
+
+		archives.sort(Comparator.comparing(ChannelTailer::lastModified).thenComparing(this::rotation, Comparator.reverseOrder()));
+		return archives;
+	}
+
+	private static FileTime lastModified(Path archive) {
+		try {
+			return Files.getLastModifiedTime(archive);
+		} catch (IOException exception) {
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	/**
+	 * @return the first number of the archive name, ie: 2 for `access.log.2.gz`, or -1 when it has none.
+	 */
+	private long rotation(Path archive) {
+		final String name = archive.getFileName().toString();
+		int start = name.startsWith(path.getFileName().toString()) ? path.getFileName().toString().length() : 0;
+		while (start < name.length() && !Character.isDigit(name.charAt(start))) {
+			start++;
+		}
+		int end = start;
+		while (end < name.length() && end - start < 18 && Character.isDigit(name.charAt(end))) {
+			end++;
+		}
+		return start == end ? -1 : Long.parseLong(name.substring(start, end));
+	}
+
+	/**
+	 * read all the available bytes until the end of the file, delivering the complete lines in batches.
+	 * @return the new channel position.
+	 */
+	private long drain(FileChannel channel) throws IOException {
+
+		List<String> batch = new ArrayList<>(batchSize);
+
+		buffer.clear();
+		while (channel.read(buffer) > 0) {
+			buffer.flip();
+			final int read = buffer.remaining();
+			ensureCapacity(pendingLength + read);
+			buffer.get(pending, pendingLength, read);
+			buffer.clear();
+
+			final int scanFrom = pendingLength;
+			pendingLength += read;
+			batch = split(scanFrom, batch);
+		}
+
+		deliver(batch);
+
+		return channel.position();
+	}
+
+	/**
+	 * split the pending bytes by line feed, starting to look for it at the given index (previous bytes are known to not contain any).
+	 * the remaining bytes after the last line feed are moved to the beginning of the pending array.
+	 */
+	private List<String> split(int scanFrom, List<String> batch) {
+
+		int lineStart = 0;
+
+		for (int i = scanFrom; i < pendingLength; i++) {
+			if (pending[i] == LF) {
+				final int lineEnd = i > lineStart && pending[i - 1] == CR ? i - 1 : i;
+				batch.add(new String(pending, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+				lineStart = i + 1;
+
+				if (batch.size() >= batchSize) {
+					deliver(batch, pendingOffset + lineStart);
+					batch = new ArrayList<>(batchSize);
+				}
+			}
+		}
+
+		pendingLength -= lineStart;
+		pendingOffset += lineStart;
+		System.arraycopy(pending, lineStart, pending, 0, pendingLength);
+
+		return batch;
+	}
+
+	/**
+	 * deliver the batch, which ends where the not yet split pending bytes start.
+	 */
+	private void deliver(List<String> batch) {
+		deliver(batch, pendingOffset);
+	}
+
+	/**
+	 * @param endOffset file offset after the last line of the batch
+	 */
+	private void deliver(List<String> batch, long endOffset) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		final long firstSeqId = seqId + 1;
+		seqId += batch.size();
+		if (checkpointStore == null) {
+			listener.handle(batch, firstSeqId, null);
+			return;
+		}
+		final Delivery delivery = new Delivery(fileKey, endOffset, seqId);
+		deliveries.add(delivery);
+		listener.handle(batch, firstSeqId, delivery);
+	}
+
+	/**
+	 * save the position after the last line of the handled batches, up to the first one not handled yet.
+	 * when every delivered batch has been handled, it is the offset after the last delivered line, where the not yet split pending bytes start.
+	 * nothing is saved while the oldest delivered batch is still being handled.
+	 * when the oldest one has failed, the tailer is stopped.
+	 */
+	private void checkpoint() {
+		lastCheckpoint = System.currentTimeMillis();
+		if (checkpointStore == null || fileKey == null) {
+			return;
+		}
+		Delivery handled = null;
+		while (!deliveries.isEmpty() && deliveries.peek().isDone() && !deliveries.peek().isCompletedExceptionally()) {
+			handled = deliveries.poll();
+		}
+		if (deliveries.isEmpty()) {
+			checkpointStore.save(new ReaderCheckpoint(fileKey, pendingOffset, seqId));
+		} else if (handled != null) {
+			checkpointStore.save(new ReaderCheckpoint(handled.fileKey, handled.endOffset, handled.seqId));
+		}
+		if (!deliveries.isEmpty() && deliveries.peek().isCompletedExceptionally() && run) {
+			LOG.error("Stopping ChannelTailer for file={}, the batch ending at seqId={} could not be handled, it is read again after a restart.",
+					path, deliveries.peek().seqId);
+			stop();
+		}
+	}
+
+	/**
+	 * a delivered batch, and the position after its last line, completed once the listener has handled it.
+	 */
+	@RequiredArgsConstructor
+	private static final class Delivery extends CompletableFuture<Void> {
+
+		private final String fileKey;
+		private final long endOffset;
+		private final long seqId;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > pending.length) {
+			final byte[] grown = new byte[Math.max(capacity, pending.length * 2)];
+			System.arraycopy(pending, 0, grown, 0, pendingLength);
+			pending = grown;
+		}
+	}
+
+	private FileChannel open() throws IOException {
+		try {
+			return FileChannel.open(path, StandardOpenOption.READ);
+		} catch (NoSuchFileException exception) {
+			return null;
+		}
+	}
+
+	private FileChannel reopen() throws IOException, InterruptedException {
+		FileChannel channel = open();
+		while (run && channel == null) {
+			listener.fileNotFound();
+			sleep();
+			channel = open();
+		}
+		return channel;
+	}
+
+	private String fileKey() throws IOException {
+		return fileKey(path);
+	}
+
+	private static String fileKey(Path file) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		return Objects.toString(attributes.fileKey(), attributes.creationTime().toString());
+	}
+
+	/**
+	 * @return the key of the file currently at the tailed path, or null when it is missing.
+	 */
+	private String currentFileKey() throws IOException {
+		try {
+			return fileKey();
+		} catch (NoSuchFileException exception) {
+			//the file may be missing for a while during a rotation, keep reading the current channel until it appears.
+			return null;
+		}
+	}
+
+	private void sleep() throws InterruptedException {
+		Thread.sleep(delay);
+	}
+
+	/**
+	 * register the directory of the file in a WatchService, when `watch` is enabled.
+	 */
+	private void watch() throws IOException {
+		if (!watch) {
+			return;
+		}
+		watchService = path.getFileSystem().newWatchService();
+		path.toAbsolutePath().getParent().register(watchService,
+				StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		LOG.info("Watching file={} for changes, with a safety poll every {} millis.", path, watchPoll);
+	}
+
+	/**
+	 * wait until the file changes, or the safety poll elapses, ignoring the changes of any other file of the directory.
+	 * without `watch`, it just sleeps for the delay.
+	 */
+	private void awaitChange() throws InterruptedException {
+
+		if (watchService == null) {
+			sleep();
+			return;
+		}
+
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(watchPoll);
+		try {
+			long remaining;
+			while (run && (remaining = deadline - System.nanoTime()) > 0) {
+				final WatchKey key = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+				if (key == null) {
+					return;
+				}
+				boolean changed = false;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || path.getFileName().equals(event.context());
+				}
+				key.reset();
+				if (changed) {
+					return;
+				}
+			}
+		} catch (ClosedWatchServiceException exception) {
+			//the tailer has been stopped.
+		}
+	}
+
+	private void closeWatchService() {
+		final WatchService closing = watchService;
+		if (closing == null) {
+			return;
+		}
+		try {
+			closing.close();
+		} catch (IOException exception) {
+			LOG.error("Could not close watch service for file={}", path, exception);
+		}
+	}
+
+	private void close(FileChannel channel) {
+		if (channel == null) {
+			return;
+		}
+		try {
+			channel.close();
+		} catch (IOException exception) {
+			LOG.error("Could not close channel for file={}", path, exception);
+		}
+	}
+}
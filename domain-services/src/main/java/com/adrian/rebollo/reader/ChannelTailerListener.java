@@ -0,0 +1,39 @@
+package com.adrian.rebollo.reader;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Listener called by the {@link ChannelTailer} for every drained batch of lines.
+ */
+public interface ChannelTailerListener {
+
+	/**
+	 * called once the ChannelTailer has opened the file and is about to start tailing it.
+	 */
+	void init(ChannelTailer tailer);
+
+	/**
+	 * called when the tailed file does not exist (yet).
+	 */
+	void fileNotFound();
+
+	/**
+	 * called when the tailed file has been rotated or truncated, and is re-opened from the beginning.
+	 */
+	void fileRotated();
+
+	/**
+	 * handles a batch of complete lines, in the same order they have been written to the file.
+	 * @param lines to handle
+	 * @param firstSeqId sequence id of the first line, the following lines are numbered consecutively
+	 * @param handled to complete (from any thread) once the lines have been dispatched, so the checkpoint may cover them,
+	 * or to complete exceptionally when they could not be, which stops the tailer. null when the tailer does not checkpoint.
+	 */
+	void handle(List<String> lines, long firstSeqId, CompletableFuture<Void> handled);
+
+	/**
+	 * handles an exception thrown while tailing the file.
+	 */
+	void handle(Exception ex);
+}
@@ -0,0 +1,47 @@
+package com.adrian.rebollo.reader;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ChannelTailerWrapper encapsulates the ChannelTailer instance and allows to start/stop.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "service.reader.engine", havingValue = "channel")
+public class ChannelTailerWrapper implements LogTailerWrapper, DisposableBean {
+
+	private final ChannelTailer tailer;
+
+	/**
+	 * this gets the configuredChannelTailer Bean instance provided by {@link com.adrian.rebollo.DomainServicesConfig}
+	 */
+	public ChannelTailerWrapper(ChannelTailer configuredChannelTailer) {
+		this.tailer = configuredChannelTailer;
+	}
+
+	/**
+	 * Start the ChannelTailer in another Thread with async Spring annotation.
+	 */
+	@Async("readerExecutor")
+	@Override
+	public void run() {
+		LOG.info("Starting ChannelTailerWrapper with delay={} for file={}", tailer.getDelay(), tailer.getPath().toAbsolutePath());
+		tailer.run();
+	}
+
+	/**
+	 * when destroying the bean stop the ChannelTailer.
+	 */
+	@Override
+	public void destroy() {
+		LOG.info("Destroying Bean ChannelTailerWrapper, proceed to stop ChannelTailerWrapper with delay={} for file={}", tailer.getDelay(), tailer.getPath().toAbsolutePath());
+		tailer.stop();
+		LOG.info("ChannelTailerWrapper stopped with rotations={} truncations={} drainedBytes={} lostLines={}",
+				tailer.getRotations(), tailer.getTruncations(), tailer.getDrainedBytes(), tailer.getLostLines());
+	}
+}
@@ -1,31 +1,39 @@
 package com.adrian.rebollo.reader;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.commons.io.input.Tailer;
 import org.apache.commons.io.input.TailerListener;
 import org.springframework.stereotype.Component;
 
-import com.adrian.rebollo.api.InternalDispatcher;
-import com.adrian.rebollo.parser.AccessLogLineParser;
+import com.adrian.rebollo.parser.AccessLogLineParsingStage;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Tailer Listener which will be called for every Tailer polling action.
+ * It also listens the ChannelTailer, which delivers the lines in batches.
+ * The raw lines are handed to the {@link AccessLogLineParsingStage}, so the reader thread does not spend its time parsing.
  */
 @Component
 @Slf4j
 @RequiredArgsConstructor
-public class CustomTailerListener implements TailerListener {
+public class CustomTailerListener implements TailerListener, ChannelTailerListener {
 
-	private final AccessLogLineParser accessLogLineParser;
-	private final InternalDispatcher internalDispatcher;
+	private final AccessLogLineParsingStage accessLogLineParsingStage;
 
 	@Override
 	public void init(Tailer tailer) {
 		LOG.info("Initializing CustomTailerListener");
 	}
 
+	@Override
+	public void init(ChannelTailer tailer) {
+		LOG.info("Initializing CustomTailerListener for ChannelTailer");
+	}
+
 	@Override
 	public void fileNotFound() {
 		LOG.error("Error file not found in CustomTailerListener");
@@ -33,12 +41,17 @@ public class CustomTailerListener implements TailerListener {
 
 	@Override
 	public void fileRotated() {
-		LOG.error("fileRotated in CustomTailerListener");
+		LOG.info("File rotated in CustomTailerListener, reading the new file from its beginning");
 	}
 
 	@Override
 	public void handle(String line) {
-		internalDispatcher.dispatch(accessLogLineParser.apply(line));
+		accessLogLineParsingStage.submit(line);
+	}
+
+	@Override
+	public void handle(List<String> lines, long firstSeqId, CompletableFuture<Void> handled) {
+		accessLogLineParsingStage.submit(lines, firstSeqId, handled);
 	}
 
 	@Override
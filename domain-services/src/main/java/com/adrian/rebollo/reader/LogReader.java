@@ -10,7 +10,7 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class LogReader {
 
-	private final TailerWrapper tailerWrapper;
+	private final LogTailerWrapper tailerWrapper;
 
 	@PostConstruct
 	public void init() {
@@ -0,0 +1,12 @@
+package com.adrian.rebollo.reader;
+
+/**
+ * Abstraction of the reader engine wrappers, which start the configured tailer (commons-io Tailer or ChannelTailer).
+ */
+public interface LogTailerWrapper {
+
+	/**
+	 * Start tailing the configured access log file.
+	 */
+	void run();
+}
@@ -0,0 +1,29 @@
+package com.adrian.rebollo.reader;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Position reached by the reader, persisted to resume from it after a restart.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReaderCheckpoint {
+
+	/**
+	 * identity of the read file (inode based when the file system provides it), to detect it has been replaced while stopped.
+	 */
+	private String fileKey;
+
+	/**
+	 * byte offset right after the last line delivered to the listener.
+	 */
+	private long offset;
+
+	/**
+	 * sequence id of the last line delivered to the listener.
+	 */
+	private long seqId;
+}
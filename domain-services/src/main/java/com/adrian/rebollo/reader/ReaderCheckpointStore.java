@@ -0,0 +1,76 @@
+package com.adrian.rebollo.reader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists the {@link ReaderCheckpoint} into a small local properties file.
+ * The file is written into a temporary sibling and atomically moved, so a crash while saving never leaves a corrupted checkpoint.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReaderCheckpointStore {
+
+	private static final String FILE_KEY = "fileKey";
+	private static final String OFFSET = "offset";
+	private static final String SEQ_ID = "seqId";
+
+	private final Path path;
+
+	/**
+	 * load the last saved checkpoint, if any.
+	 */
+	public Optional<ReaderCheckpoint> load() {
+
+		if (!Files.exists(path)) {
+			return Optional.empty();
+		}
+
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			final Properties properties = new Properties();
+			properties.load(reader);
+			return Optional.of(new ReaderCheckpoint(
+					properties.getProperty(FILE_KEY, ""),
+					Long.parseLong(properties.getProperty(OFFSET, "0")),
+					Long.parseLong(properties.getProperty(SEQ_ID, "0"))));
+		} catch (IOException | NumberFormatException exception) {
+			LOG.error("Could not load reader checkpoint from {}, reader will not resume from it.", path, exception);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * save the given checkpoint replacing the previous one.
+	 */
+	public void save(ReaderCheckpoint checkpoint) {
+
+		final Properties properties = new Properties();
+		properties.setProperty(FILE_KEY, checkpoint.getFileKey());
+		properties.setProperty(OFFSET, String.valueOf(checkpoint.getOffset()));
+		properties.setProperty(SEQ_ID, String.valueOf(checkpoint.getSeqId()));
+
+		final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+		try {
+			if (path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+				properties.store(writer, null);
+			}
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException exception) {
+			LOG.error("Could not save reader checkpoint={} into {}", checkpoint, path, exception);
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.adrian.rebollo.reader;
 
 import org.apache.commons.io.input.Tailer;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
@@ -12,7 +13,8 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 @Component
-public class TailerWrapper implements DisposableBean {
+@ConditionalOnProperty(value = "service.reader.engine", havingValue = "tailer", matchIfMissing = true)
+public class TailerWrapper implements LogTailerWrapper, DisposableBean {
 
 	private final Tailer tailer;
 
@@ -26,9 +28,10 @@ public class TailerWrapper implements DisposableBean {
 	/**
 	 * Start the Tailer in another Thread with async Spring annotation.
 	 */
-	@Async
+	@Async("readerExecutor")
+	@Override
 	public void run() {
-		LOG.info("Starting TailerWrapper with delay={} for file{}", tailer.getDelay(), tailer.getFile().getAbsolutePath());
+		LOG.info("Starting TailerWrapper with delay={} for file={}", tailer.getDelay(), tailer.getFile().getAbsolutePath());
 		tailer.run();
 	}
 
@@ -37,7 +40,7 @@ public class TailerWrapper implements DisposableBean {
 	 */
 	@Override
 	public void destroy() {
-		LOG.info("Destroying Bean TailerWrapper, proceed to stop TailerWrapper with delay={} for file{}", tailer.getDelay(), tailer.getFile().getAbsolutePath());
+		LOG.info("Destroying Bean TailerWrapper, proceed to stop TailerWrapper with delay={} for file={}", tailer.getDelay(), tailer.getFile().getAbsolutePath());
 		tailer.stop();
 	}
 }
@@ -19,6 +19,7 @@ import com.adrian.rebollo.api.InternalDispatcher;
 import com.adrian.rebollo.model.AlertType;
 import com.adrian.rebollo.model.AccessLogAlert;
 import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.HyperLogLog;
 import com.google.common.collect.EvictingQueue;
 
 import lombok.RequiredArgsConstructor;
@@ -71,6 +72,30 @@ public class AccessLogAlertServiceImpl implements AccessLogAlertService {
 
 		LOG.info("Proceeding to check Alerts from {} stats data.", stats.size());
 
+		final AccessLogAlert.AccessLogAlertBuilder alert = alertOf(stats, alertTimeWindow);
+
+		final double requestsSecond = alert.build().getRequestsSecond();
+
+		createAlert(alert, nextAlert(alertStateMachine.getState().getId(), requestsSecond, threshold), start, end);
+	}
+
+	/**
+	 * @return HIGH_TRAFFIC while the requests per second reach the threshold, RECOVER right after a HIGH_TRAFFIC, and NO_ALERT otherwise.
+	 */
+	static AlertType nextAlert(AlertType current, double requestsSecond, int threshold) {
+		if(requestsSecond >= threshold) {
+			return AlertType.HIGH_TRAFFIC;
+		} else if(current == AlertType.HIGH_TRAFFIC) {
+			return AlertType.RECOVER;
+		}
+		return AlertType.NO_ALERT;
+	}
+
+	/**
+	 * @return an alert builder with the requests, requests per second and distinct values of the given stats of the time window.
+	 */
+	static AccessLogAlert.AccessLogAlertBuilder alertOf(List<AccessLogStats> stats, int alertTimeWindow) {
+
 		final long totalRequests = stats.stream()
 				.map(AccessLogStats::getRequests)
 				.map(AtomicLong::get)
@@ -82,23 +107,30 @@ public class AccessLogAlertServiceImpl implements AccessLogAlertService {
 
 		LOG.info("Computed Alert totalRequests={}, requestsSecond={}.", totalRequests, requestsSecond);
 
-		if(requestsSecond >= threshold) {
-			createAlert(totalRequests, requestsSecond, AlertType.HIGH_TRAFFIC, start, end);
-		} else if(alertStateMachine.getState().getId() == AlertType.HIGH_TRAFFIC && requestsSecond < threshold) {
-			createAlert(totalRequests, requestsSecond, AlertType.RECOVER, start, end);
-		} else if(alertStateMachine.getState().getId() == AlertType.RECOVER || alertStateMachine.getState().getId() == AlertType.NO_ALERT) {
-			createAlert(totalRequests, requestsSecond, AlertType.NO_ALERT, start, end);
-		}
+		//the distinct values of the time window are estimated by merging the sketches of all its stats.
+		final HyperLogLog hosts = new HyperLogLog();
+		final HyperLogLog users = new HyperLogLog();
+		final HyperLogLog resources = new HyperLogLog();
+		stats.forEach(accessLogStats -> {
+			hosts.merge(accessLogStats.getHostsSketch());
+			users.merge(accessLogStats.getUsersSketch());
+			resources.merge(accessLogStats.getResourcesSketch());
+		});
+
+		return AccessLogAlert.builder()
+				.requests(totalRequests)
+				.requestsSecond(requestsSecond)
+				.distinctHosts(hosts.estimate())
+				.distinctUsers(users.estimate())
+				.distinctResources(resources.estimate());
 	}
 
-	private void createAlert(long totalRequests, double requestsSecond, final AlertType alertType, final LocalDateTime start, final LocalDateTime end) {
+	private void createAlert(final AccessLogAlert.AccessLogAlertBuilder alert, final AlertType alertType, final LocalDateTime start, final LocalDateTime end) {
 
-		final AccessLogAlert accessLogAlert = AccessLogAlert.builder()
+		final AccessLogAlert accessLogAlert = alert
 				.alertTime(LocalDateTime.now())
 				.start(start)
 				.end(end)
-				.requests(totalRequests)
-				.requestsSecond(requestsSecond)
 				.type(alertType)
 				.build();
 
@@ -0,0 +1,383 @@
+package com.adrian.rebollo.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.adrian.rebollo.api.AccessLogBackfillService;
+import com.adrian.rebollo.api.ExternalDispatcherObserver;
+import com.adrian.rebollo.exception.LogLineParsingException;
+import com.adrian.rebollo.exception.LogLineStatsParsingException;
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.AlertType;
+import com.adrian.rebollo.parser.LogLineParser;
+import com.google.common.collect.EvictingQueue;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Batch mode for existing (archived) log files, enabled with `service.backfill.file-name`.
+ * The file is split into byte ranges of `service.backfill.chunk-size` ending at a line feed, and the chunks are parsed and computed in parallel
+ * on a fork-join pool of `service.backfill.parallelism` threads (0 means the available processors), without going through the internal queues.
+ * Lines are assigned to windows by the date time logged in the line (event time), as long as the stats scheduler delay.
+ * The stats of every window (empty ones included) and the alert evaluated over the previous `service.alert.time-window`
+ * are notified in order to the ExternalDispatchers, so they get the same sequence as a live tail would produce.
+ * <p>
+ * Memory: the chunks are merged in the file order as they complete, with at most 2 * parallelism chunks submitted at once.
+ * The watermark is the window of the median line of every merged chunk minus `service.backfill.allowed-lateness`,
+ * and every window ending before it is notified and dropped, so only the windows within the lateness (and a few outliers) are kept,
+ * whatever the time span of the file. Lines of an already notified window are late: counted in the `lateRequests` of the next stats.
+ * Empty windows are only notified along a gap up to the alert time window (so the alert recovers), longer gaps are skipped,
+ * so a line with an outlier date time does not produce a window for every period up to it.
+ * <p>
+ * It runs on its own `log-backfill` thread once the application is ready. The live tail and its stats scheduler keep running meanwhile,
+ * so the ExternalDispatchers receive both sequences interleaved, told apart by the start and end of the stats.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "service.backfill.file-name")
+public class AccessLogBackfillServiceImpl implements AccessLogBackfillService, DisposableBean {
+
+	private static final byte LF = '\n';
+	private static final byte CR = '\r';
+
+	private final LogLineParser logLineParser;
+	private final AccessLogStatsComponent accessLogStatsComponent;
+	private final ExternalDispatcherObserver externalDispatcherObserver;
+
+	@Value("${service.backfill.file-name}")
+	private String fileName;
+	@Value("${service.backfill.chunk-size:67108864}")
+	private int chunkSize;
+	@Value("${service.backfill.parallelism:0}")
+	private int parallelism;
+	@Value("${service.schedulers.stats.delay}")
+	private long windowSize;
+	@Value("${service.alert.time-window}")
+	private int alertTimeWindow;
+	@Value("${service.alert.threshold}")
+	private int threshold;
+	@Value("${service.backfill.allowed-lateness:60000}")
+	private long allowedLateness;
+
+	private volatile Thread thread;
+
+	/**
+	 * start the backfill on its own thread, so the application startup is not blocked until the whole file has been computed.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		final Thread backfill = new Thread(() -> {
+			try {
+				backfill(Paths.get(fileName));
+			} catch (IOException exception) {
+				LOG.error("Backfill of file={} failed.", fileName, exception);
+			}
+		}, "log-backfill");
+		thread = backfill;
+		backfill.start();
+	}
+
+	/**
+	 * interrupt a running backfill, the windows not notified yet are discarded.
+	 */
+	@Override
+	public void destroy() {
+		final Thread backfill = thread;
+		if (backfill != null) {
+			backfill.interrupt();
+		}
+	}
+
+	@Override
+	public long backfill(Path file) throws IOException {
+
+		final long startTime = System.nanoTime();
+		final int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+		final List<Chunk> chunks;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			chunks = split(channel);
+		}
+
+		LOG.info("Backfilling file={} in {} chunks with parallelism={}.", file, chunks.size(), threads);
+
+		final NavigableMap<Long, AccessLogStatsAccumulator> windows = new TreeMap<>();
+		final Dispatch dispatch = new Dispatch();
+		long watermark = Long.MIN_VALUE;
+		long lines = 0;
+		long invalidLines = 0;
+
+		final ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			final Iterator<Chunk> toSubmit = chunks.iterator();
+			final Queue<Future<Chunk>> submitted = new ArrayDeque<>();
+			while (submitted.size() < threads * 2 && toSubmit.hasNext()) {
+				submitted.add(submit(pool, file, toSubmit.next()));
+			}
+
+			while (!submitted.isEmpty()) {
+				//merged in the file order, as the windows of consecutive chunks overlap.
+				final Chunk chunk = submitted.poll().get();
+				if (toSubmit.hasNext()) {
+					submitted.add(submit(pool, file, toSubmit.next()));
+				}
+
+				chunk.windows.forEach((start, accumulator) -> {
+					if (start < dispatch.closedUntil) {
+						dispatch.lateRequests += accumulator.getRequests();
+						return;
+					}
+					windows.merge(start, accumulator, (merged, other) -> {
+						merged.merge(other);
+						return merged;
+					});
+				});
+				lines += chunk.lines;
+				invalidLines += chunk.invalidLines;
+
+				final Long medianWindow = chunk.medianWindow();
+				if (medianWindow != null) {
+					watermark = Math.max(watermark, medianWindow - allowedLateness);
+				}
+				while (!windows.isEmpty() && windows.firstKey() + windowSize <= watermark) {
+					final Map.Entry<Long, AccessLogStatsAccumulator> window = windows.pollFirstEntry();
+					dispatch.window(window.getKey(), window.getValue());
+				}
+			}
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new IOException(String.format("Backfill of file=%s has been interrupted", file), exception);
+		} catch (ExecutionException exception) {
+			if (exception.getCause() instanceof IOException) {
+				throw (IOException) exception.getCause();
+			}
+			throw new IllegalStateException(exception.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+
+		windows.forEach(dispatch::window);
+
+		final long elapsed = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+		LOG.info("Backfilled {} lines ({} invalid, {} late) of file={} into {} windows ({} empty windows skipped) in {} ms, {} lines/s.",
+				lines, invalidLines, dispatch.totalLateRequests, file, dispatch.windows, dispatch.skippedWindows, elapsed, lines * 1000 / elapsed);
+
+		return lines;
+	}
+
+	private Future<Chunk> submit(ForkJoinPool pool, Path file, Chunk chunk) {
+		return pool.submit(() -> compute(file, chunk));
+	}
+
+	/**
+	 * split the file into consecutive byte ranges of about `chunkSize` bytes, every one but the last ending right after a line feed.
+	 */
+	List<Chunk> split(FileChannel channel) throws IOException {
+
+		final long size = channel.size();
+		final List<Chunk> chunks = new ArrayList<>();
+		final ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+		long start = 0;
+		while (start < size) {
+			long end = Math.min(start + chunkSize, size);
+			//move the end after the next line feed, so no line is split between two chunks.
+			while (end < size && !isLineStart(channel, end)) {
+				buffer.clear();
+				final int read = channel.read(buffer, end);
+				int index = 0;
+				while (index < read && buffer.get(index) != LF) {
+					index++;
+				}
+				end = index < read ? end + index + 1 : end + read;
+			}
+			chunks.add(new Chunk(start, end));
+			start = end;
+		}
+		return chunks;
+	}
+
+	private static boolean isLineStart(FileChannel channel, long position) throws IOException {
+		final ByteBuffer previous = ByteBuffer.allocate(1);
+		channel.read(previous, position - 1);
+		return previous.get(0) == LF;
+	}
+
+	/**
+	 * parse and compute every line of the chunk into the windows of its event time.
+	 */
+	private Chunk compute(Path file, Chunk chunk) throws IOException {
+
+		final byte[] bytes = new byte[(int) (chunk.end - chunk.start)];
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining() && channel.read(buffer, chunk.start + buffer.position()) >= 0) {
+				//keep reading until the chunk is complete.
+			}
+		}
+
+		int lineStart = 0;
+		for (int position = 0; position <= bytes.length; position++) {
+			if (position < bytes.length && bytes[position] != LF) {
+				continue;
+			}
+			int lineEnd = position;
+			if (lineEnd > lineStart && bytes[lineEnd - 1] == CR) {
+				lineEnd--;
+			}
+			if (lineEnd > lineStart) {
+				compute(chunk, bytes, lineStart, lineEnd - lineStart);
+			}
+			lineStart = position + 1;
+		}
+		return chunk;
+	}
+
+	private void compute(Chunk chunk, byte[] bytes, int offset, int length) {
+		chunk.lines++;
+		try {
+			final AccessLogLine accessLogLine = logLineParser.apply(bytes, offset, length);
+			final long eventTime = epoch(accessLogLine.getDateTime() != null ? accessLogLine.getDateTime() : accessLogLine.getInsertTime());
+			final long windowStart = Math.floorDiv(eventTime, windowSize) * windowSize;
+			accessLogStatsComponent.compute(chunk.windows.computeIfAbsent(windowStart, start -> accessLogStatsComponent.newAccumulator()), accessLogLine);
+		} catch (LogLineParsingException | LogLineStatsParsingException exception) {
+			chunk.invalidLines++;
+			LOG.debug("Skipping invalid log line from backfill.", exception);
+		}
+	}
+
+	/**
+	 * notifies the windows in order, with the empty windows between them, and the alert of the time window ending with every one.
+	 */
+	private class Dispatch {
+
+		//computed in millis, as the windows may be shorter than a second.
+		private final int alertWindows = (int) Math.max(1, alertTimeWindow * 1000L / windowSize);
+		private final Queue<AccessLogStats> statsQueue = EvictingQueue.create(alertWindows);
+		private AlertType alertType = AlertType.NO_ALERT;
+
+		/**
+		 * end of the last notified window, any line before is late.
+		 */
+		private long closedUntil = Long.MIN_VALUE;
+		private long lateRequests;
+		private long totalLateRequests;
+		private long windows;
+		private long skippedWindows;
+
+		void window(long windowStart, AccessLogStatsAccumulator accumulator) {
+
+			if (closedUntil != Long.MIN_VALUE) {
+				//the alert has been evaluated over empty windows only after `alertWindows` of them, any further one is the same.
+				final long gap = (windowStart - closedUntil) / windowSize;
+				final long emptyWindows = Math.min(gap, alertWindows);
+				for (long window = 0; window < emptyWindows; window++) {
+					notify(closedUntil, null);
+				}
+				if (gap > emptyWindows) {
+					LOG.info("Skipping {} empty windows of the backfill from {} to {}.", gap - emptyWindows, dateTime(closedUntil), dateTime(windowStart));
+					skippedWindows += gap - emptyWindows;
+				}
+			}
+			notify(windowStart, accumulator);
+		}
+
+		private void notify(long windowStart, AccessLogStatsAccumulator accumulator) {
+
+			final LocalDateTime start = dateTime(windowStart);
+			final LocalDateTime end = dateTime(windowStart + windowSize);
+
+			final AccessLogStats accessLogStats = accumulator == null ? AccessLogStats.with(start, end)
+					: accessLogStatsComponent.aggregate(accumulator).setStart(start).setEnd(end);
+			accessLogStats.setLateRequests(lateRequests);
+			totalLateRequests += lateRequests;
+			lateRequests = 0;
+
+			externalDispatcherObserver.notify(accessLogStats);
+
+			statsQueue.offer(accessLogStats);
+			final AccessLogAlert.AccessLogAlertBuilder alert = AccessLogAlertServiceImpl.alertOf(new ArrayList<>(statsQueue), alertTimeWindow);
+			alertType = AccessLogAlertServiceImpl.nextAlert(alertType, alert.build().getRequestsSecond(), threshold);
+
+			externalDispatcherObserver.notify(alert
+					.alertTime(end)
+					.start(end.minusSeconds(alertTimeWindow))
+					.end(end)
+					.type(alertType)
+					.build());
+
+			closedUntil = windowStart + windowSize;
+			windows++;
+		}
+	}
+
+	private static long epoch(LocalDateTime dateTime) {
+		return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private static LocalDateTime dateTime(long epoch) {
+		return Instant.ofEpochMilli(epoch).atZone(ZoneId.systemDefault()).toLocalDateTime();
+	}
+
+	/**
+	 * byte range of the file, and the windows computed from its lines.
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	static class Chunk {
+
+		private final long start;
+		private final long end;
+		private final Map<Long, AccessLogStatsAccumulator> windows = new TreeMap<>();
+		private long lines;
+		private long invalidLines;
+
+		/**
+		 * @return the window of the median computed line, which an outlier date time can not move, null without computed lines.
+		 */
+		Long medianWindow() {
+			long requests = 0;
+			for (AccessLogStatsAccumulator accumulator : windows.values()) {
+				requests += accumulator.getRequests();
+			}
+			long counted = 0;
+			for (Map.Entry<Long, AccessLogStatsAccumulator> window : windows.entrySet()) {
+				counted += window.getValue().getRequests();
+				if (counted * 2 >= requests && counted > 0) {
+					return window.getKey();
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package com.adrian.rebollo.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.adrian.rebollo.api.AccessLogRollupService;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.Percentiles;
+import com.adrian.rebollo.model.RollupResolution;
+import com.adrian.rebollo.sketch.ExactFrequencyCounter;
+import com.adrian.rebollo.sketch.TopKSelector;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Merges every stats window into fixed size ring buffers of minute, hour and day rollups,
+ * so the stats of a long period are available in bounded memory.
+ * Counters, distinct sketches and content size histograms are merged exactly.
+ * The top stats of a rollup are the top of the merged window tops: a key only counts the windows in which it was in the top.
+ * The content size percentiles by section are not rolled up.
+ * A window older than the oldest rollup a ring can keep (ie: a late window once the ring has moved on) is dropped and counted by that ring,
+ * it never replaces a newer rollup.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty("service.rollup.enabled")
+public class AccessLogRollupServiceImpl implements AccessLogRollupService {
+
+	private static final int TOP = 10;
+
+	@Value("${service.rollup.minutes:60}")
+	private int minutes;
+	@Value("${service.rollup.hours:24}")
+	private int hours;
+	@Value("${service.rollup.days:30}")
+	private int days;
+
+	private final Map<RollupResolution, Ring> rings = new EnumMap<>(RollupResolution.class);
+
+	@PostConstruct
+	public void init() {
+		rings.put(RollupResolution.MINUTE, new Ring(RollupResolution.MINUTE, minutes));
+		rings.put(RollupResolution.HOUR, new Ring(RollupResolution.HOUR, hours));
+		rings.put(RollupResolution.DAY, new Ring(RollupResolution.DAY, days));
+		LOG.info("Initializing AccessLogRollupService with minutes={}, hours={}, days={}", minutes, hours, days);
+	}
+
+	@Override
+	public synchronized void handle(AccessLogStats accessLogStats) {
+		Objects.requireNonNull(accessLogStats.getStart(), "accessLogStats has ben called to rollup without start.");
+		rings.values().forEach(ring -> ring.add(accessLogStats));
+	}
+
+	@Override
+	public synchronized List<AccessLogStats> getRollups(RollupResolution resolution) {
+		return rings.get(resolution).rollups();
+	}
+
+	/**
+	 * @return number of windows dropped by the ring of the resolution because they were older than the rollups it keeps.
+	 */
+	synchronized long getDroppedWindows(RollupResolution resolution) {
+		return rings.get(resolution).droppedWindows;
+	}
+
+	/**
+	 * ring buffer of rollups: the rollup starting at `slotStart` is kept at `slotStart / resolution % size`,
+	 * so the rollup of a new period replaces the oldest one.
+	 * A window of a period the ring has already moved past (`period + size <= latest`) is dropped.
+	 */
+	private static class Ring {
+
+		private final RollupResolution resolution;
+		private final AccessLogStats[] rollups;
+		private final LocalDateTime[] starts;
+		private long latest = Long.MIN_VALUE;
+		private long droppedWindows;
+
+		Ring(RollupResolution resolution, int size) {
+			if (size <= 0) {
+				throw new IllegalArgumentException(String.format("Rollup size=%s of resolution=%s must be positive", size, resolution));
+			}
+			this.resolution = resolution;
+			this.rollups = new AccessLogStats[size];
+			this.starts = new LocalDateTime[size];
+		}
+
+		void add(AccessLogStats accessLogStats) {
+
+			final LocalDateTime start = accessLogStats.getStart().truncatedTo(resolution.getUnit());
+			final long period = start.atZone(ZoneId.systemDefault()).toEpochSecond() / resolution.getUnit().getDuration().getSeconds();
+			final int slot = (int) Math.floorMod(period, (long) rollups.length);
+
+			if (period + rollups.length <= latest || (starts[slot] != null && start.isBefore(starts[slot]))) {
+				droppedWindows++;
+				LOG.warn("Dropped {} window start={} older than the kept rollups, dropped={}.", resolution, accessLogStats.getStart(), droppedWindows);
+				return;
+			}
+			latest = Math.max(latest, period);
+
+			if (!start.equals(starts[slot])) {
+				if (rollups[slot] != null) {
+					LOG.info("Closed {} rollup={}.", resolution, rollups[slot]);
+				}
+				starts[slot] = start;
+				rollups[slot] = AccessLogStats.with(accessLogStats.getStart(), accessLogStats.getEnd());
+			}
+			merge(rollups[slot], accessLogStats);
+		}
+
+		List<AccessLogStats> rollups() {
+			final List<AccessLogStats> kept = new ArrayList<>();
+			for (AccessLogStats rollup : rollups) {
+				if (rollup != null) {
+					kept.add(rollup);
+				}
+			}
+			kept.sort(Comparator.comparing(AccessLogStats::getStart));
+			return kept;
+		}
+	}
+
+	private static void merge(AccessLogStats rollup, AccessLogStats accessLogStats) {
+
+		if (accessLogStats.getStart().isBefore(rollup.getStart())) {
+			rollup.setStart(accessLogStats.getStart());
+		}
+		if (accessLogStats.getEnd() != null && (rollup.getEnd() == null || accessLogStats.getEnd().isAfter(rollup.getEnd()))) {
+			rollup.setEnd(accessLogStats.getEnd());
+		}
+
+		rollup.getRequests().addAndGet(accessLogStats.getRequests().get());
+		rollup.getValidRequests().addAndGet(accessLogStats.getValidRequests().get());
+		rollup.getInvalidRequests().addAndGet(accessLogStats.getInvalidRequests().get());
+		rollup.getTotalContent().addAndGet(accessLogStats.getTotalContent().get());
+
+		mergeTop(rollup.getTopVisitsByMethod(), accessLogStats.getTopVisitsByMethod());
+		mergeTop(rollup.getTopValidVisitedRequestsSections(), accessLogStats.getTopValidVisitedRequestsSections());
+		mergeTop(rollup.getTopInvalidVisitedRequestsSections(), accessLogStats.getTopInvalidVisitedRequestsSections());
+		mergeTop(rollup.getTopVisitsByHost(), accessLogStats.getTopVisitsByHost());
+		mergeTop(rollup.getTopVisitsByUser(), accessLogStats.getTopVisitsByUser());
+		mergeTop(rollup.getTopVisitsSection(), accessLogStats.getTopVisitsSection());
+
+		rollup.setTopVisitsByHostMaxError(rollup.getTopVisitsByHostMaxError() + accessLogStats.getTopVisitsByHostMaxError());
+		rollup.setTopVisitsByUserMaxError(rollup.getTopVisitsByUserMaxError() + accessLogStats.getTopVisitsByUserMaxError());
+		rollup.setTopVisitsSectionMaxError(rollup.getTopVisitsSectionMaxError() + accessLogStats.getTopVisitsSectionMaxError());
+
+		rollup.setContentSize(Percentiles.of(rollup.getContentSizeHistogram().merge(accessLogStats.getContentSizeHistogram())));
+
+		rollup.setDistinctHosts(rollup.getHostsSketch().merge(accessLogStats.getHostsSketch()).estimate());
+		rollup.setDistinctUsers(rollup.getUsersSketch().merge(accessLogStats.getUsersSketch()).estimate());
+		rollup.setDistinctResources(rollup.getResourcesSketch().merge(accessLogStats.getResourcesSketch()).estimate());
+	}
+
+	private static void mergeTop(Map<String, AtomicLong> rollupTop, Map<String, AtomicLong> top) {
+		final ExactFrequencyCounter counter = new ExactFrequencyCounter();
+		rollupTop.forEach((key, count) -> counter.add(key, count.get()));
+		top.forEach((key, count) -> counter.add(key, count.get()));
+		rollupTop.clear();
+		rollupTop.putAll(TopKSelector.top(counter, TOP));
+	}
+}
@@ -0,0 +1,157 @@
+package com.adrian.rebollo.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.adrian.rebollo.model.HyperLogLog;
+import com.adrian.rebollo.model.LogHistogram;
+import com.adrian.rebollo.sketch.ExactFrequencyCounter;
+import com.adrian.rebollo.sketch.FrequencyCounter;
+
+import lombok.Getter;
+
+/**
+ * Running counters and per-key visit counts of the log lines computed during a stats window.
+ * Its memory is proportional to the distinct keys, not to the amount of lines, and may be bounded with estimated frequency counters.
+ * It is NOT thread-safe, the callers must guard it or keep one per thread.
+ */
+@Getter
+public class AccessLogStatsAccumulator {
+
+	private long requests;
+	private long validRequests;
+	private long invalidRequests;
+	private long totalContent;
+
+	static final int DEFAULT_MAX_SECTION_HISTOGRAMS = 1000;
+
+	/**
+	 * min and max insert times (epoch millis) of the computed lines.
+	 */
+	private long minInsertTime = Long.MAX_VALUE;
+	private long maxInsertTime = Long.MIN_VALUE;
+
+	/**
+	 * there are only a few http methods, so they are always counted exactly.
+	 */
+	private final FrequencyCounter visitsByMethod = new ExactFrequencyCounter();
+	private final FrequencyCounter validVisitedSections;
+	private final FrequencyCounter invalidVisitedSections;
+	private final FrequencyCounter visitsByHost;
+	private final FrequencyCounter visitsByUser;
+	private final FrequencyCounter visitsBySection;
+
+	private final HyperLogLog distinctHosts = new HyperLogLog();
+	private final HyperLogLog distinctUsers = new HyperLogLog();
+	private final HyperLogLog distinctResources = new HyperLogLog();
+
+	private final LogHistogram contentSizeHistogram = new LogHistogram();
+
+	/**
+	 * content size histograms of the first `maxSectionHistograms` sections, the next ones are not tracked.
+	 */
+	private final Map<String, LogHistogram> contentSizeHistogramBySection = new HashMap<>();
+	private final int maxSectionHistograms;
+
+	public AccessLogStatsAccumulator() {
+		this(ExactFrequencyCounter::new, DEFAULT_MAX_SECTION_HISTOGRAMS);
+	}
+
+	/**
+	 * @param counters creates the counters of the hosts, users and sections.
+	 * @param maxSectionHistograms max sections with a content size histogram.
+	 */
+	public AccessLogStatsAccumulator(Supplier<FrequencyCounter> counters, int maxSectionHistograms) {
+		this.maxSectionHistograms = maxSectionHistograms;
+		this.validVisitedSections = counters.get();
+		this.invalidVisitedSections = counters.get();
+		this.visitsByHost = counters.get();
+		this.visitsByUser = counters.get();
+		this.visitsBySection = counters.get();
+	}
+
+	public boolean isEmpty() {
+		return requests == 0;
+	}
+
+	void request(LocalDateTime insertTime, long contentSize, String method, String host, String user, String resource, String section) {
+		requests++;
+		totalContent += contentSize;
+
+		final long insertEpoch = insertTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		minInsertTime = Math.min(minInsertTime, insertEpoch);
+		maxInsertTime = Math.max(maxInsertTime, insertEpoch);
+
+		visitsByMethod.increment(method);
+		visitsByHost.increment(host);
+		visitsByUser.increment(user);
+		visitsBySection.increment(section);
+
+		distinctHosts.add(host);
+		distinctUsers.add(user);
+		distinctResources.add(resource);
+
+		contentSizeHistogram.record(contentSize);
+		final LogHistogram sectionHistogram = sectionHistogram(section);
+		if (sectionHistogram != null) {
+			sectionHistogram.record(contentSize);
+		}
+	}
+
+	void validRequest(String section) {
+		validRequests++;
+		validVisitedSections.increment(section);
+	}
+
+	void invalidRequest(String section) {
+		invalidRequests++;
+		invalidVisitedSections.increment(section);
+	}
+
+	/**
+	 * adds all the counters of the given accumulator into this one.
+	 */
+	void merge(AccessLogStatsAccumulator other) {
+		requests += other.requests;
+		validRequests += other.validRequests;
+		invalidRequests += other.invalidRequests;
+		totalContent += other.totalContent;
+		minInsertTime = Math.min(minInsertTime, other.minInsertTime);
+		maxInsertTime = Math.max(maxInsertTime, other.maxInsertTime);
+
+		visitsByMethod.merge(other.visitsByMethod);
+		validVisitedSections.merge(other.validVisitedSections);
+		invalidVisitedSections.merge(other.invalidVisitedSections);
+		visitsByHost.merge(other.visitsByHost);
+		visitsByUser.merge(other.visitsByUser);
+		visitsBySection.merge(other.visitsBySection);
+
+		distinctHosts.merge(other.distinctHosts);
+		distinctUsers.merge(other.distinctUsers);
+		distinctResources.merge(other.distinctResources);
+
+		contentSizeHistogram.merge(other.contentSizeHistogram);
+		other.contentSizeHistogramBySection.forEach((section, histogram) -> {
+			final LogHistogram merged = sectionHistogram(section);
+			if (merged != null) {
+				merged.merge(histogram);
+			}
+		});
+	}
+
+	/**
+	 * @return the content size histogram of the section, null when it is not tracked.
+	 */
+	private LogHistogram sectionHistogram(String section) {
+		final LogHistogram histogram = contentSizeHistogramBySection.get(section);
+		if (histogram != null || contentSizeHistogramBySection.size() >= maxSectionHistograms) {
+			return histogram;
+		}
+		final LogHistogram created = new LogHistogram();
+		contentSizeHistogramBySection.put(section, created);
+		return created;
+	}
+}
@@ -3,22 +3,25 @@ package com.adrian.rebollo.service;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.LongSummaryStatistics;
-import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.Range;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.adrian.rebollo.exception.LogLineStatsParsingException;
 import com.adrian.rebollo.model.AccessLogLine;
 import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.LogHistogram;
+import com.adrian.rebollo.model.Percentiles;
+import com.adrian.rebollo.sketch.ExactFrequencyCounter;
+import com.adrian.rebollo.sketch.FrequencyCounter;
+import com.adrian.rebollo.sketch.SpaceSavingCounter;
+import com.adrian.rebollo.sketch.TopKSelector;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +31,13 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class AccessLogStatsComponent {
 
+	/**
+	 * amount of keys of every top stat.
+	 */
+	private static final int TOP = 10;
+
+	private final StringDictionary stringDictionary;
+
 	/**
 	 * ranges of successful HTTP Codes.
 	 */
@@ -39,6 +49,22 @@ public class AccessLogStatsComponent {
 	 */
 	private final Range<Integer> failedRange = Range.between(300, 599);
 
+	/**
+	 * exact: every distinct host, user and section is counted.
+	 * space-saving: only `top-k.capacity` keys of each top stat are counted, with a bounded overestimation.
+	 */
+	@Value("${service.schedulers.stats.top-k.engine:exact}")
+	private String topKEngine;
+
+	@Value("${service.schedulers.stats.top-k.capacity:1000}")
+	private int topKCapacity;
+
+	/**
+	 * max sections with a content size histogram in every window.
+	 */
+	@Value("${service.schedulers.stats.histogram.max-sections:1000}")
+	private int histogramMaxSections = AccessLogStatsAccumulator.DEFAULT_MAX_SECTION_HISTOGRAMS;
+
 	/**
 	 * this method aggregates all the given LogLines into an AccessLogStats object.
 	 * Computes all loglines independently, and afterwards aggregates all them together to obtain the top stats.
@@ -47,111 +73,96 @@ public class AccessLogStatsComponent {
 	 */
 	AccessLogStats aggregateLogs(final List<AccessLogLine> logs) {
 
-		final AccessLogStats accessLogStats = new AccessLogStats();
-
-		//get min and max date in the same loop iteration (not double loop to get both)
-		final LongSummaryStatistics instantLogStatistics = getInstantLogStatistics(logs);
-		accessLogStats.setStart(fromEpoch(instantLogStatistics.getMin()));
-		accessLogStats.setEnd(fromEpoch(instantLogStatistics.getMax()));
-
 		LOG.info("Started aggregating {} log lines data.", logs.size());
 
+		final AccessLogStatsAccumulator accumulator = newAccumulator();
+
 		//compute every single Log Line independently.
-		logs.forEach((logLine -> compute(accessLogStats, logLine)));
+		logs.forEach((logLine -> compute(accumulator, logLine)));
 
 		//once every single log line has been computed, aggregate all of them -> this allows to get the MAX (top) statistics.
-		aggregate(accessLogStats);
-		return accessLogStats;
-	}
-
-	private LocalDateTime fromEpoch(long epoch) {
-		return Instant.ofEpochMilli(epoch).atZone(ZoneId.systemDefault()).toLocalDateTime();
+		return aggregate(accumulator);
 	}
 
-	private LongSummaryStatistics getInstantLogStatistics(List<AccessLogLine> logs) {
-		return logs.stream()
-				.map(AccessLogLine::getInsertTime)
-				.map((date) -> date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
-				.mapToLong(Long::new)
-				.summaryStatistics();
+	/**
+	 * @return an empty accumulator with the configured top-k engine.
+	 */
+	AccessLogStatsAccumulator newAccumulator() {
+		final Supplier<FrequencyCounter> counters = "space-saving".equals(topKEngine) ? () -> new SpaceSavingCounter(topKCapacity) : ExactFrequencyCounter::new;
+		return new AccessLogStatsAccumulator(counters, histogramMaxSections);
 	}
 
-	private void compute(AccessLogStats accessLogStats, AccessLogLine logLine) {
+	/**
+	 * compute a single log line into the given accumulator.
+	 * the section is extracted first, so a line with a not well formatted resource does not update any counter.
+	 */
+	void compute(AccessLogStatsAccumulator accumulator, AccessLogLine logLine) {
 
 		Objects.requireNonNull(logLine, "logLine has ben called to compute with null value.");
-		Objects.requireNonNull(accessLogStats, "httpAccessLogStats has ben called to compute with null value.");
-
-		accessLogStats.getRequests().getAndIncrement();
-		accessLogStats.getTotalContent().getAndAccumulate(logLine.getContentSize(), Long::sum);
+		Objects.requireNonNull(accumulator, "accumulator has ben called to compute with null value.");
 
-		incrementOrPut(accessLogStats.getTopVisitsByHost(), logLine.getHost());
-		incrementOrPut(accessLogStats.getTopVisitsByMethod(), logLine.getHttpMethod().name());
-		incrementOrPut(accessLogStats.getTopVisitsByUser(), logLine.getUser());
+		//canonical section, so the 3 section maps find it by identity.
+		final String section = stringDictionary.canonical(getSection(logLine.getResource()));
 
-		final String section = getSection(logLine.getResource());
-
-		incrementOrPut(accessLogStats.getTopVisitsSection(), section);
+		accumulator.request(logLine.getInsertTime(), logLine.getContentSize(), logLine.getHttpMethod().name(), logLine.getHost(), logLine.getUser(),
+				logLine.getResource(), section);
 
 		if(successRange.contains(logLine.getReturnedStatus())) {
-			accessLogStats.getValidRequests().getAndIncrement();
-			incrementOrPut(accessLogStats.getTopValidVisitedRequestsSections(), section);
+			accumulator.validRequest(section);
 		} else if(failedRange.contains(logLine.getReturnedStatus())) {
-			accessLogStats.getInvalidRequests().getAndIncrement();
-			incrementOrPut(accessLogStats.getTopInvalidVisitedRequestsSections(), section);
+			accumulator.invalidRequest(section);
 		}
 	}
 
-	private void aggregate(final AccessLogStats accessLogStats) {
-
-		Objects.requireNonNull(accessLogStats, "httpAccessLogStats has ben called to aggregate with null value.");
-
-		//This initializes all the Top statistics with the previously computed stats.
-		//afterwards, it calls `topifyMap` which orders from max to min, and limit the results to 10, for each top stat.
-
-		final Map<String, AtomicLong> hosts = new HashMap<>(accessLogStats.getTopVisitsByHost());
-		accessLogStats.getTopVisitsByHost().clear();
-		accessLogStats.getTopVisitsByHost().putAll(topifyMap(hosts));
-
-		final Map<String, AtomicLong> method = new HashMap<>(accessLogStats.getTopVisitsByMethod());
-		accessLogStats.getTopVisitsByMethod().clear();
-		accessLogStats.getTopVisitsByMethod().putAll(topifyMap(method));
-
-		final Map<String, AtomicLong> users = new HashMap<>(accessLogStats.getTopVisitsByUser());
-		accessLogStats.getTopVisitsByUser().clear();
-		accessLogStats.getTopVisitsByUser().putAll(topifyMap(users));
-
-		final Map<String, AtomicLong> allSections = new HashMap<>(accessLogStats.getTopVisitsSection());
-		accessLogStats.getTopVisitsSection().clear();
-		accessLogStats.getTopVisitsSection().putAll(topifyMap(allSections));
-
-		final Map<String, AtomicLong> validSections = new HashMap<>(accessLogStats.getTopValidVisitedRequestsSections());
-		accessLogStats.getTopValidVisitedRequestsSections().clear();
-		accessLogStats.getTopValidVisitedRequestsSections().putAll(topifyMap(validSections));
-
-		final Map<String, AtomicLong> invalidSections = new HashMap<>(accessLogStats.getTopInvalidVisitedRequestsSections());
-		accessLogStats.getTopInvalidVisitedRequestsSections().clear();
-		accessLogStats.getTopInvalidVisitedRequestsSections().putAll(topifyMap(invalidSections));
-	}
-
 	/**
-	 * make a map top by limiting to 10 items, ordered and keeping that order with LinkedHashMap.
+	 * build the AccessLogStats of all the computed log lines, with the Top statistics.
+	 * start and end are the min and max insert times of the computed log lines.
 	 */
-	private Map<String, AtomicLong> topifyMap(Map<String, AtomicLong> map) {
-		return map.entrySet()
-		.stream()
-		.sorted((c1, c2) -> Long.valueOf(c2.getValue().get()).compareTo(c1.getValue().get()))
-		.limit(10)
-		.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
-				(e1, e2) -> e1, LinkedHashMap::new));
+	AccessLogStats aggregate(final AccessLogStatsAccumulator accumulator) {
+
+		Objects.requireNonNull(accumulator, "accumulator has ben called to aggregate with null value.");
+
+		final AccessLogStats accessLogStats = new AccessLogStats()
+				.setStart(fromEpoch(accumulator.getMinInsertTime()))
+				.setEnd(fromEpoch(accumulator.getMaxInsertTime()))
+				.setRequests(new AtomicLong(accumulator.getRequests()))
+				.setValidRequests(new AtomicLong(accumulator.getValidRequests()))
+				.setInvalidRequests(new AtomicLong(accumulator.getInvalidRequests()))
+				.setTotalContent(new AtomicLong(accumulator.getTotalContent()))
+				.setTopVisitsByHostMaxError(accumulator.getVisitsByHost().maxError())
+				.setTopVisitsByUserMaxError(accumulator.getVisitsByUser().maxError())
+				.setTopVisitsSectionMaxError(Math.max(accumulator.getVisitsBySection().maxError(),
+						Math.max(accumulator.getValidVisitedSections().maxError(), accumulator.getInvalidVisitedSections().maxError())))
+				.setDistinctHosts(accumulator.getDistinctHosts().estimate())
+				.setDistinctUsers(accumulator.getDistinctUsers().estimate())
+				.setDistinctResources(accumulator.getDistinctResources().estimate())
+				.setHostsSketch(accumulator.getDistinctHosts())
+				.setUsersSketch(accumulator.getDistinctUsers())
+				.setResourcesSketch(accumulator.getDistinctResources())
+				.setContentSize(Percentiles.of(accumulator.getContentSizeHistogram()))
+				.setContentSizeHistogram(accumulator.getContentSizeHistogram());
+
+		//select the 10 max counts of each top stat in a single pass over its counter, ordered from max to min.
+		accessLogStats.getTopVisitsByHost().putAll(TopKSelector.top(accumulator.getVisitsByHost(), TOP));
+		accessLogStats.getTopVisitsByMethod().putAll(TopKSelector.top(accumulator.getVisitsByMethod(), TOP));
+		accessLogStats.getTopVisitsByUser().putAll(TopKSelector.top(accumulator.getVisitsByUser(), TOP));
+		accessLogStats.getTopVisitsSection().putAll(TopKSelector.top(accumulator.getVisitsBySection(), TOP));
+		accessLogStats.getTopValidVisitedRequestsSections().putAll(TopKSelector.top(accumulator.getValidVisitedSections(), TOP));
+		accessLogStats.getTopInvalidVisitedRequestsSections().putAll(TopKSelector.top(accumulator.getInvalidVisitedSections(), TOP));
+
+		//content size percentiles of the top visited sections, when their histogram is tracked.
+		accessLogStats.getTopVisitsSection().keySet().forEach(section -> {
+			final LogHistogram histogram = accumulator.getContentSizeHistogramBySection().get(section);
+			if (histogram != null) {
+				accessLogStats.getTopVisitsSectionContentSize().put(section, Percentiles.of(histogram));
+			}
+		});
+
+		return accessLogStats;
 	}
 
-	/**
-	 * puts an initial value in the map with 0 if not exists.
-	 * afterwards, accumulate the counter.
-	 */
-	private void incrementOrPut(Map<String, AtomicLong> map, String key) {
-		map.putIfAbsent(key, new AtomicLong(0));
-		map.get(key).getAndIncrement();
+	private LocalDateTime fromEpoch(long epoch) {
+		return Instant.ofEpochMilli(epoch).atZone(ZoneId.systemDefault()).toLocalDateTime();
 	}
 
 	/**
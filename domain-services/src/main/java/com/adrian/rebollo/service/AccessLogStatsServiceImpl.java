@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -29,6 +30,13 @@ public class AccessLogStatsServiceImpl implements AccessLogStatsService {
 	private final Queue<AccessLogLine> logLines = new ConcurrentLinkedQueue<>();
 	private final InternalDispatcher internalDispatcher;
 	private final AccessLogStatsComponent accessLogStatsComponent;
+	private final StringDictionary stringDictionary;
+
+	/**
+	 * when there is a StatsAggregator (`service.schedulers.stats.aggregation`) the lines are computed as they arrive instead of being queued.
+	 */
+	@Autowired(required = false)
+	private StatsAggregator statsAggregator;
 
 	@Value("${service.schedulers.stats.delay}")
 	private int schedulerDelay;
@@ -37,8 +45,14 @@ public class AccessLogStatsServiceImpl implements AccessLogStatsService {
 	public void handle(AccessLogLine accessLogLine) {
 		LOG.info("Saving log line accessLogLine={}.", accessLogLine);
 
+		if (statsAggregator != null) {
+			statsAggregator.add(accessLogLine);
+			return;
+		}
+
 		//keep the access log lines in memory inside the logLines ConcurrentLinkedQueue
-		logLines.offer(accessLogLine);
+		//the line has been deserialized with fresh copies of its repeated fields, which must not be retained until the next aggregation.
+		logLines.offer(stringDictionary.canonical(accessLogLine));
 	}
 
 	/**
@@ -55,6 +69,14 @@ public class AccessLogStatsServiceImpl implements AccessLogStatsService {
 
 		LOG.info("Triggered scheduler to aggregate logs statistics start={}, end={}.", start, end);
 
+		if (statsAggregator != null) {
+			statsAggregator.close(start, end).forEach(accessLogStats -> {
+				LOG.info("Finished aggregation httpAccessLogStats={}.", accessLogStats);
+				internalDispatcher.dispatch(accessLogStats);
+			});
+			return;
+		}
+
 		final List<AccessLogLine> logs = getLogCandidates(end);
 
 		//aggregate all the log line candidates
@@ -0,0 +1,148 @@
+package com.adrian.rebollo.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.adrian.rebollo.exception.LogLineStatsParsingException;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * StatsAggregator which assigns every line to a window by the date time logged in the line (event time), instead of by the time it has been read.
+ * Windows are as long as the stats scheduler delay, and several of them may be open at the same time.
+ * A window is closed once the watermark (the max event time minus the allowed lateness) passes its end,
+ * or on the first scheduler tick without any new line, so the last windows are not kept open while the log is idle.
+ * Lines of an already closed window are late: they are not computed, but counted in the `lateRequests` of the next stats.
+ * A single line far ahead of the others (ie: a clock skewed upstream) must not close every window at once, making the following lines late:
+ * the max event time never goes past the wall clock, and it only jumps more than a window plus the allowed lateness ahead
+ * once a second line confirms it (to the earliest of both).
+ * This way a catch-up after a stall, or a backfill, dispatches the stats of every window instead of a single burst.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "service.schedulers.stats.aggregation", havingValue = "event-time")
+public class EventTimeStatsAggregator implements StatsAggregator {
+
+	private final AccessLogStatsComponent accessLogStatsComponent;
+
+	@Value("${service.schedulers.stats.delay}")
+	private long windowSize;
+	@Value("${service.schedulers.stats.event-time.allowed-lateness:10000}")
+	private long allowedLateness;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * open windows by their start (epoch millis).
+	 */
+	private final NavigableMap<Long, AccessLogStatsAccumulator> windows = new TreeMap<>();
+	private long maxEventTime = Long.MIN_VALUE;
+	/**
+	 * event time of a line too far ahead of the max event time, which has not been confirmed by another one yet.
+	 */
+	private long aheadEventTime = Long.MIN_VALUE;
+	/**
+	 * end of the last closed window, any line before is late.
+	 */
+	private long closedUntil = Long.MIN_VALUE;
+	private long lateRequests;
+	private boolean idle = true;
+
+	@Override
+	public void add(AccessLogLine accessLogLine) {
+
+		final long eventTime = epoch(accessLogLine.getDateTime() != null ? accessLogLine.getDateTime() : accessLogLine.getInsertTime());
+		final long windowStart = Math.floorDiv(eventTime, windowSize) * windowSize;
+
+		lock.lock();
+		try {
+			idle = false;
+			if (windowStart < closedUntil) {
+				lateRequests++;
+				return;
+			}
+			accessLogStatsComponent.compute(windows.computeIfAbsent(windowStart, start -> accessLogStatsComponent.newAccumulator()), accessLogLine);
+			advance(Math.min(eventTime, System.currentTimeMillis()));
+		} catch (LogLineStatsParsingException exception) {
+			LOG.warn("Skipping log line from stats accessLogLine={}.", accessLogLine, exception);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public List<AccessLogStats> close(LocalDateTime start, LocalDateTime end) {
+
+		final List<Map.Entry<Long, AccessLogStatsAccumulator>> closed = new ArrayList<>();
+		final long late;
+		final int open;
+		final long watermark;
+
+		lock.lock();
+		try {
+			watermark = idle ? Long.MAX_VALUE : maxEventTime - allowedLateness;
+			while (!windows.isEmpty() && windows.firstKey() + windowSize <= watermark) {
+				final Map.Entry<Long, AccessLogStatsAccumulator> window = windows.pollFirstEntry();
+				closed.add(window);
+				closedUntil = Math.max(closedUntil, window.getKey() + windowSize);
+			}
+			open = windows.size();
+			//late requests are reported with the next dispatched stats.
+			late = closed.isEmpty() && open > 0 ? 0 : lateRequests;
+			lateRequests -= late;
+			idle = true;
+		} finally {
+			lock.unlock();
+		}
+
+		LOG.info("Closing {} event time windows with watermark={}, {} still open.", closed.size(), watermark == Long.MAX_VALUE ? "idle" : dateTime(watermark), open);
+
+		final List<AccessLogStats> stats = new ArrayList<>(closed.size());
+		closed.forEach(window -> stats.add(accessLogStatsComponent.aggregate(window.getValue())
+				.setStart(dateTime(window.getKey()))
+				.setEnd(dateTime(window.getKey() + windowSize))));
+
+		if (stats.isEmpty() && open == 0) {
+			//nothing has been logged, the empty stats keep the scheduler pace.
+			stats.add(AccessLogStats.with(start, end));
+		}
+		if (!stats.isEmpty()) {
+			stats.get(stats.size() - 1).setLateRequests(late);
+		}
+		return stats;
+	}
+
+	private void advance(long eventTime) {
+		if (maxEventTime == Long.MIN_VALUE || eventTime <= maxEventTime + windowSize + allowedLateness) {
+			maxEventTime = Math.max(maxEventTime, eventTime);
+		} else if (aheadEventTime == Long.MIN_VALUE) {
+			aheadEventTime = eventTime;
+		} else {
+			maxEventTime = Math.min(aheadEventTime, eventTime);
+			aheadEventTime = Long.MIN_VALUE;
+		}
+	}
+
+	private static long epoch(LocalDateTime dateTime) {
+		return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private static LocalDateTime dateTime(long epoch) {
+		return Instant.ofEpochMilli(epoch).atZone(ZoneId.systemDefault()).toLocalDateTime();
+	}
+}
@@ -0,0 +1,85 @@
+package com.adrian.rebollo.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.adrian.rebollo.exception.LogLineStatsParsingException;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * StatsAggregator with one window accumulator per consumer thread, merged when the window is closed.
+ * The consumers never share any state: each shard lock is only contended by the scheduler while it swaps the shard accumulator,
+ * so the aggregation scales with the amount of consumers (`service.max-thread-pool-size`).
+ * Shards are kept for the life of the application, as the consumer threads are pooled.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "service.schedulers.stats.aggregation", havingValue = "sharded")
+public class ShardedStatsAggregator implements StatsAggregator {
+
+	private final AccessLogStatsComponent accessLogStatsComponent;
+
+	private final List<Shard> shards = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<Shard> shard = ThreadLocal.withInitial(this::newShard);
+
+	@Override
+	public void add(AccessLogLine accessLogLine) {
+		final Shard current = shard.get();
+		current.lock.lock();
+		try {
+			accessLogStatsComponent.compute(current.accumulator, accessLogLine);
+		} catch (LogLineStatsParsingException exception) {
+			LOG.warn("Skipping log line from stats accessLogLine={}.", accessLogLine, exception);
+		} finally {
+			current.lock.unlock();
+		}
+	}
+
+	@Override
+	public List<AccessLogStats> close(LocalDateTime start, LocalDateTime end) {
+
+		final AccessLogStatsAccumulator merged = accessLogStatsComponent.newAccumulator();
+
+		for (Shard current : shards) {
+			final AccessLogStatsAccumulator closed;
+			current.lock.lock();
+			try {
+				closed = current.accumulator;
+				current.accumulator = accessLogStatsComponent.newAccumulator();
+			} finally {
+				current.lock.unlock();
+			}
+			merged.merge(closed);
+		}
+
+		LOG.debug("Merged {} stats shards.", shards.size());
+
+		return List.of(merged.isEmpty() ? AccessLogStats.with(start, end) : accessLogStatsComponent.aggregate(merged));
+	}
+
+	int shards() {
+		return shards.size();
+	}
+
+	private Shard newShard() {
+		final Shard created = new Shard();
+		created.accumulator = accessLogStatsComponent.newAccumulator();
+		shards.add(created);
+		return created;
+	}
+
+	private static class Shard {
+		private final ReentrantLock lock = new ReentrantLock();
+		private AccessLogStatsAccumulator accumulator;
+	}
+}
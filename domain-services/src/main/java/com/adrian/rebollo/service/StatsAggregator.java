@@ -0,0 +1,25 @@
+package com.adrian.rebollo.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+
+/**
+ * Aggregates the log lines as they arrive, so the stats scheduler only has to close the current window.
+ * Enabled through `service.schedulers.stats.aggregation`, otherwise the raw lines are buffered until the scheduler ticks.
+ */
+public interface StatsAggregator {
+
+	/**
+	 * compute the given line into the current window.
+	 */
+	void add(AccessLogLine accessLogLine);
+
+	/**
+	 * close the complete windows, called by the stats scheduler between the given start and end.
+	 * @return the stats of the closed windows from the oldest to the newest, which may be none when no window is complete yet.
+	 */
+	List<AccessLogStats> close(LocalDateTime start, LocalDateTime end);
+}
@@ -0,0 +1,62 @@
+package com.adrian.rebollo.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.adrian.rebollo.exception.LogLineStatsParsingException;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * StatsAggregator which updates the counters of a single window accumulator for every line.
+ * Memory is proportional to the distinct hosts, users, methods and sections of the window instead of to its amount of lines,
+ * and closing a window only swaps the accumulator: the top stats are built outside the lock, while the new window keeps computing.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "service.schedulers.stats.aggregation", havingValue = "streaming")
+public class StreamingStatsAggregator implements StatsAggregator {
+
+	private final AccessLogStatsComponent accessLogStatsComponent;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private AccessLogStatsAccumulator current;
+
+	public StreamingStatsAggregator(AccessLogStatsComponent accessLogStatsComponent) {
+		this.accessLogStatsComponent = accessLogStatsComponent;
+		this.current = accessLogStatsComponent.newAccumulator();
+	}
+
+	@Override
+	public void add(AccessLogLine accessLogLine) {
+		lock.lock();
+		try {
+			accessLogStatsComponent.compute(current, accessLogLine);
+		} catch (LogLineStatsParsingException exception) {
+			LOG.warn("Skipping log line from stats accessLogLine={}.", accessLogLine, exception);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public List<AccessLogStats> close(LocalDateTime start, LocalDateTime end) {
+
+		final AccessLogStatsAccumulator closed;
+		lock.lock();
+		try {
+			closed = current;
+			current = accessLogStatsComponent.newAccumulator();
+		} finally {
+			lock.unlock();
+		}
+
+		return List.of(closed.isEmpty() ? AccessLogStats.with(start, end) : accessLogStatsComponent.aggregate(closed));
+	}
+}
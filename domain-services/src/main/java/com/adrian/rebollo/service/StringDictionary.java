@@ -0,0 +1,70 @@
+package com.adrian.rebollo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.adrian.rebollo.model.AccessLogLine;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded and concurrent dictionary of canonical String instances.
+ * Hosts, users, protocols and sections are repeated in almost every line, but there are only a few thousand distinct values:
+ * replacing every fresh copy by its canonical instance lets the copies be collected right away instead of being retained with the buffered lines,
+ * and the stats maps find their keys by identity (with an already computed hash).
+ * Least recently used values are evicted once `service.dictionary.max-size` is reached, so a burst of distinct values can not grow it unbounded.
+ */
+@Slf4j
+@Component
+public class StringDictionary {
+
+	private final Cache<String, String> cache;
+
+	public StringDictionary(@Value("${service.dictionary.max-size:10000}") long maxSize) {
+		this.cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.recordStats()
+				.build();
+		LOG.info("Initializing StringDictionary with maxSize={}", maxSize);
+	}
+
+	/**
+	 * @return the canonical instance equal to the given value, which becomes the canonical one when it is not known yet.
+	 */
+	public String canonical(String value) {
+		if (value == null) {
+			return null;
+		}
+		final String known = cache.getIfPresent(value);
+		if (known != null) {
+			return known;
+		}
+		final String canonical = cache.asMap().putIfAbsent(value, value);
+		return canonical == null ? value : canonical;
+	}
+
+	/**
+	 * replace the high repetition fields of the given line by their canonical instances.
+	 */
+	public AccessLogLine canonical(AccessLogLine accessLogLine) {
+		return accessLogLine
+				.setHost(canonical(accessLogLine.getHost()))
+				.setIdentifier(canonical(accessLogLine.getIdentifier()))
+				.setUser(canonical(accessLogLine.getUser()))
+				.setProtocol(canonical(accessLogLine.getProtocol()));
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * @return hit and eviction counters.
+	 */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+}
@@ -0,0 +1,31 @@
+package com.adrian.rebollo.sketch;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * FrequencyCounter which keeps an exact count of every distinct key.
+ */
+public class ExactFrequencyCounter implements FrequencyCounter {
+
+	private final StringLongCounterMap counts = new StringLongCounterMap();
+
+	@Override
+	public void add(String key, long count) {
+		counts.add(key, count);
+	}
+
+	@Override
+	public void forEach(ObjLongConsumer<String> consumer) {
+		counts.forEach(consumer);
+	}
+
+	@Override
+	public int size() {
+		return counts.size();
+	}
+
+	@Override
+	public long maxError() {
+		return 0;
+	}
+}
@@ -0,0 +1,37 @@
+package com.adrian.rebollo.sketch;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Counts the occurrences of every key, which may be estimated to bound the memory used by the distinct keys.
+ */
+public interface FrequencyCounter {
+
+	void add(String key, long count);
+
+	default void increment(String key) {
+		add(key, 1);
+	}
+
+	/**
+	 * iterates the counted keys with their (estimated) counts, in no particular order.
+	 */
+	void forEach(ObjLongConsumer<String> consumer);
+
+	/**
+	 * @return amount of counted keys.
+	 */
+	int size();
+
+	/**
+	 * @return max overestimation of any count, 0 when the counts are exact.
+	 */
+	long maxError();
+
+	/**
+	 * adds all the counts of the given counter into this one.
+	 */
+	default void merge(FrequencyCounter other) {
+		other.forEach(this::add);
+	}
+}
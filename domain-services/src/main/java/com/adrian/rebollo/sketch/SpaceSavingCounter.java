@@ -0,0 +1,119 @@
+package com.adrian.rebollo.sketch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Space-Saving heavy hitters counter (Metwally, Agrawal and El Abbadi), which monitors at most `capacity` keys.
+ * When it is full, a new key replaces the monitored key with the minimum count and inherits that count, so:
+ * - any key occurring more than `total / capacity` times is monitored.
+ * - a monitored count overestimates the real one by at most the minimum count, which is reported as {@link #maxError()}.
+ * The monitored keys are kept in a min-heap by count, so every add is O(log capacity).
+ */
+public class SpaceSavingCounter implements FrequencyCounter {
+
+	private final int capacity;
+	private final Map<String, Integer> positions;
+	private final String[] keys;
+	private final long[] counts;
+	private int size;
+
+	/**
+	 * overestimation inherited from the merged counters.
+	 */
+	private long mergedError;
+
+	public SpaceSavingCounter(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException(String.format("Space saving capacity=%s must be positive", capacity));
+		}
+		this.capacity = capacity;
+		this.positions = new HashMap<>(capacity * 4 / 3 + 1);
+		this.keys = new String[capacity];
+		this.counts = new long[capacity];
+	}
+
+	@Override
+	public void add(String key, long count) {
+
+		final Integer position = positions.get(key);
+		if (position != null) {
+			counts[position] += count;
+			siftDown(position);
+		} else if (size < capacity) {
+			keys[size] = key;
+			counts[size] = count;
+			positions.put(key, size);
+			siftUp(size++);
+		} else {
+			//replace the minimum, which is the root of the heap.
+			positions.remove(keys[0]);
+			keys[0] = key;
+			counts[0] += count;
+			positions.put(key, 0);
+			siftDown(0);
+		}
+	}
+
+	@Override
+	public void forEach(ObjLongConsumer<String> consumer) {
+		for (int position = 0; position < size; position++) {
+			consumer.accept(keys[position], counts[position]);
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public long maxError() {
+		return mergedError + (size == capacity ? counts[0] : 0);
+	}
+
+	@Override
+	public void merge(FrequencyCounter other) {
+		mergedError += other.maxError();
+		other.forEach(this::add);
+	}
+
+	private void siftUp(int position) {
+		while (position > 0) {
+			final int parent = (position - 1) >>> 1;
+			if (counts[parent] <= counts[position]) {
+				return;
+			}
+			swap(position, parent);
+			position = parent;
+		}
+	}
+
+	private void siftDown(int position) {
+		while (true) {
+			final int left = 2 * position + 1;
+			if (left >= size) {
+				return;
+			}
+			final int right = left + 1;
+			final int child = right < size && counts[right] < counts[left] ? right : left;
+			if (counts[position] <= counts[child]) {
+				return;
+			}
+			swap(position, child);
+			position = child;
+		}
+	}
+
+	private void swap(int i, int j) {
+		final String key = keys[i];
+		keys[i] = keys[j];
+		keys[j] = key;
+		final long count = counts[i];
+		counts[i] = counts[j];
+		counts[j] = count;
+		positions.put(keys[i], i);
+		positions.put(keys[j], j);
+	}
+}
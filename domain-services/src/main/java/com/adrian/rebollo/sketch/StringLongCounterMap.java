@@ -0,0 +1,143 @@
+package com.adrian.rebollo.sketch;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Open addressing (linear probing) map of String keys to primitive long counts.
+ * Keys, their hashes and counts are kept in parallel arrays, so there is no entry object or boxed count per key,
+ * and an increment of an existing key is a single probe sequence. Keys can not be removed.
+ * The null key is supported, as in a HashMap.
+ * It is NOT thread-safe.
+ */
+public class StringLongCounterMap {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private String[] keys;
+	private int[] hashes;
+	private long[] counts;
+	private int mask;
+	private int size;
+	private int resizeThreshold;
+
+	private boolean hasNullKey;
+	private long nullKeyCount;
+
+	public StringLongCounterMap() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * @param expectedKeys keys which can be added without resizing.
+	 */
+	public StringLongCounterMap(int expectedKeys) {
+		allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedKeys * 4 / 3)) << 1));
+	}
+
+	/**
+	 * adds the delta to the count of the key, which starts at 0.
+	 * @return the new count.
+	 */
+	public long add(String key, long delta) {
+
+		if (key == null) {
+			hasNullKey = true;
+			return nullKeyCount += delta;
+		}
+
+		final int hash = hash(key);
+		int position = hash & mask;
+		String existing;
+		while ((existing = keys[position]) != null) {
+			if (hashes[position] == hash && (existing == key || existing.equals(key))) {
+				return counts[position] += delta;
+			}
+			position = (position + 1) & mask;
+		}
+
+		keys[position] = key;
+		hashes[position] = hash;
+		counts[position] = delta;
+		if (++size > resizeThreshold) {
+			resize();
+		}
+		return delta;
+	}
+
+	public long increment(String key) {
+		return add(key, 1);
+	}
+
+	/**
+	 * @return the count of the key, 0 when it has not been added.
+	 */
+	public long get(String key) {
+
+		if (key == null) {
+			return nullKeyCount;
+		}
+
+		final int hash = hash(key);
+		int position = hash & mask;
+		String existing;
+		while ((existing = keys[position]) != null) {
+			if (hashes[position] == hash && (existing == key || existing.equals(key))) {
+				return counts[position];
+			}
+			position = (position + 1) & mask;
+		}
+		return 0;
+	}
+
+	public void forEach(ObjLongConsumer<String> consumer) {
+		if (hasNullKey) {
+			consumer.accept(null, nullKeyCount);
+		}
+		for (int position = 0; position < keys.length; position++) {
+			if (keys[position] != null) {
+				consumer.accept(keys[position], counts[position]);
+			}
+		}
+	}
+
+	public int size() {
+		return size + (hasNullKey ? 1 : 0);
+	}
+
+	private void resize() {
+
+		final String[] oldKeys = keys;
+		final int[] oldHashes = hashes;
+		final long[] oldCounts = counts;
+
+		allocate(oldKeys.length << 1);
+
+		for (int old = 0; old < oldKeys.length; old++) {
+			if (oldKeys[old] != null) {
+				int position = oldHashes[old] & mask;
+				while (keys[position] != null) {
+					position = (position + 1) & mask;
+				}
+				keys[position] = oldKeys[old];
+				hashes[position] = oldHashes[old];
+				counts[position] = oldCounts[old];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new String[capacity];
+		hashes = new int[capacity];
+		counts = new long[capacity];
+		mask = capacity - 1;
+		resizeThreshold = capacity * 3 / 4;
+	}
+
+	/**
+	 * spreads the String hash (which is cached in the String), so the low bits used as position depend on all of them.
+	 */
+	private static int hash(String key) {
+		final int hash = key.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,106 @@
+package com.adrian.rebollo.sketch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Selects the k keys with the highest counts in a single pass, with a fixed-size min-heap of primitive counts:
+ * every offered key is only compared against the smallest selected count, so selecting from n keys is O(n log k)
+ * instead of sorting all of them.
+ * It is NOT thread-safe.
+ */
+public class TopKSelector implements ObjLongConsumer<String> {
+
+	private final String[] keys;
+	private final long[] counts;
+	private int size;
+
+	public TopKSelector(int k) {
+		if (k <= 0) {
+			throw new IllegalArgumentException(String.format("Top k=%s must be positive", k));
+		}
+		this.keys = new String[k];
+		this.counts = new long[k];
+	}
+
+	/**
+	 * @return the top k keys of the counter, ordered from max to min.
+	 */
+	public static Map<String, AtomicLong> top(FrequencyCounter counter, int k) {
+		final TopKSelector selector = new TopKSelector(k);
+		counter.forEach(selector);
+		return selector.toMap();
+	}
+
+	@Override
+	public void accept(String key, long count) {
+		if (size < keys.length) {
+			keys[size] = key;
+			counts[size] = count;
+			siftUp(size++);
+		} else if (count > counts[0]) {
+			keys[0] = key;
+			counts[0] = count;
+			siftDown(0, size);
+		}
+	}
+
+	/**
+	 * @return the selected keys ordered from max to min. It empties the selector.
+	 */
+	public Map<String, AtomicLong> toMap() {
+
+		//heap sort: moving every min to the end leaves the keys ordered from max to min.
+		final int selected = size;
+		for (int last = size - 1; last > 0; last--) {
+			swap(0, last);
+			siftDown(0, last);
+		}
+
+		final Map<String, AtomicLong> top = new LinkedHashMap<>();
+		for (int position = 0; position < selected; position++) {
+			top.put(keys[position], new AtomicLong(counts[position]));
+			keys[position] = null;
+		}
+		size = 0;
+		return top;
+	}
+
+	private void siftUp(int position) {
+		while (position > 0) {
+			final int parent = (position - 1) >>> 1;
+			if (counts[parent] <= counts[position]) {
+				return;
+			}
+			swap(position, parent);
+			position = parent;
+		}
+	}
+
+	private void siftDown(int position, int end) {
+		while (true) {
+			final int left = 2 * position + 1;
+			if (left >= end) {
+				return;
+			}
+			final int right = left + 1;
+			final int child = right < end && counts[right] < counts[left] ? right : left;
+			if (counts[position] <= counts[child]) {
+				return;
+			}
+			swap(position, child);
+			position = child;
+		}
+	}
+
+	private void swap(int i, int j) {
+		final String key = keys[i];
+		keys[i] = keys[j];
+		keys[j] = key;
+		final long count = counts[i];
+		counts[i] = counts[j];
+		counts[j] = count;
+	}
+}
@@ -0,0 +1,63 @@
+package com.adrian.rebollo.parser;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AccessLogDateTimeDecoderTest {
+
+	private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z");
+
+	private final AccessLogDateTimeDecoder accessLogDateTimeDecoder = new AccessLogDateTimeDecoder();
+
+	@Test
+	public void testDecode() {
+		Assert.assertEquals(LocalDateTime.of(2018, 5, 9, 16, 0, 42), accessLogDateTimeDecoder.decode("09/May/2018:16:00:42 +0000"));
+		Assert.assertEquals(LocalDateTime.of(2018, 12, 31, 23, 59, 59), accessLogDateTimeDecoder.decode("31/Dec/2018:23:59:59 -0730"));
+	}
+
+	@Test
+	public void testDecodeRegion() {
+		Assert.assertEquals(LocalDateTime.of(2018, 5, 9, 16, 0, 42), accessLogDateTimeDecoder.decode("[09/May/2018:16:00:42 +0000]", 1, 27));
+	}
+
+	@Test
+	public void sameResultsAsFormatter() {
+		final List<String> dates = List.of("09/May/2018:16:00:42 +0000", "29/Feb/2016:00:00:00 +1800", "31/Apr/2018:10:00:00 +0000",
+				"29/Feb/2018:10:00:00 +0000", "09/May/2018:24:00:00 +0000", "01/Jan/0001:00:00:00 -1800");
+
+		for (String date : dates) {
+			Assert.assertEquals(date, ZonedDateTime.parse(date, DATE_TIME_FORMATTER).toLocalDateTime(), accessLogDateTimeDecoder.decode(date));
+		}
+	}
+
+	@Test
+	public void testCounters() {
+		accessLogDateTimeDecoder.decode("09/May/2018:16:00:42 +0000");
+		accessLogDateTimeDecoder.decode("09/May/2018:16:00:42 +0000");
+		accessLogDateTimeDecoder.decode("09/May/2018:16:00:42 +0000");
+		accessLogDateTimeDecoder.decode("09/May/2018:16:00:43 +0000");
+		accessLogDateTimeDecoder.decode("31/Apr/2018:10:00:00 +0000");
+		accessLogDateTimeDecoder.decode("31/Apr/2018:10:00:00 +0000");
+
+		Assert.assertEquals(3, accessLogDateTimeDecoder.getHits());
+		Assert.assertEquals(3, accessLogDateTimeDecoder.getMisses());
+		Assert.assertEquals(1, accessLogDateTimeDecoder.getFallbacks());
+		Assert.assertEquals(0.5, accessLogDateTimeDecoder.getHitRate(), 0);
+	}
+
+	@Test(expected = DateTimeException.class)
+	public void testExceptionForDate() {
+		accessLogDateTimeDecoder.decode("50/May/2018:16:00:42 +0000");
+	}
+
+	@Test(expected = DateTimeException.class)
+	public void testExceptionForOffset() {
+		accessLogDateTimeDecoder.decode("09/May/2018:16:00:42 +1900");
+	}
+}
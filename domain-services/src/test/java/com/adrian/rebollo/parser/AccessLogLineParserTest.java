@@ -6,17 +6,30 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
 import com.adrian.rebollo.exception.LogLineParsingException;
 import com.adrian.rebollo.model.AccessLogLine;
 import com.adrian.rebollo.model.HttpMethod;
 
+/**
+ * every case is verified against the regex parser and the scanner, which must produce the same results.
+ */
+@RunWith(Parameterized.class)
 public class AccessLogLineParserTest {
 
-	private final AccessLogLineParser accessLogLineParser = new AccessLogLineParser();
+	@Parameterized.Parameters(name = "{0}")
+	public static List<LogLineParser> parsers() {
+		return List.of(new AccessLogLineParser(new AccessLogDateTimeDecoder()), new AccessLogLineScanner(new AccessLogDateTimeDecoder()));
+	}
+
+	@Parameterized.Parameter
+	public LogLineParser accessLogLineParser;
 
 	@Test
 	public void testParse() {
@@ -0,0 +1,177 @@
+package com.adrian.rebollo.parser;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.adrian.rebollo.api.InternalDispatcher;
+import com.adrian.rebollo.exception.LogLineParsingException;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.service.StringDictionary;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AccessLogLineParsingStageTest {
+
+	private AccessLogLineParsingStage accessLogLineParsingStage;
+
+	@Mock
+	private AccessLogLineParser accessLogLineParser;
+	@Mock
+	private InternalDispatcher internalDispatcher;
+
+	@Before
+	public void init() {
+		accessLogLineParsingStage = new AccessLogLineParsingStage(accessLogLineParser, internalDispatcher, new StringDictionary(100));
+		ReflectionTestUtils.setField(accessLogLineParsingStage, "queueSize", 2);
+	}
+
+	@After
+	public void destroy() throws InterruptedException {
+		accessLogLineParsingStage.destroy();
+	}
+
+	@Test
+	public void testCalls() {
+		accessLogLineParsingStage.init();
+
+		final String line = "whatever";
+		final AccessLogLine parsed = AccessLogLine.builder().build();
+
+		when(accessLogLineParser.apply(line)).thenReturn(parsed);
+
+		accessLogLineParsingStage.submit(line);
+
+		verify(accessLogLineParser).apply(eq(line));
+		verify(internalDispatcher).dispatch(eq(parsed));
+	}
+
+	@Test
+	public void testBatchSkipsInvalidLines() {
+		accessLogLineParsingStage.init();
+
+		final AccessLogLine parsed = AccessLogLine.builder().build();
+
+		when(accessLogLineParser.apply("invalid")).thenThrow(new LogLineParsingException("invalid"));
+		when(accessLogLineParser.apply("valid")).thenReturn(parsed);
+
+		accessLogLineParsingStage.submit(List.of("invalid", "valid"), 7);
+
+		verify(accessLogLineParser).apply(eq("invalid"));
+		verify(internalDispatcher).dispatch(eq(parsed));
+		Assert.assertEquals(8, parsed.getSeqId());
+	}
+
+	@Test
+	public void testBatchIsHandledOnceDispatched() {
+		accessLogLineParsingStage.init();
+
+		final AccessLogLine parsed = AccessLogLine.builder().build();
+		final CompletableFuture<Void> handled = new CompletableFuture<>();
+
+		when(accessLogLineParser.apply("valid")).thenReturn(parsed);
+		doAnswer(invocation -> {
+			Assert.assertFalse(handled.isDone());
+			return null;
+		}).when(internalDispatcher).flushLines();
+
+		accessLogLineParsingStage.submit(List.of("valid"), 7, handled);
+
+		final InOrder inOrder = inOrder(internalDispatcher);
+		inOrder.verify(internalDispatcher).dispatch(eq(parsed));
+		inOrder.verify(internalDispatcher).flushLines();
+		Assert.assertTrue(handled.isDone());
+		Assert.assertFalse(handled.isCompletedExceptionally());
+	}
+
+	@Test
+	public void testBatchFailsWhenItCanNotBeDispatched() {
+		ReflectionTestUtils.setField(accessLogLineParsingStage, "threads", 1);
+		accessLogLineParsingStage.init();
+
+		final AccessLogLine parsed = AccessLogLine.builder().build();
+		final CompletableFuture<Void> handled = new CompletableFuture<>();
+
+		when(accessLogLineParser.apply("valid")).thenReturn(parsed);
+		doThrow(new IllegalStateException("RingBuffer has been stopped")).when(internalDispatcher).dispatch(parsed);
+
+		accessLogLineParsingStage.submit(List.of("valid"), 7, handled);
+
+		await().atMost(Duration.ofSeconds(5)).until(handled::isDone);
+		Assert.assertTrue(handled.isCompletedExceptionally());
+		verify(internalDispatcher, never()).flushLines();
+	}
+
+	@Test
+	public void testParallelWorkersDispatchEveryLine() {
+		ReflectionTestUtils.setField(accessLogLineParsingStage, "threads", 4);
+		accessLogLineParsingStage.init();
+
+		final Set<Long> dispatched = ConcurrentHashMap.newKeySet();
+		final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+		when(accessLogLineParser.apply(any())).thenAnswer(invocation -> AccessLogLine.builder().build());
+		doAnswer(invocation -> {
+			dispatched.add(((AccessLogLine) invocation.getArgument(0)).getSeqId());
+			threads.add(Thread.currentThread().getName());
+			return null;
+		}).when(internalDispatcher).dispatch(any(AccessLogLine.class));
+
+		final List<String> batch = IntStream.range(0, 100).mapToObj(String::valueOf).collect(Collectors.toList());
+		for (int i = 0; i < 50; i++) {
+			accessLogLineParsingStage.submit(batch, i * 100L + 1);
+		}
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> dispatched.size() == 5000);
+
+		Assert.assertEquals(LongStream.rangeClosed(1, 5000).boxed().collect(Collectors.toSet()), dispatched);
+		Assert.assertTrue(threads.stream().anyMatch(thread -> thread.startsWith("log-parser-")));
+	}
+
+	@Test
+	public void testStopDispatchesSubmittedBatchesOnly() {
+		ReflectionTestUtils.setField(accessLogLineParsingStage, "threads", 2);
+		accessLogLineParsingStage.init();
+		accessLogLineParsingStage.start();
+
+		final AccessLogLine parsed = AccessLogLine.builder().build();
+		final CompletableFuture<Void> handled = new CompletableFuture<>();
+
+		when(accessLogLineParser.apply("valid")).thenReturn(parsed);
+
+		accessLogLineParsingStage.submit(List.of("valid"), 7);
+		accessLogLineParsingStage.stop();
+
+		Assert.assertFalse(accessLogLineParsingStage.isRunning());
+		verify(internalDispatcher).dispatch(eq(parsed));
+
+		accessLogLineParsingStage.submit(List.of("valid"), 8, handled);
+
+		verify(internalDispatcher).dispatch(eq(parsed));
+		Assert.assertTrue(handled.isCompletedExceptionally());
+	}
+}
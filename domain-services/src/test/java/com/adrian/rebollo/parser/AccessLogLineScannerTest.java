@@ -0,0 +1,87 @@
+package com.adrian.rebollo.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.adrian.rebollo.exception.LogLineParsingException;
+import com.adrian.rebollo.model.AccessLogLine;
+
+public class AccessLogLineScannerTest {
+
+	private static final List<String> LINES = List.of(
+			"127.0.0.1 loggeduser mary [09/May/2018:16:00:42 +0000] \"POST /api/user HTTP/1.0\" 503 12",
+			"- - - [09/May/2018:16:00:42 +0000] \"GET /api/user HTTP/1.0\" 200 0",
+			"10.0.0.2 - jill [31/Dec/2018:23:59:59 -0730] \"DELETE /shop/buy/1?id=2 HTTP/1.1\" 404 1234567 \"referrer\" \"agent\"",
+			"10.0.0.2 - jill [29/Feb/2016:00:00:00 +1800] \"PUT /report HTTP/2.0\" 201 007",
+			"10.0.0.2 - jill [31/Apr/2018:10:00:00 +0000] \"GET /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [29/Feb/2018:10:00:00 +0000] \"GET /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [9/May/2018:16:00:42 +0000] \"GET /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [09/May/2018:24:00:00 +0000] \"GET /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [09/May/2018:16:00:42 +1900] \"GET /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [09/may/2018:16:00:42 +0000] \"GET /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [09/May/2018:16:00:42\t+0000] \"GET /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [09/May/2018:16:00:42 +0000] \"GET /report HTTP\"/1.0\" 200 1",
+			"10.0.0.2 - jill [09/May/2018:16:00:42 +0000] \"GET /report HTTP/1.0\" 200 99999999999999999999",
+			"10.0.0.2 - jill [09/May/2018:16:00:42 +0000] \"GET /report HTTP/1.0\" 2000 1",
+			"10.0.0.2 - jill [09/May/2018:16:00:42 +0000] \"GET /report HTTP/1.0\" 200",
+			"10.0.0.2 - jill [09/May/2018:16:00:42 +0000] \"GET /re port HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [09/May/2018:16:00:42 +0000] \"get /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [09/May/2018:16:00:42 +0000] \"GET /report \" 200 1",
+			"10.0.0.2  jill [09/May/2018:16:00:42 +0000] \"GET /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill extra [09/May/2018:16:00:42 +0000] \"GET /report HTTP/1.0\" 200 1",
+			"10.0.0.2 - jillé [09/May/2018:16:00:42 +0000] \"GET /café HTTP/1.0\" 200 1",
+			"10.0.0.2 - jill [09/May/2018:16:00:42 +0000",
+			"",
+			"bad line");
+
+	private final AccessLogLineParser accessLogLineParser = new AccessLogLineParser(new AccessLogDateTimeDecoder());
+	private final AccessLogLineScanner accessLogLineScanner = new AccessLogLineScanner(new AccessLogDateTimeDecoder());
+
+	@Test
+	public void sameResultsAsRegexParser() {
+		for (String line : LINES) {
+			final AccessLogLine expected = parseOrNull(accessLogLineParser, line);
+			assertSame(line, expected, parseOrNull(accessLogLineScanner, line));
+		}
+	}
+
+	@Test
+	public void sameResultsFromBytes() {
+		for (String line : LINES) {
+			final byte[] bytes = ("garbage\n" + line + "\n").getBytes(StandardCharsets.UTF_8);
+			final int offset = "garbage\n".length();
+			final int length = bytes.length - offset - 1;
+			final AccessLogLine expected = parseOrNull(accessLogLineParser, line);
+
+			AccessLogLine scanned;
+			try {
+				scanned = accessLogLineScanner.apply(bytes, offset, length);
+			} catch (LogLineParsingException exception) {
+				scanned = null;
+			}
+			assertSame(line, expected, scanned);
+		}
+	}
+
+	private void assertSame(String line, AccessLogLine expected, AccessLogLine scanned) {
+		if (expected == null) {
+			Assert.assertNull(line, scanned);
+		} else {
+			Assert.assertNotNull(line, scanned);
+			assertThat(scanned).as(line).isEqualToIgnoringGivenFields(expected, "insertTime");
+		}
+	}
+
+	private AccessLogLine parseOrNull(LogLineParser parser, String line) {
+		try {
+			return parser.apply(line);
+		} catch (LogLineParsingException exception) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.adrian.rebollo.parser.format;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.adrian.rebollo.exception.LogLineParsingException;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.HttpMethod;
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+import com.adrian.rebollo.parser.AccessLogLineParser;
+
+public class LogFormatCompilerTest {
+
+	private static final String NGINX_TIMED_COMBINED = "$remote_addr - $remote_user [$time_local] \"$request\" $status $body_bytes_sent "
+			+ "\"$http_referer\" \"$http_user_agent\" $request_time $upstream_response_time";
+
+	private static final String APACHE_COMBINED = "%h %l %u %t \\\"%r\\\" %>s %b \\\"%{Referer}i\\\" \\\"%{User-agent}i\\\" %D";
+
+	private final LogFormatCompiler logFormatCompiler = new LogFormatCompiler(new AccessLogDateTimeDecoder());
+
+	@Test
+	public void testNginxTimedCombined() {
+
+		final AccessLogLine response = logFormatCompiler.compile(NGINX_TIMED_COMBINED).apply("10.0.0.2 - mary [09/May/2018:16:00:42 +0200] "
+				+ "\"GET /api/user?name=a b HTTP/1.1\" 200 512 \"https://example.com/\" \"Mozilla/5.0 (X11; Linux x86_64)\" 0.153 0.010, 0.120");
+
+		assertThat(response).isEqualToIgnoringGivenFields(AccessLogLine.builder()
+				.host("10.0.0.2")
+				.identifier("NO_IDENTIFIER")
+				.user("mary")
+				.dateTime(LocalDateTime.of(2018, 5, 9, 16, 0, 42))
+				.httpMethod(HttpMethod.GET)
+				.resource("/api/user?name=a b")
+				.protocol("HTTP/1.1")
+				.returnedStatus(200)
+				.contentSize(512)
+				.referrer("https://example.com/")
+				.userAgent("Mozilla/5.0 (X11; Linux x86_64)")
+				.requestDuration(153_000L)
+				.upstreamDuration(130_000L)
+				.build(), "insertTime");
+		Assert.assertNotNull(response.getInsertTime());
+	}
+
+	@Test
+	public void testNginxNotLoggedValues() {
+
+		final AccessLogLine response = logFormatCompiler.compile(NGINX_TIMED_COMBINED).apply("10.0.0.2 - - [09/May/2018:16:00:42 +0200] "
+				+ "\"POST /shop HTTP/1.1\" 503 0 \"-\" \"-\" 1.5 -");
+
+		Assert.assertEquals("NO_USER", response.getUser());
+		Assert.assertEquals("", response.getReferrer());
+		Assert.assertEquals("", response.getUserAgent());
+		Assert.assertEquals(Long.valueOf(1_500_000L), response.getRequestDuration());
+		Assert.assertNull(response.getUpstreamDuration());
+	}
+
+	@Test
+	public void testNginxUpstreamTimesAfterRedirect() {
+
+		final String format = "$remote_addr [$time_local] \"$request\" $status $upstream_response_time $request_time";
+		final AccessLogLine response = logFormatCompiler.compile(format).apply("10.0.0.2 [09/May/2018:16:00:42 +0200] "
+				+ "\"GET /api/user HTTP/1.1\" 200 0.001 : 0.002, 0.003 0.010");
+
+		Assert.assertEquals(Long.valueOf(6_000L), response.getUpstreamDuration());
+		Assert.assertEquals(Long.valueOf(10_000L), response.getRequestDuration());
+
+		final AccessLogLine last = logFormatCompiler.compile(NGINX_TIMED_COMBINED).apply("10.0.0.2 - - [09/May/2018:16:00:42 +0200] "
+				+ "\"GET /api/user HTTP/1.1\" 200 0 \"-\" \"-\" 0.010 0.001 : 0.002");
+
+		Assert.assertEquals(Long.valueOf(3_000L), last.getUpstreamDuration());
+	}
+
+	@Test
+	public void testApacheCombined() {
+
+		final AccessLogLine response = logFormatCompiler.compile(APACHE_COMBINED).apply("127.0.0.1 - frank [10/Oct/2000:13:55:36 -0700] "
+				+ "\"GET /apache_pb.gif HTTP/1.0\" 200 - \"http://www.example.com/start.html\" \"Mozilla/4.08 [en] (Win98; I ;Nav)\" 2345");
+
+		assertThat(response).isEqualToIgnoringGivenFields(AccessLogLine.builder()
+				.host("127.0.0.1")
+				.identifier("NO_IDENTIFIER")
+				.user("frank")
+				.dateTime(LocalDateTime.of(2000, 10, 10, 13, 55, 36))
+				.httpMethod(HttpMethod.GET)
+				.resource("/apache_pb.gif")
+				.protocol("HTTP/1.0")
+				.returnedStatus(200)
+				.contentSize(0)
+				.referrer("http://www.example.com/start.html")
+				.userAgent("Mozilla/4.08 [en] (Win98; I ;Nav)")
+				.requestDuration(2345L)
+				.build(), "insertTime");
+	}
+
+	@Test
+	public void testCommonLogFormatAsRegexParser() {
+
+		final String line = "127.0.0.1 loggeduser mary [09/May/2018:16:00:42 +0000] \"POST /api/user HTTP/1.0\" 503 12";
+		final AccessLogLine expected = new AccessLogLineParser(new AccessLogDateTimeDecoder()).apply(line);
+
+		assertThat(logFormatCompiler.compile("%h %l %u %t \"%r\" %>s %b").apply(line)).isEqualToIgnoringGivenFields(expected, "insertTime");
+	}
+
+	@Test
+	public void testIsoTimeAndIgnoredVariables() {
+
+		final AccessLogLine response = logFormatCompiler.compile("$time_iso8601 $host $request_method $request_uri $status $request_time")
+				.apply("2018-05-09T16:00:42+02:00 example.com DELETE /api/user/1 204 0.000");
+
+		Assert.assertEquals(LocalDateTime.of(2018, 5, 9, 16, 0, 42), response.getDateTime());
+		Assert.assertEquals(HttpMethod.DELETE, response.getHttpMethod());
+		Assert.assertEquals("/api/user/1", response.getResource());
+		Assert.assertEquals(204, response.getReturnedStatus());
+		Assert.assertEquals(Long.valueOf(0L), response.getRequestDuration());
+		Assert.assertEquals("", response.getHost());
+	}
+
+	@Test(expected = LogLineParsingException.class)
+	public void testExceptionForLine() {
+		logFormatCompiler.compile(NGINX_TIMED_COMBINED).apply("bad line");
+	}
+
+	@Test(expected = LogLineParsingException.class)
+	public void testExceptionForRequest() {
+		logFormatCompiler.compile(NGINX_TIMED_COMBINED).apply("10.0.0.2 - - [09/May/2018:16:00:42 +0200] \"-\" 400 0 \"-\" \"-\" 0.001 -");
+	}
+
+	@Test(expected = LogLineParsingException.class)
+	public void testExceptionForStatus() {
+		logFormatCompiler.compile(NGINX_TIMED_COMBINED).apply("10.0.0.2 - - [09/May/2018:16:00:42 +0200] \"GET / HTTP/1.1\" 2x0 0 \"-\" \"-\" 0.001 -");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testExceptionForMissingFields() {
+		logFormatCompiler.compile("$remote_addr $status");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testExceptionForConsecutiveFields() {
+		logFormatCompiler.compile("[$time_local] \"$request\" $status$body_bytes_sent");
+	}
+}
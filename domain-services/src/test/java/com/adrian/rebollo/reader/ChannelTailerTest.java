@@ -0,0 +1,400 @@
+package com.adrian.rebollo.reader;
+
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ChannelTailerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+	private final List<String> lines = new CopyOnWriteArrayList<>();
+	private final List<Long> seqIds = new CopyOnWriteArrayList<>();
+
+	private volatile boolean initialized;
+
+	/**
+	 * the batch starting with this sequence id is not acknowledged until the test completes `held`.
+	 */
+	private volatile long holdFirstSeqId = -1;
+	private volatile CompletableFuture<Void> held;
+	/**
+	 * the batch starting with this sequence id fails.
+	 */
+	private volatile long failFirstSeqId = -1;
+
+	private Path file;
+	private ChannelTailer tailer;
+	private Thread thread;
+
+	@Before
+	public void init() throws IOException {
+		file = folder.newFile("access.log").toPath();
+	}
+
+	@After
+	public void stop() throws InterruptedException {
+		tailer.stop();
+		thread.join(1000);
+	}
+
+	@Test
+	public void readsExistingLinesInBatches() throws IOException {
+
+		write("line1\nline2\nline3\nline4\nline5\n");
+
+		start(false, 2);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 5);
+
+		Assert.assertEquals(List.of("line1", "line2", "line3", "line4", "line5"), lines);
+		Assert.assertEquals(List.of(List.of("line1", "line2"), List.of("line3", "line4"), List.of("line5")), batches);
+	}
+
+	@Test
+	public void startsFromTheEndAndKeepsPartialLines() throws IOException {
+
+		write("old line\n");
+
+		start(true, 100);
+
+		write("new ");
+		write("line\r\nsecond");
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 1);
+		Assert.assertEquals(List.of("new line"), lines);
+
+		write(" line\n");
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 2);
+		Assert.assertEquals(List.of("new line", "second line"), lines);
+	}
+
+	@Test
+	public void readsLinesLongerThanTheBuffer() throws IOException {
+
+		final String longLine = "x".repeat(100);
+		write(longLine + "\nshort\n");
+
+		start(false, 100);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 2);
+		Assert.assertEquals(List.of(longLine, "short"), lines);
+	}
+
+	@Test
+	public void reopensTruncatedFile() throws IOException {
+
+		write("line1\nline2\n");
+
+		start(false, 100);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 2);
+
+		Files.write(file, "line3\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 3);
+		Assert.assertEquals(List.of("line1", "line2", "line3"), lines);
+		Assert.assertEquals(1, tailer.getTruncations());
+		Assert.assertEquals(0, tailer.getRotations());
+	}
+
+	@Test
+	public void drainsRenamedFileBeforeReadingTheNewOne() throws IOException {
+
+		write("line1\n");
+
+		start(false, 100, null, null, 500);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 1);
+
+		//the writer keeps appending to the renamed file until it reopens it.
+		final Path rotated = folder.getRoot().toPath().resolve("access.log.1");
+		Files.move(file, rotated);
+		Files.write(file, "line4\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(rotated, "line2\nline3\npartial".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 4);
+
+		Assert.assertEquals(List.of("line1", "line2", "line3", "line4"), lines);
+		Assert.assertEquals(1, tailer.getRotations());
+		Assert.assertEquals("line2\nline3\npartial".length(), tailer.getDrainedBytes());
+		Assert.assertEquals(1, tailer.getLostLines());
+	}
+
+	@Test
+	public void resumesFromCheckpoint() throws IOException, InterruptedException {
+
+		final ReaderCheckpointStore checkpointStore = new ReaderCheckpointStore(folder.getRoot().toPath().resolve("reader.checkpoint"));
+
+		write("line1\nline2\n");
+
+		start(true, 100, checkpointStore);
+
+		write("line3\npartial");
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 1);
+		stop();
+
+		//written while the reader is stopped
+		write(" line4\nline5\n");
+
+		lines.clear();
+		seqIds.clear();
+		initialized = false;
+		start(true, 100, checkpointStore);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 2);
+
+		Assert.assertEquals(List.of("partial line4", "line5"), lines);
+		Assert.assertEquals(List.of(2L, 3L), seqIds);
+		Assert.assertEquals(3L, tailer.getSeqId());
+	}
+
+	@Test
+	public void readsReplacedFileFromTheBeginning() throws IOException, InterruptedException {
+
+		final ReaderCheckpointStore checkpointStore = new ReaderCheckpointStore(folder.getRoot().toPath().resolve("reader.checkpoint"));
+		checkpointStore.save(new ReaderCheckpoint("another-file", 3, 10));
+
+		write("line1\n");
+
+		start(true, 100, checkpointStore);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 1);
+		Assert.assertEquals(List.of(11L), seqIds);
+	}
+
+	@Test
+	public void readsArchivesOldestFirstBeforeTheTailedFile() throws IOException {
+
+		archive("access.log.2.gz", "line1\nline2\n", 1000);
+		//the last line of an archive may not be terminated.
+		archive("access.log.1", "line3\nline4", 2000);
+		write("line5\n");
+
+		start(true, 100, null, "access.log.*");
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 5);
+
+		Assert.assertEquals(List.of("line1", "line2", "line3", "line4", "line5"), lines);
+		Assert.assertEquals(List.of(1L, 2L, 3L, 4L, 5L), seqIds);
+
+		write("line6\n");
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 6);
+		Assert.assertEquals("line6", lines.get(5));
+	}
+
+	@Test
+	public void restartWithoutArchivesNorCheckpointStartsFromTheEnd() throws IOException {
+
+		write("line1\n");
+
+		start(true, 100, null, "access.log.*");
+
+		write("line2\n");
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 1);
+		Assert.assertEquals(List.of("line2"), lines);
+	}
+
+	@Test
+	public void resumesFromCheckpointedArchive() throws IOException {
+
+		final ReaderCheckpointStore checkpointStore = new ReaderCheckpointStore(folder.getRoot().toPath().resolve("reader.checkpoint"));
+
+		archive("access.log.3.gz", "line1\n", 1000);
+		final Path checkpointed = archive("access.log.2.gz", "line2\nline3\n", 2000);
+		archive("access.log.1", "line4\n", 3000);
+		write("line5\n");
+
+		//line2 had been delivered before the outage.
+		checkpointStore.save(new ReaderCheckpoint(fileKey(checkpointed), 6, 2));
+
+		start(true, 100, checkpointStore, "access.log.*");
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 3);
+
+		Assert.assertEquals(List.of("line3", "line4", "line5"), lines);
+		Assert.assertEquals(List.of(3L, 4L, 5L), seqIds);
+	}
+
+	@Test
+	public void checkpointsOnlyHandledBatches() throws IOException {
+
+		final ReaderCheckpointStore checkpointStore = new ReaderCheckpointStore(folder.getRoot().toPath().resolve("reader.checkpoint"));
+		holdFirstSeqId = 3;
+
+		write("line1\nline2\nline3\nline4\nline5\n");
+
+		start(false, 2, checkpointStore);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 5);
+
+		//the second batch is still being handled, so the checkpoint stops before it even if the third one has been handled.
+		await().atMost(Duration.ofSeconds(5)).until(() -> checkpointStore.load().isPresent());
+		Assert.assertEquals(12, checkpointStore.load().get().getOffset());
+		Assert.assertEquals(2, checkpointStore.load().get().getSeqId());
+
+		held.complete(null);
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> checkpointStore.load().get().getSeqId() == 5);
+		Assert.assertEquals(30, checkpointStore.load().get().getOffset());
+	}
+
+	@Test
+	public void stopsWhenABatchCouldNotBeHandled() throws IOException, InterruptedException {
+
+		final ReaderCheckpointStore checkpointStore = new ReaderCheckpointStore(folder.getRoot().toPath().resolve("reader.checkpoint"));
+		failFirstSeqId = 3;
+
+		write("line1\nline2\nline3\nline4\nline5\n");
+
+		start(false, 2, checkpointStore);
+
+		//the tailer stops by itself, checkpointing up to the failed batch.
+		thread.join(5000);
+		Assert.assertFalse(thread.isAlive());
+		Assert.assertEquals(12, checkpointStore.load().get().getOffset());
+		Assert.assertEquals(2, checkpointStore.load().get().getSeqId());
+	}
+
+	@Test
+	public void watchWakesUpOnChanges() throws IOException, InterruptedException {
+
+		//the safety poll is longer than the test, so the line can only be picked up on the file change.
+		tailer = ChannelTailer.builder()
+				.path(file)
+				.listener(new CollectingListener())
+				.delay(1)
+				.end(true)
+				.bufferSize(16)
+				.batchSize(100)
+				.watch(true)
+				.watchPoll(60_000)
+				.build();
+		thread = new Thread(tailer);
+		thread.start();
+		await().atMost(Duration.ofSeconds(5)).until(() -> initialized);
+
+		write("line1\n");
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> lines.size() == 1);
+		Assert.assertEquals(List.of("line1"), lines);
+
+		//stopping wakes up the waiting tailer.
+		tailer.stop();
+		thread.join(5000);
+		Assert.assertFalse(thread.isAlive());
+	}
+
+	private Path archive(String name, String content, long lastModified) throws IOException {
+		final Path archive = folder.getRoot().toPath().resolve(name);
+		try (OutputStream output = name.endsWith(".gz") ? new GZIPOutputStream(Files.newOutputStream(archive)) : Files.newOutputStream(archive)) {
+			output.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+		Files.setLastModifiedTime(archive, FileTime.fromMillis(lastModified));
+		return archive;
+	}
+
+	private static String fileKey(Path path) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		return Objects.toString(attributes.fileKey(), attributes.creationTime().toString());
+	}
+
+	private void start(boolean end, int batchSize) {
+		start(end, batchSize, null);
+	}
+
+	private void start(boolean end, int batchSize, ReaderCheckpointStore checkpointStore) {
+		start(end, batchSize, checkpointStore, null);
+	}
+
+	private void start(boolean end, int batchSize, ReaderCheckpointStore checkpointStore, String archivePattern) {
+		start(end, batchSize, checkpointStore, archivePattern, 0);
+	}
+
+	private void start(boolean end, int batchSize, ReaderCheckpointStore checkpointStore, String archivePattern, long rotationGrace) {
+		tailer = ChannelTailer.builder()
+				.path(file)
+				.listener(new CollectingListener())
+				.delay(1)
+				.end(end)
+				.bufferSize(16)
+				.batchSize(batchSize)
+				.checkpointStore(checkpointStore)
+				.checkpointInterval(1000)
+				.archivePattern(archivePattern)
+				.rotationGrace(rotationGrace)
+				.build();
+		thread = new Thread(tailer);
+		thread.start();
+		await().atMost(Duration.ofSeconds(5)).until(() -> initialized);
+	}
+
+	private void write(String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+	}
+
+	private class CollectingListener implements ChannelTailerListener {
+
+		@Override
+		public void init(ChannelTailer tailer) {
+			initialized = true;
+		}
+
+		@Override
+		public void fileNotFound() {
+		}
+
+		@Override
+		public void fileRotated() {
+		}
+
+		@Override
+		public void handle(List<String> batch, long firstSeqId, CompletableFuture<Void> handled) {
+			batches.add(List.copyOf(batch));
+			lines.addAll(batch);
+			for (int i = 0; i < batch.size(); i++) {
+				seqIds.add(firstSeqId + i);
+			}
+			if (handled != null) {
+				if (firstSeqId == holdFirstSeqId) {
+					held = handled;
+				} else if (firstSeqId == failFirstSeqId) {
+					handled.completeExceptionally(new IllegalStateException("failed batch"));
+				} else {
+					handled.complete(null);
+				}
+			}
+		}
+
+		@Override
+		public void handle(Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
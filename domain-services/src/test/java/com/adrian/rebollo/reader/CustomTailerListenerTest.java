@@ -2,7 +2,9 @@ package com.adrian.rebollo.reader;
 
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -10,9 +12,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
-import com.adrian.rebollo.api.InternalDispatcher;
-import com.adrian.rebollo.model.AccessLogLine;
-import com.adrian.rebollo.parser.AccessLogLineParser;
+import com.adrian.rebollo.parser.AccessLogLineParsingStage;
 
 @RunWith(MockitoJUnitRunner.class)
 public class CustomTailerListenerTest {
@@ -20,25 +20,30 @@ public class CustomTailerListenerTest {
 	private CustomTailerListener customTailerListener;
 
 	@Mock
-	private AccessLogLineParser accessLogLineParser;
-	@Mock
-	private InternalDispatcher internalDispatcher;
+	private AccessLogLineParsingStage accessLogLineParsingStage;
 
 	@Before
 	public void init() {
-		customTailerListener = new CustomTailerListener(accessLogLineParser, internalDispatcher);
+		customTailerListener = new CustomTailerListener(accessLogLineParsingStage);
 	}
 
 	@Test
 	public void testCalls() {
 		final String line = "whatever";
-		final AccessLogLine parsed = AccessLogLine.builder().build();
-
-		when(accessLogLineParser.apply(line)).thenReturn(parsed);
 
 		customTailerListener.handle(line);
 
-		verify(accessLogLineParser).apply(eq(line));
-		verify(internalDispatcher).dispatch(eq(parsed));
+		verify(accessLogLineParsingStage).submit(eq(line));
+	}
+
+	@Test
+	public void testBatchCalls() {
+		final List<String> lines = List.of("invalid", "valid");
+
+		final CompletableFuture<Void> handled = new CompletableFuture<>();
+
+		customTailerListener.handle(lines, 7, handled);
+
+		verify(accessLogLineParsingStage).submit(eq(lines), eq(7L), eq(handled));
 	}
 }
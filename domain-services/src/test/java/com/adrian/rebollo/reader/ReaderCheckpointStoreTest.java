@@ -0,0 +1,48 @@
+package com.adrian.rebollo.reader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReaderCheckpointStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void emptyWhenNoCheckpoint() {
+
+		final ReaderCheckpointStore checkpointStore = new ReaderCheckpointStore(folder.getRoot().toPath().resolve("reader.checkpoint"));
+
+		Assert.assertEquals(Optional.empty(), checkpointStore.load());
+	}
+
+	@Test
+	public void savesAndLoads() {
+
+		final Path path = folder.getRoot().toPath().resolve("checkpoint").resolve("reader.checkpoint");
+		final ReaderCheckpointStore checkpointStore = new ReaderCheckpointStore(path);
+
+		checkpointStore.save(new ReaderCheckpoint("(dev=803,ino=1234)", 100, 3));
+		checkpointStore.save(new ReaderCheckpoint("(dev=803,ino=1234)", 250, 7));
+
+		Assert.assertEquals(Optional.of(new ReaderCheckpoint("(dev=803,ino=1234)", 250, 7)), checkpointStore.load());
+		Assert.assertFalse(Files.exists(path.resolveSibling("reader.checkpoint.tmp")));
+	}
+
+	@Test
+	public void emptyWhenCorrupted() throws IOException {
+
+		final Path path = folder.newFile("reader.checkpoint").toPath();
+		Files.write(path, "offset=not-a-number".getBytes(StandardCharsets.UTF_8));
+
+		Assert.assertEquals(Optional.empty(), new ReaderCheckpointStore(path).load());
+	}
+}
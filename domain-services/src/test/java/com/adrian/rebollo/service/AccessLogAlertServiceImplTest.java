@@ -1,6 +1,7 @@
 package com.adrian.rebollo.service;
 
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -23,6 +24,7 @@ import com.adrian.rebollo.api.InternalDispatcher;
 import com.adrian.rebollo.model.AlertType;
 import com.adrian.rebollo.model.AccessLogAlert;
 import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.HyperLogLog;
 
 @RunWith(MockitoJUnitRunner.class)
 public class AccessLogAlertServiceImplTest {
@@ -77,6 +79,24 @@ public class AccessLogAlertServiceImplTest {
 		Assert.assertEquals(AlertType.NO_ALERT, alertCaptor.getValue().getType());
 	}
 
+	@Test
+	public void alertCountsDistinctOfTheTimeWindow() {
+
+		final HyperLogLog firstHosts = new HyperLogLog();
+		final HyperLogLog secondHosts = new HyperLogLog();
+		IntStream.range(0, 50).forEach(i -> firstHosts.add("10.0.0." + i));
+		IntStream.range(25, 75).forEach(i -> secondHosts.add("10.0.0." + i));
+
+		httpAccessLogAlertService.handle(new AccessLogStats().setHostsSketch(firstHosts));
+		httpAccessLogAlertService.handle(new AccessLogStats().setHostsSketch(secondHosts));
+
+		verify(internalDispatcher, times(2)).dispatch(alertCaptor.capture());
+
+		Assert.assertEquals(50, alertCaptor.getAllValues().get(0).getDistinctHosts());
+		Assert.assertEquals(75, alertCaptor.getAllValues().get(1).getDistinctHosts());
+		Assert.assertEquals(0, alertCaptor.getAllValues().get(1).getDistinctUsers());
+	}
+
 	@Test
 	public void alertIsBuilt() {
 
@@ -0,0 +1,219 @@
+package com.adrian.rebollo.service;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.adrian.rebollo.api.ExternalDispatcherObserver;
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.AlertType;
+import com.adrian.rebollo.model.LogInfo;
+import com.adrian.rebollo.parser.AccessLogDateTimeDecoder;
+import com.adrian.rebollo.parser.AccessLogLineScanner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AccessLogBackfillServiceImplTest {
+
+	private AccessLogBackfillServiceImpl accessLogBackfillService;
+
+	@Mock
+	private ExternalDispatcherObserver externalDispatcherObserver;
+
+	@Captor
+	private ArgumentCaptor<LogInfo> logInfoCaptor;
+
+	private Path file;
+
+	@Before
+	public void init() throws IOException {
+
+		accessLogBackfillService = new AccessLogBackfillServiceImpl(new AccessLogLineScanner(new AccessLogDateTimeDecoder()),
+				new AccessLogStatsComponent(new StringDictionary(100)), externalDispatcherObserver);
+
+		//small chunks, so the file is split into many of them, and the windows of consecutive chunks overlap.
+		ReflectionTestUtils.setField(accessLogBackfillService, "chunkSize", 512);
+		ReflectionTestUtils.setField(accessLogBackfillService, "parallelism", 4);
+		ReflectionTestUtils.setField(accessLogBackfillService, "windowSize", 10_000L);
+		ReflectionTestUtils.setField(accessLogBackfillService, "alertTimeWindow", 20);
+		ReflectionTestUtils.setField(accessLogBackfillService, "threshold", 5);
+		ReflectionTestUtils.setField(accessLogBackfillService, "allowedLateness", 60_000L);
+
+		file = Files.createTempFile("backfill", ".log");
+	}
+
+	@After
+	public void clean() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void backfillDispatchesEveryWindowInOrder() throws IOException {
+
+		final StringBuilder log = new StringBuilder();
+		//first window: 200 requests, second window: nothing, third and fourth windows: 10 requests.
+		for (int line = 0; line < 200; line++) {
+			log.append(line(line % 10));
+		}
+		for (int line = 0; line < 10; line++) {
+			log.append(line(20 + line));
+		}
+		log.append("invalid line\n");
+		for (int line = 0; line < 10; line++) {
+			log.append(line(30 + line));
+		}
+		Files.writeString(file, log);
+
+		Assert.assertEquals(221, accessLogBackfillService.backfill(file));
+
+		verify(externalDispatcherObserver, times(8)).notify(logInfoCaptor.capture());
+
+		final List<AccessLogStats> stats = logInfoCaptor.getAllValues().stream()
+				.filter(AccessLogStats.class::isInstance).map(AccessLogStats.class::cast).collect(Collectors.toList());
+		final List<AccessLogAlert> alerts = logInfoCaptor.getAllValues().stream()
+				.filter(AccessLogAlert.class::isInstance).map(AccessLogAlert.class::cast).collect(Collectors.toList());
+
+		Assert.assertEquals(List.of(200L, 0L, 10L, 10L), stats.stream().map(accessLogStats -> accessLogStats.getRequests().get()).collect(Collectors.toList()));
+		for (int window = 0; window < 4; window++) {
+			Assert.assertEquals(stats.get(0).getStart().plusSeconds(window * 10), stats.get(window).getStart());
+			Assert.assertEquals(stats.get(window).getStart().plusSeconds(10), stats.get(window).getEnd());
+			Assert.assertEquals(stats.get(window).getEnd(), alerts.get(window).getAlertTime());
+		}
+		Assert.assertEquals(200, stats.get(0).getTopVisitsByHost().get("127.0.0.1").get());
+
+		//alerts are evaluated over the stats of the last 20 seconds.
+		Assert.assertEquals(List.of(AlertType.HIGH_TRAFFIC, AlertType.HIGH_TRAFFIC, AlertType.RECOVER, AlertType.NO_ALERT),
+				alerts.stream().map(AccessLogAlert::getType).collect(Collectors.toList()));
+		Assert.assertEquals(10.0, alerts.get(0).getRequestsSecond(), 0.0);
+	}
+
+	@Test
+	public void backfillSkipsTheGapsOfOutlierLines() throws IOException {
+
+		final StringBuilder log = new StringBuilder();
+		for (int line = 0; line < 200; line++) {
+			log.append(line(line % 10));
+			if (line == 100) {
+				log.append("127.0.0.1 - frank [01/Jan/1970:00:00:01 +0000] \"GET /api/user HTTP/1.0\" 200 123\n");
+				log.append("127.0.0.1 - frank [01/Jan/2030:00:00:01 +0000] \"GET /api/user HTTP/1.0\" 200 123\n");
+			}
+		}
+		for (int line = 0; line < 10; line++) {
+			log.append(line(20 + line));
+		}
+		Files.writeString(file, log);
+
+		Assert.assertEquals(212, accessLogBackfillService.backfill(file));
+
+		//every gap longer than the alert time window (2 windows) is skipped.
+		verify(externalDispatcherObserver, times(18)).notify(logInfoCaptor.capture());
+
+		final List<AccessLogStats> stats = logInfoCaptor.getAllValues().stream()
+				.filter(AccessLogStats.class::isInstance).map(AccessLogStats.class::cast).collect(Collectors.toList());
+
+		Assert.assertEquals(List.of(1L, 0L, 0L, 200L, 0L, 10L, 0L, 0L, 1L), stats.stream().map(accessLogStats -> accessLogStats.getRequests().get()).collect(Collectors.toList()));
+		Assert.assertEquals(1970, stats.get(0).getStart().getYear());
+		Assert.assertEquals(2030, stats.get(8).getStart().getYear());
+	}
+
+	@Test
+	public void backfillWithSubSecondWindows() throws IOException {
+
+		ReflectionTestUtils.setField(accessLogBackfillService, "windowSize", 500L);
+		ReflectionTestUtils.setField(accessLogBackfillService, "alertTimeWindow", 1);
+
+		final StringBuilder log = new StringBuilder();
+		for (int line = 0; line < 10; line++) {
+			log.append(line(line % 2));
+		}
+		Files.writeString(file, log);
+
+		Assert.assertEquals(10, accessLogBackfillService.backfill(file));
+
+		//second 0, an empty half second, and second 1.
+		verify(externalDispatcherObserver, times(6)).notify(logInfoCaptor.capture());
+
+		final List<AccessLogStats> stats = logInfoCaptor.getAllValues().stream()
+				.filter(AccessLogStats.class::isInstance).map(AccessLogStats.class::cast).collect(Collectors.toList());
+
+		Assert.assertEquals(List.of(5L, 0L, 5L), stats.stream().map(accessLogStats -> accessLogStats.getRequests().get()).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void backfillCountsTheLinesOfNotifiedWindowsAsLate() throws IOException {
+
+		ReflectionTestUtils.setField(accessLogBackfillService, "allowedLateness", 0L);
+
+		final StringBuilder log = new StringBuilder();
+		for (int line = 0; line < 50; line++) {
+			log.append(line(line % 10));
+		}
+		for (int line = 0; line < 50; line++) {
+			log.append(line(20 + line % 10));
+		}
+		for (int line = 0; line < 50; line++) {
+			log.append(line(40 + line % 10));
+			if (line == 25) {
+				log.append(line(1));
+			}
+		}
+		Files.writeString(file, log);
+
+		Assert.assertEquals(151, accessLogBackfillService.backfill(file));
+
+		verify(externalDispatcherObserver, times(10)).notify(logInfoCaptor.capture());
+
+		final List<AccessLogStats> stats = logInfoCaptor.getAllValues().stream()
+				.filter(AccessLogStats.class::isInstance).map(AccessLogStats.class::cast).collect(Collectors.toList());
+
+		Assert.assertEquals(List.of(50L, 0L, 50L, 0L, 50L), stats.stream().map(accessLogStats -> accessLogStats.getRequests().get()).collect(Collectors.toList()));
+		Assert.assertEquals(1, stats.stream().mapToLong(AccessLogStats::getLateRequests).sum());
+	}
+
+	@Test
+	public void chunksEndAtLineFeeds() throws IOException {
+
+		final StringBuilder log = new StringBuilder();
+		for (int line = 0; line < 100; line++) {
+			log.append(line(line % 10));
+		}
+		Files.writeString(file, log);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final List<AccessLogBackfillServiceImpl.Chunk> chunks = accessLogBackfillService.split(channel);
+
+			Assert.assertTrue(chunks.size() > 1);
+			Assert.assertEquals(0, chunks.get(0).getStart());
+			Assert.assertEquals(channel.size(), chunks.get(chunks.size() - 1).getEnd());
+
+			final byte[] bytes = log.toString().getBytes(StandardCharsets.UTF_8);
+			for (int chunk = 1; chunk < chunks.size(); chunk++) {
+				Assert.assertEquals(chunks.get(chunk - 1).getEnd(), chunks.get(chunk).getStart());
+				Assert.assertEquals('\n', bytes[(int) chunks.get(chunk).getStart() - 1]);
+			}
+		}
+	}
+
+	private static String line(int second) {
+		return String.format("127.0.0.1 - frank [09/May/2018:16:00:%02d +0000] \"GET /api/user HTTP/1.0\" 200 123\n", second);
+	}
+}
@@ -0,0 +1,117 @@
+package com.adrian.rebollo.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.RollupResolution;
+
+public class AccessLogRollupServiceImplTest {
+
+	private final AccessLogRollupServiceImpl accessLogRollupService = new AccessLogRollupServiceImpl();
+
+	private final LocalDateTime midnight = LocalDateTime.of(2020, 4, 17, 0, 0);
+
+	@Before
+	public void init() {
+		ReflectionTestUtils.setField(accessLogRollupService, "minutes", 3);
+		ReflectionTestUtils.setField(accessLogRollupService, "hours", 2);
+		ReflectionTestUtils.setField(accessLogRollupService, "days", 2);
+		accessLogRollupService.init();
+	}
+
+	@Test
+	public void mergesWindowsOfTheSameMinute() {
+
+		for (int second = 0; second < 60; second += 10) {
+			accessLogRollupService.handle(stats(midnight.plusSeconds(second), 10, "127.0.0.1"));
+		}
+
+		final List<AccessLogStats> minutes = accessLogRollupService.getRollups(RollupResolution.MINUTE);
+
+		Assert.assertEquals(1, minutes.size());
+		Assert.assertEquals(60, minutes.get(0).getRequests().get());
+		Assert.assertEquals(midnight, minutes.get(0).getStart());
+		Assert.assertEquals(midnight.plusSeconds(60), minutes.get(0).getEnd());
+		Assert.assertEquals(60, minutes.get(0).getTopVisitsByHost().get("127.0.0.1").get());
+		Assert.assertEquals(1, minutes.get(0).getDistinctHosts());
+		Assert.assertEquals(600, minutes.get(0).getContentSize().getMax());
+	}
+
+	@Test
+	public void ringReplacesOldestRollups() {
+
+		for (int minute = 0; minute < 5; minute++) {
+			accessLogRollupService.handle(stats(midnight.plusMinutes(minute), 1, "10.0.0." + minute));
+		}
+
+		final List<AccessLogStats> minutes = accessLogRollupService.getRollups(RollupResolution.MINUTE);
+
+		Assert.assertEquals(3, minutes.size());
+		Assert.assertEquals(midnight.plusMinutes(2), minutes.get(0).getStart());
+		Assert.assertEquals(midnight.plusMinutes(4), minutes.get(2).getStart());
+
+		final List<AccessLogStats> hours = accessLogRollupService.getRollups(RollupResolution.HOUR);
+
+		Assert.assertEquals(1, hours.size());
+		Assert.assertEquals(5, hours.get(0).getRequests().get());
+		Assert.assertEquals(5, hours.get(0).getDistinctHosts());
+		Assert.assertEquals(5, hours.get(0).getTopVisitsByHost().size());
+	}
+
+	@Test
+	public void dropsWindowsOlderThanTheRing() {
+
+		accessLogRollupService.handle(stats(midnight.plusMinutes(3), 1, "10.0.0.3"));
+		//same slot as minute 3, it must not replace it.
+		accessLogRollupService.handle(stats(midnight, 2, "10.0.0.0"));
+		//late, but still inside the ring.
+		accessLogRollupService.handle(stats(midnight.plusMinutes(2), 4, "10.0.0.2"));
+
+		final List<AccessLogStats> minutes = accessLogRollupService.getRollups(RollupResolution.MINUTE);
+
+		Assert.assertEquals(2, minutes.size());
+		Assert.assertEquals(midnight.plusMinutes(2), minutes.get(0).getStart());
+		Assert.assertEquals(4, minutes.get(0).getRequests().get());
+		Assert.assertEquals(midnight.plusMinutes(3), minutes.get(1).getStart());
+		Assert.assertEquals(1, minutes.get(1).getRequests().get());
+		Assert.assertEquals(1, accessLogRollupService.getDroppedWindows(RollupResolution.MINUTE));
+
+		//the hour and day rings still keep the window.
+		Assert.assertEquals(7, accessLogRollupService.getRollups(RollupResolution.HOUR).get(0).getRequests().get());
+		Assert.assertEquals(0, accessLogRollupService.getDroppedWindows(RollupResolution.HOUR));
+	}
+
+	@Test
+	public void topIsLimitedTo10() {
+
+		for (int host = 0; host < 20; host++) {
+			accessLogRollupService.handle(stats(midnight.plusHours(host % 3), host + 1, "10.0.0." + host));
+		}
+
+		final List<AccessLogStats> days = accessLogRollupService.getRollups(RollupResolution.DAY);
+
+		Assert.assertEquals(1, days.size());
+		Assert.assertEquals(10, days.get(0).getTopVisitsByHost().size());
+		Assert.assertEquals(20, days.get(0).getTopVisitsByHost().values().iterator().next().get());
+		Assert.assertEquals(2, accessLogRollupService.getRollups(RollupResolution.HOUR).size());
+	}
+
+	private static AccessLogStats stats(LocalDateTime start, long requests, String host) {
+		final AccessLogStats accessLogStats = AccessLogStats.with(start, start.plusSeconds(10))
+				.setRequests(new AtomicLong(requests))
+				.setTotalContent(new AtomicLong(requests * 600));
+		accessLogStats.getTopVisitsByHost().put(host, new AtomicLong(requests));
+		accessLogStats.getHostsSketch().add(host);
+		for (int request = 0; request < requests; request++) {
+			accessLogStats.getContentSizeHistogram().record(600);
+		}
+		return accessLogStats;
+	}
+}
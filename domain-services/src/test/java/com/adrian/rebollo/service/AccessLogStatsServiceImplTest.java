@@ -19,6 +19,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -36,6 +37,8 @@ public class AccessLogStatsServiceImplTest {
 	private InternalDispatcher internalDispatcher;
 	@Mock
 	private AccessLogStatsComponent accessLogStatsComponent;
+	@Spy
+	private StringDictionary stringDictionary = new StringDictionary(100);
 
 	@Captor
 	private ArgumentCaptor<AccessLogStats> statsCaptor;
@@ -0,0 +1,142 @@
+package com.adrian.rebollo.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.HttpMethod;
+
+public class EventTimeStatsAggregatorTest {
+
+	private final EventTimeStatsAggregator eventTimeStatsAggregator = new EventTimeStatsAggregator(new AccessLogStatsComponent(new StringDictionary(100)));
+
+	private final LocalDateTime logged = LocalDateTime.of(2020, 4, 17, 12, 0);
+	private final LocalDateTime now = LocalDateTime.now();
+
+	@Before
+	public void init() {
+		ReflectionTestUtils.setField(eventTimeStatsAggregator, "windowSize", 10_000L);
+		ReflectionTestUtils.setField(eventTimeStatsAggregator, "allowedLateness", 5_000L);
+	}
+
+	@Test
+	public void catchUpDispatchesEveryWindow() {
+
+		//a minute of logs read at once: 10 lines per second.
+		for (int tenth = 0; tenth < 600; tenth++) {
+			eventTimeStatsAggregator.add(line(logged.plusNanos(tenth * 100_000_000L)));
+		}
+
+		final List<AccessLogStats> stats = eventTimeStatsAggregator.close(now, now);
+
+		//the last window is open until the watermark passes its end plus the allowed lateness.
+		Assert.assertEquals(5, stats.size());
+		for (int window = 0; window < 5; window++) {
+			Assert.assertEquals(100, stats.get(window).getRequests().get());
+			Assert.assertEquals(logged.plusSeconds(window * 10), stats.get(window).getStart());
+			Assert.assertEquals(logged.plusSeconds(window * 10 + 10), stats.get(window).getEnd());
+		}
+
+		//next tick without lines flushes the last window.
+		final List<AccessLogStats> flushed = eventTimeStatsAggregator.close(now, now);
+		Assert.assertEquals(1, flushed.size());
+		Assert.assertEquals(logged.plusSeconds(50), flushed.get(0).getStart());
+
+		//then, empty stats keep the scheduler pace.
+		final List<AccessLogStats> empty = eventTimeStatsAggregator.close(now, now.plusSeconds(10));
+		Assert.assertEquals(1, empty.size());
+		Assert.assertEquals(0, empty.get(0).getRequests().get());
+		Assert.assertEquals(now, empty.get(0).getStart());
+	}
+
+	@Test
+	public void allowedLatenessKeepsWindowOpen() {
+
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(1)));
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(12)));
+		//4 seconds late, but inside the allowed lateness.
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(8)));
+
+		Assert.assertTrue(eventTimeStatsAggregator.close(now, now).isEmpty());
+
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(16)));
+
+		final List<AccessLogStats> stats = eventTimeStatsAggregator.close(now, now);
+		Assert.assertEquals(1, stats.size());
+		Assert.assertEquals(2, stats.get(0).getRequests().get());
+		Assert.assertEquals(0, stats.get(0).getLateRequests());
+	}
+
+	@Test
+	public void futureLineDoesNotCloseTheWindows() {
+
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(1)));
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(12)));
+		//logged by a clock skewed upstream.
+		eventTimeStatsAggregator.add(line(now.plusDays(1)));
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(8)));
+
+		Assert.assertTrue(eventTimeStatsAggregator.close(now, now).isEmpty());
+
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(16)));
+
+		final List<AccessLogStats> stats = eventTimeStatsAggregator.close(now, now);
+		Assert.assertEquals(1, stats.size());
+		Assert.assertEquals(logged, stats.get(0).getStart());
+		Assert.assertEquals(2, stats.get(0).getRequests().get());
+		Assert.assertEquals(0, stats.get(0).getLateRequests());
+	}
+
+	@Test
+	public void gapIsConfirmedBySecondLine() {
+
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(1)));
+		eventTimeStatsAggregator.add(line(logged.plusMinutes(10)));
+
+		Assert.assertTrue(eventTimeStatsAggregator.close(now, now).isEmpty());
+
+		eventTimeStatsAggregator.add(line(logged.plusMinutes(10).plusSeconds(1)));
+
+		final List<AccessLogStats> stats = eventTimeStatsAggregator.close(now, now);
+		Assert.assertEquals(1, stats.size());
+		Assert.assertEquals(logged, stats.get(0).getStart());
+	}
+
+	@Test
+	public void lateLinesAreCounted() {
+
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(1)));
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(16)));
+		Assert.assertEquals(1, eventTimeStatsAggregator.close(now, now).size());
+
+		//the first window is already closed.
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(2)));
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(3)));
+		eventTimeStatsAggregator.add(line(logged.plusSeconds(26)));
+
+		final List<AccessLogStats> stats = eventTimeStatsAggregator.close(now, now);
+		Assert.assertEquals(1, stats.size());
+		Assert.assertEquals(logged.plusSeconds(10), stats.get(0).getStart());
+		Assert.assertEquals(1, stats.get(0).getRequests().get());
+		Assert.assertEquals(2, stats.get(0).getLateRequests());
+	}
+
+	private static AccessLogLine line(LocalDateTime dateTime) {
+		return AccessLogLine.builder()
+				.insertTime(LocalDateTime.now())
+				.dateTime(dateTime)
+				.host("127.0.0.1")
+				.user("mary")
+				.httpMethod(HttpMethod.GET)
+				.resource("/api/user")
+				.returnedStatus(200)
+				.contentSize(10)
+				.build();
+	}
+}
@@ -6,15 +6,20 @@ import java.time.temporal.ChronoUnit;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.adrian.rebollo.model.AccessLogLine;
 import com.adrian.rebollo.model.AccessLogStats;
 import com.adrian.rebollo.model.HttpMethod;
+import com.adrian.rebollo.model.Percentiles;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.AllArgsConstructor;
@@ -23,7 +28,7 @@ import lombok.NoArgsConstructor;
 
 public class LogStatsComponentTest {
 
-	private final AccessLogStatsComponent accessLogStatsComponent = new AccessLogStatsComponent();
+	private final AccessLogStatsComponent accessLogStatsComponent = new AccessLogStatsComponent(new StringDictionary(100));
 
 	@Test
 	public void testCompute() {
@@ -227,6 +232,86 @@ public class LogStatsComponentTest {
 		assertEquals(expected, accessLogStats);
 	}
 
+	@Test
+	public void testSpaceSavingTopKeepsHeavyHosts() {
+
+		final AccessLogStatsComponent spaceSavingComponent = new AccessLogStatsComponent(new StringDictionary(100));
+		ReflectionTestUtils.setField(spaceSavingComponent, "topKEngine", "space-saving");
+		ReflectionTestUtils.setField(spaceSavingComponent, "topKCapacity", 50);
+
+		final List<AccessLogLine> logs = IntStream.range(0, 10_000)
+				.mapToObj(i -> AccessLogLine.builder()
+						.insertTime(LocalDateTime.now())
+						.host(i % 2 == 0 ? "10.0.0." + (i % 20) : "192.168." + i)
+						.user("mary")
+						.httpMethod(HttpMethod.GET)
+						.resource("/api/user")
+						.returnedStatus(200)
+						.contentSize(10)
+						.build())
+				.collect(Collectors.toList());
+
+		final AccessLogStats accessLogStats = spaceSavingComponent.aggregateLogs(logs);
+
+		Assert.assertEquals(10_000, accessLogStats.getRequests().get());
+		Assert.assertEquals(10, accessLogStats.getTopVisitsByHost().size());
+		accessLogStats.getTopVisitsByHost().forEach((host, visits) -> {
+			Assert.assertTrue(host.startsWith("10.0.0."));
+			Assert.assertTrue(visits.get() >= 500 && visits.get() <= 500 + accessLogStats.getTopVisitsByHostMaxError());
+		});
+		Assert.assertTrue(accessLogStats.getTopVisitsByHostMaxError() > 0);
+		Assert.assertEquals(0, accessLogStats.getTopVisitsByUserMaxError());
+		Assert.assertEquals(0, accessLogStats.getTopVisitsSectionMaxError());
+	}
+
+	@Test
+	public void testContentSizePercentiles() {
+
+		final List<AccessLogLine> logs = IntStream.range(0, 1000)
+				.mapToObj(i -> AccessLogLine.builder()
+						.insertTime(LocalDateTime.now())
+						.host("127.0.0.1")
+						.user("mary")
+						.httpMethod(HttpMethod.GET)
+						.resource(i % 10 == 0 ? "/download/file" : "/api/user")
+						.returnedStatus(200)
+						.contentSize(i % 10 == 0 ? 5_000_000 : 10)
+						.build())
+				.collect(Collectors.toList());
+
+		final AccessLogStats accessLogStats = accessLogStatsComponent.aggregateLogs(logs);
+
+		Assert.assertEquals(5_000_000, accessLogStats.getContentSize().getMax());
+		Assert.assertEquals(10, accessLogStats.getContentSize().getP50());
+		Assert.assertEquals(5_000_000, accessLogStats.getContentSize().getP99());
+		Assert.assertEquals(Set.of("/api", "/download"), accessLogStats.getTopVisitsSectionContentSize().keySet());
+		Assert.assertEquals(new Percentiles(10, 10, 10, 10), accessLogStats.getTopVisitsSectionContentSize().get("/api"));
+		Assert.assertEquals(5_000_000, accessLogStats.getTopVisitsSectionContentSize().get("/download").getP50());
+	}
+
+	@Test
+	public void testTopStatsJsonShape() throws IOException {
+
+		final List<AccessLogLine> logs = IntStream.range(0, 30)
+				.mapToObj(i -> AccessLogLine.builder()
+						.insertTime(LocalDateTime.now())
+						.host(i < 20 ? "127.0.0.1" : "10.0.0.2")
+						.user("mary")
+						.httpMethod(HttpMethod.GET)
+						.resource("/api/user")
+						.returnedStatus(200)
+						.contentSize(10)
+						.build())
+				.collect(Collectors.toList());
+
+		final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+		final JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(accessLogStatsComponent.aggregateLogs(logs)));
+
+		//top stats are serialized as objects of key to count, ordered from max to min.
+		Assert.assertEquals("{\"127.0.0.1\":20,\"10.0.0.2\":10}", json.get("topVisitsByHost").toString());
+		Assert.assertEquals("{\"GET\":30}", json.get("topVisitsByMethod").toString());
+	}
+
 	@Data
 	@AllArgsConstructor
 	@NoArgsConstructor
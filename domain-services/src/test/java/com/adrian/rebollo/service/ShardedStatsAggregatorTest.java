@@ -0,0 +1,74 @@
+package com.adrian.rebollo.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.HttpMethod;
+
+public class ShardedStatsAggregatorTest {
+
+	private final ShardedStatsAggregator shardedStatsAggregator = new ShardedStatsAggregator(new AccessLogStatsComponent(new StringDictionary(100)));
+
+	@Test
+	public void mergesShardsOfEveryThread() throws InterruptedException {
+
+		final ExecutorService executorService = Executors.newFixedThreadPool(4);
+		final LocalDateTime now = LocalDateTime.now();
+
+		for (int thread = 0; thread < 4; thread++) {
+			final String host = "10.0.0." + thread;
+			executorService.submit(() -> {
+				for (int i = 0; i < 1000; i++) {
+					shardedStatsAggregator.add(line(now, host, i % 4 == 0 ? 500 : 200));
+				}
+			});
+		}
+		executorService.shutdown();
+		Assert.assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+		final AccessLogStats accessLogStats = shardedStatsAggregator.close(now, now).get(0);
+
+		Assert.assertEquals(4, shardedStatsAggregator.shards());
+		Assert.assertEquals(4000, accessLogStats.getRequests().get());
+		Assert.assertEquals(3000, accessLogStats.getValidRequests().get());
+		Assert.assertEquals(1000, accessLogStats.getInvalidRequests().get());
+		Assert.assertEquals(4, accessLogStats.getTopVisitsByHost().size());
+		accessLogStats.getTopVisitsByHost().values().forEach(visits -> Assert.assertEquals(1000, visits.get()));
+		Assert.assertEquals(4000, accessLogStats.getTopVisitsSection().get("/api").get());
+	}
+
+	@Test
+	public void closeResetsShards() {
+
+		final LocalDateTime now = LocalDateTime.now();
+		shardedStatsAggregator.add(line(now, "10.0.0.1", 200));
+
+		Assert.assertEquals(1, shardedStatsAggregator.close(now, now).get(0).getRequests().get());
+		Assert.assertEquals(0, shardedStatsAggregator.close(now, now).get(0).getRequests().get());
+
+		shardedStatsAggregator.add(line(now, "10.0.0.1", 200));
+
+		Assert.assertEquals(1, shardedStatsAggregator.shards());
+		Assert.assertEquals(1, shardedStatsAggregator.close(now, now).get(0).getRequests().get());
+	}
+
+	private static AccessLogLine line(LocalDateTime insertTime, String host, int status) {
+		return AccessLogLine.builder()
+				.insertTime(insertTime)
+				.host(host)
+				.identifier("NO_IDENTIFIER")
+				.user("mary")
+				.httpMethod(HttpMethod.GET)
+				.resource("/api/user")
+				.returnedStatus(status)
+				.contentSize(100)
+				.build();
+	}
+}
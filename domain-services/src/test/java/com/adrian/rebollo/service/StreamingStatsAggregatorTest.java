@@ -0,0 +1,88 @@
+package com.adrian.rebollo.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.HttpMethod;
+
+public class StreamingStatsAggregatorTest {
+
+	private final AccessLogStatsComponent accessLogStatsComponent = new AccessLogStatsComponent(new StringDictionary(100));
+	private final StreamingStatsAggregator streamingStatsAggregator = new StreamingStatsAggregator(accessLogStatsComponent);
+
+	@Test
+	public void sameStatsThanBuffered() {
+
+		final List<AccessLogLine> lines = new ArrayList<>();
+		final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+		for (int i = 0; i < 500; i++) {
+			lines.add(line(now.plus(i, ChronoUnit.MILLIS), "10.0.0." + (i % 13), "/section" + (i % 17) + "/resource", i % 2 == 0 ? 200 : 404));
+		}
+
+		lines.forEach(streamingStatsAggregator::add);
+		final AccessLogStats streamed = streamingStatsAggregator.close(now, now).get(0);
+		final AccessLogStats buffered = accessLogStatsComponent.aggregateLogs(lines);
+
+		Assert.assertEquals(buffered.getRequests().get(), streamed.getRequests().get());
+		Assert.assertEquals(buffered.getValidRequests().get(), streamed.getValidRequests().get());
+		Assert.assertEquals(buffered.getInvalidRequests().get(), streamed.getInvalidRequests().get());
+		Assert.assertEquals(buffered.getTotalContent().get(), streamed.getTotalContent().get());
+		Assert.assertEquals(buffered.getStart(), streamed.getStart());
+		Assert.assertEquals(buffered.getEnd(), streamed.getEnd());
+		Assert.assertEquals(buffered.getTopVisitsByHost().keySet(), streamed.getTopVisitsByHost().keySet());
+		Assert.assertEquals(buffered.getTopVisitsSection().keySet(), streamed.getTopVisitsSection().keySet());
+		Assert.assertEquals(now, streamed.getStart());
+		Assert.assertEquals(now.plus(499, ChronoUnit.MILLIS), streamed.getEnd());
+	}
+
+	@Test
+	public void closeStartsNewWindow() {
+
+		final LocalDateTime now = LocalDateTime.now();
+		streamingStatsAggregator.add(line(now, "10.0.0.1", "/api/user", 200));
+
+		Assert.assertEquals(1, streamingStatsAggregator.close(now, now).get(0).getRequests().get());
+
+		final LocalDateTime end = now.plus(10, ChronoUnit.SECONDS);
+		final AccessLogStats empty = streamingStatsAggregator.close(now, end).get(0);
+
+		Assert.assertEquals(0, empty.getRequests().get());
+		Assert.assertEquals(now, empty.getStart());
+		Assert.assertEquals(end, empty.getEnd());
+	}
+
+	@Test
+	public void skipsNotWellFormattedResource() {
+
+		final LocalDateTime now = LocalDateTime.now();
+		streamingStatsAggregator.add(line(now, "10.0.0.1", "no-section", 200));
+		streamingStatsAggregator.add(line(now, "10.0.0.1", "/api/user", 500));
+
+		final AccessLogStats accessLogStats = streamingStatsAggregator.close(now, now).get(0);
+
+		Assert.assertEquals(1, accessLogStats.getRequests().get());
+		Assert.assertEquals(0, accessLogStats.getValidRequests().get());
+		Assert.assertEquals(1, accessLogStats.getInvalidRequests().get());
+		Assert.assertEquals(1, accessLogStats.getTopVisitsByHost().get("10.0.0.1").get());
+	}
+
+	private static AccessLogLine line(LocalDateTime insertTime, String host, String resource, int status) {
+		return AccessLogLine.builder()
+				.insertTime(insertTime)
+				.host(host)
+				.identifier("NO_IDENTIFIER")
+				.user("mary")
+				.httpMethod(HttpMethod.GET)
+				.resource(resource)
+				.returnedStatus(status)
+				.contentSize(100)
+				.build();
+	}
+}
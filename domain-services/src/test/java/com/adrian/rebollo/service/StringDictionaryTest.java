@@ -0,0 +1,51 @@
+package com.adrian.rebollo.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.adrian.rebollo.model.AccessLogLine;
+
+public class StringDictionaryTest {
+
+	private final StringDictionary stringDictionary = new StringDictionary(2);
+
+	@Test
+	public void testCanonical() {
+
+		final String first = new String("127.0.0.1");
+		final String second = new String("127.0.0.1");
+
+		Assert.assertSame(first, stringDictionary.canonical(first));
+		Assert.assertSame(first, stringDictionary.canonical(second));
+		Assert.assertNull(stringDictionary.canonical((String) null));
+		Assert.assertEquals(1, stringDictionary.stats().hitCount());
+	}
+
+	@Test
+	public void testEviction() {
+
+		final String first = new String("/api");
+
+		stringDictionary.canonical(first);
+		stringDictionary.canonical("/report");
+		stringDictionary.canonical("/shop");
+
+		Assert.assertTrue(stringDictionary.size() <= 2);
+		Assert.assertTrue(stringDictionary.stats().evictionCount() >= 1);
+	}
+
+	@Test
+	public void testCanonicalLine() {
+
+		final AccessLogLine previous = new AccessLogLine().setHost(new String("10.0.0.2")).setUser(new String("mary")).setProtocol(new String("HTTP/1.0"));
+		final AccessLogLine accessLogLine = new AccessLogLine().setHost(new String("10.0.0.2")).setUser(new String("mary")).setProtocol(new String("HTTP/1.0"));
+
+		final StringDictionary dictionary = new StringDictionary(100);
+		dictionary.canonical(previous);
+		dictionary.canonical(accessLogLine);
+
+		Assert.assertSame(previous.getHost(), accessLogLine.getHost());
+		Assert.assertSame(previous.getUser(), accessLogLine.getUser());
+		Assert.assertSame(previous.getProtocol(), accessLogLine.getProtocol());
+	}
+}
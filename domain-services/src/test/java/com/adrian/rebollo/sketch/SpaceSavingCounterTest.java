@@ -0,0 +1,83 @@
+package com.adrian.rebollo.sketch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpaceSavingCounterTest {
+
+	@Test
+	public void exactWhileNotFull() {
+
+		final SpaceSavingCounter counter = new SpaceSavingCounter(10);
+		counter.increment("a");
+		counter.increment("b");
+		counter.add("a", 5);
+
+		final Map<String, Long> counts = counts(counter);
+
+		Assert.assertEquals(Map.of("a", 6L, "b", 1L), counts);
+		Assert.assertEquals(0, counter.maxError());
+	}
+
+	@Test
+	public void heavyHittersWithinErrorBound() {
+
+		final Random random = new Random(42);
+		final SpaceSavingCounter counter = new SpaceSavingCounter(100);
+		final Map<String, Long> real = new HashMap<>();
+
+		//10 heavy hosts among 100k distinct scanning hosts.
+		for (int i = 0; i < 200_000; i++) {
+			final String key = random.nextInt(4) == 0 ? "heavy" + random.nextInt(10) : "scan" + random.nextInt(100_000);
+			counter.increment(key);
+			real.merge(key, 1L, Long::sum);
+		}
+
+		final Map<String, Long> estimated = counts(counter);
+		final long maxError = counter.maxError();
+
+		Assert.assertEquals(100, counter.size());
+		Assert.assertTrue(maxError > 0);
+		Assert.assertTrue(maxError <= 200_000 / 100);
+		for (int heavy = 0; heavy < 10; heavy++) {
+			Assert.assertTrue(estimated.containsKey("heavy" + heavy));
+		}
+		estimated.forEach((key, count) -> {
+			Assert.assertTrue(count >= real.get(key));
+			Assert.assertTrue(count - real.get(key) <= maxError);
+		});
+	}
+
+	@Test
+	public void mergeAddsErrorBounds() {
+
+		final SpaceSavingCounter first = new SpaceSavingCounter(2);
+		final SpaceSavingCounter second = new SpaceSavingCounter(2);
+		first.add("a", 10);
+		first.add("b", 1);
+		first.add("c", 1);
+		second.add("a", 5);
+		second.add("d", 2);
+
+		first.merge(second);
+
+		Assert.assertEquals(2, first.size());
+		Assert.assertEquals(15, counts(first).get("a").longValue());
+		Assert.assertTrue(first.maxError() >= 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidCapacity() {
+		new SpaceSavingCounter(0);
+	}
+
+	private static Map<String, Long> counts(FrequencyCounter counter) {
+		final Map<String, Long> counts = new HashMap<>();
+		counter.forEach(counts::put);
+		return counts;
+	}
+}
@@ -0,0 +1,60 @@
+package com.adrian.rebollo.sketch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StringLongCounterMapTest {
+
+	@Test
+	public void sameCountsThanHashMap() {
+
+		final Random random = new Random(11);
+		final StringLongCounterMap counterMap = new StringLongCounterMap();
+		final Map<String, Long> expected = new HashMap<>();
+
+		for (int i = 0; i < 200_000; i++) {
+			//new String instances, so keys are found by equals and not only by identity.
+			final String key = new String("192.168." + random.nextInt(300) + "." + random.nextInt(200));
+			final long delta = 1 + random.nextInt(3);
+			Assert.assertEquals(expected.merge(key, delta, Long::sum).longValue(), counterMap.add(key, delta));
+		}
+
+		final Map<String, Long> actual = new HashMap<>();
+		counterMap.forEach(actual::put);
+
+		Assert.assertEquals(expected.size(), counterMap.size());
+		Assert.assertEquals(expected, actual);
+		expected.forEach((key, count) -> Assert.assertEquals(count.longValue(), counterMap.get(key)));
+	}
+
+	@Test
+	public void missingKeyIsZero() {
+
+		final StringLongCounterMap counterMap = new StringLongCounterMap(4);
+		counterMap.increment("GET");
+
+		Assert.assertEquals(1, counterMap.get("GET"));
+		Assert.assertEquals(0, counterMap.get("POST"));
+	}
+
+	@Test
+	public void nullKey() {
+
+		final StringLongCounterMap counterMap = new StringLongCounterMap();
+		counterMap.increment(null);
+		counterMap.add(null, 2);
+		counterMap.increment("mary");
+
+		final Map<String, Long> actual = new HashMap<>();
+		counterMap.forEach(actual::put);
+
+		Assert.assertEquals(2, counterMap.size());
+		Assert.assertEquals(3, counterMap.get(null));
+		Assert.assertEquals(3L, actual.get(null).longValue());
+		Assert.assertEquals(1L, actual.get("mary").longValue());
+	}
+}
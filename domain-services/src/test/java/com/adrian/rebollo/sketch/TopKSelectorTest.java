@@ -0,0 +1,55 @@
+package com.adrian.rebollo.sketch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TopKSelectorTest {
+
+	@Test
+	public void selectsMaxOrdered() {
+
+		final ExactFrequencyCounter counter = new ExactFrequencyCounter();
+		final List<Integer> counts = new ArrayList<>();
+		for (int i = 1; i <= 1000; i++) {
+			counts.add(i);
+		}
+		Collections.shuffle(counts);
+		counts.forEach(count -> counter.add("key" + count, count));
+
+		final Map<String, AtomicLong> top = TopKSelector.top(counter, 10);
+
+		Assert.assertEquals(List.of("key1000", "key999", "key998", "key997", "key996", "key995", "key994", "key993", "key992", "key991"),
+				new ArrayList<>(top.keySet()));
+		Assert.assertEquals(List.of(1000L, 999L, 998L, 997L, 996L, 995L, 994L, 993L, 992L, 991L),
+				top.values().stream().map(AtomicLong::get).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void lessKeysThanK() {
+
+		final TopKSelector selector = new TopKSelector(10);
+		selector.accept("a", 1);
+		selector.accept("b", 3);
+		selector.accept("c", 2);
+
+		Assert.assertEquals(List.of("b", "c", "a"), new ArrayList<>(selector.toMap().keySet()));
+		Assert.assertTrue(selector.toMap().isEmpty());
+	}
+
+	@Test
+	public void emptyCounter() {
+		Assert.assertTrue(TopKSelector.top(new ExactFrequencyCounter(), 10).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidK() {
+		new TopKSelector(0);
+	}
+}
@@ -37,8 +37,18 @@ public class AccessLogAlert extends LogInfo {
 
 	private AlertType type;
 
+	/**
+	 * estimated distinct hosts, users and resources during the alert time window.
+	 */
+	private long distinctHosts;
+
+	private long distinctUsers;
+
+	private long distinctResources;
+
 	@Override
 	public String toString() {
-		return String.format(type.getMessage(), requests, requestsSecond, alertTime, start, end);
+		return String.format(type.getMessage(), requests, requestsSecond, alertTime, start, end)
+				+ String.format(", distinct hosts = {%s}, users = {%s}, resources = {%s}", distinctHosts, distinctUsers, distinctResources);
 	}
 }
@@ -40,4 +40,18 @@ public class AccessLogLine {
 	private int returnedStatus;
 
 	private long contentSize;
+
+	private String referrer;
+
+	private String userAgent;
+
+	/**
+	 * MICROS - only available when the configured log format contains it, null otherwise.
+	 */
+	private Long requestDuration;
+
+	/**
+	 * MICROS - only available when the configured log format contains it, null otherwise.
+	 */
+	private Long upstreamDuration;
 }
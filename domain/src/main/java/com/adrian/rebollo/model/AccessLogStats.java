@@ -13,6 +13,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * DTO for all the Log Stats.
@@ -49,6 +50,11 @@ public class AccessLogStats extends LogInfo {
 
 	private AtomicLong totalContent = new AtomicLong();
 
+	/**
+	 * lines logged in an already closed window, only counted with the `event-time` aggregation.
+	 */
+	private long lateRequests;
+
 
 	// ******** TOP STATISTICS ************//
 
@@ -82,6 +88,57 @@ public class AccessLogStats extends LogInfo {
 	 */
 	private final Map<String, AtomicLong> topVisitsSection = new LinkedHashMap<>();
 
+	/**
+	 * max overestimation of the top counts when they are estimated (`service.schedulers.stats.top-k.engine`), 0 when they are exact.
+	 * the section one covers the 3 section top statistics.
+	 */
+	private long topVisitsByHostMaxError;
+
+	private long topVisitsByUserMaxError;
+
+	private long topVisitsSectionMaxError;
+
+	// ******** CONTENT SIZE STATISTICS ************//
+
+	/**
+	 * content size percentiles of all the requests, within a 6.25% relative error.
+	 */
+	private Percentiles contentSize = new Percentiles();
+
+	/**
+	 * histogram of the content size percentiles, which allows to compute the percentiles of several stats (ie: rollups).
+	 */
+	@ToString.Exclude
+	private LogHistogram contentSizeHistogram = new LogHistogram();
+
+	/**
+	 * content size percentiles of the 10 most visited sections.
+	 */
+	private final Map<String, Percentiles> topVisitsSectionContentSize = new LinkedHashMap<>();
+
+	// ******** DISTINCT STATISTICS ************//
+
+	/**
+	 * estimated distinct hosts, users and resources.
+	 */
+	private long distinctHosts;
+
+	private long distinctUsers;
+
+	private long distinctResources;
+
+	/**
+	 * sketches of the distinct counts, which allow to count the distinct values of several stats (ie: the alert time window).
+	 */
+	@ToString.Exclude
+	private HyperLogLog hostsSketch = new HyperLogLog();
+
+	@ToString.Exclude
+	private HyperLogLog usersSketch = new HyperLogLog();
+
+	@ToString.Exclude
+	private HyperLogLog resourcesSketch = new HyperLogLog();
+
 	public AccessLogStats(LocalDateTime start, LocalDateTime end) {
 		this.start = start;
 		this.end = end;
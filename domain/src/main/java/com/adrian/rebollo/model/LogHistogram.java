@@ -0,0 +1,104 @@
+package com.adrian.rebollo.model;
+
+import java.util.Arrays;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Log-bucketed (HDR-style) histogram of non-negative values: values below 16 have their own bucket,
+ * and every power of 2 above is split into 16 linear sub-buckets, so any recorded value is known within a 6.25% relative error.
+ * Recording is O(1), the buckets grow up to the highest recorded one (at most 976 for the whole long range),
+ * and histograms are mergeable by adding their buckets.
+ * Its buckets are serialized with the stats, so windows can be merged by their consumers.
+ * It is NOT thread-safe.
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+public class LogHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private long[] buckets = new long[SUB_BUCKETS * 2];
+
+	private long count;
+
+	private long max;
+
+	/**
+	 * negative values are recorded as 0.
+	 */
+	public void record(long value) {
+		value = Math.max(value, 0);
+		final int index = index(value);
+		if (index >= buckets.length) {
+			buckets = Arrays.copyOf(buckets, Math.max(index + 1, buckets.length * 2));
+		}
+		buckets[index]++;
+		count++;
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * adds the buckets of the given histogram into this one.
+	 */
+	public LogHistogram merge(LogHistogram other) {
+		if (other == null || other.buckets == null) {
+			return this;
+		}
+		if (other.buckets.length > buckets.length) {
+			buckets = Arrays.copyOf(buckets, other.buckets.length);
+		}
+		for (int index = 0; index < other.buckets.length; index++) {
+			buckets[index] += other.buckets[index];
+		}
+		count += other.count;
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	/**
+	 * @param percentile between 0 and 100.
+	 * @return the highest value of the bucket which contains the given percentile (never higher than the max), 0 when empty.
+	 */
+	public long percentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long accumulated = 0;
+		for (int index = 0; index < buckets.length; index++) {
+			accumulated += buckets[index];
+			if (accumulated >= rank) {
+				return Math.min(highestValue(index), max);
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return "LogHistogram(count=" + count + ", max=" + max + ")";
+	}
+
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long highestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		final int shift = index / SUB_BUCKETS - 1;
+		final long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
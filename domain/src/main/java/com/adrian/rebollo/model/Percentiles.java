@@ -0,0 +1,26 @@
+package com.adrian.rebollo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * percentiles of a distribution, ie: the content size of the requests.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Percentiles {
+
+	private long p50;
+
+	private long p90;
+
+	private long p99;
+
+	private long max;
+
+	public static Percentiles of(LogHistogram histogram) {
+		return new Percentiles(histogram.percentile(50), histogram.percentile(90), histogram.percentile(99), histogram.getMax());
+	}
+}
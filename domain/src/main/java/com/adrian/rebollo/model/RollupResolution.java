@@ -0,0 +1,22 @@
+package com.adrian.rebollo.model;
+
+import java.time.temporal.ChronoUnit;
+
+import lombok.Getter;
+
+/**
+ * time resolutions of the stats rollups.
+ */
+@Getter
+public enum RollupResolution {
+
+	MINUTE(ChronoUnit.MINUTES),
+	HOUR(ChronoUnit.HOURS),
+	DAY(ChronoUnit.DAYS);
+
+	private final ChronoUnit unit;
+
+	RollupResolution(ChronoUnit unit) {
+		this.unit = unit;
+	}
+}
@@ -0,0 +1,66 @@
+package com.adrian.rebollo.model.json;
+
+import static com.adrian.rebollo.model.json.JsonFields.PATTERN;
+
+import java.io.IOException;
+
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AlertType;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Streaming deserializer of an AccessLogAlert written by the {@link AccessLogAlertSerializer}, unknown fields are skipped.
+ */
+public class AccessLogAlertDeserializer extends StdDeserializer<AccessLogAlert> {
+
+	public AccessLogAlertDeserializer() {
+		super(AccessLogAlert.class);
+	}
+
+	@Override
+	public AccessLogAlert deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			return (AccessLogAlert) context.handleUnexpectedToken(AccessLogAlert.class, parser);
+		}
+
+		final AccessLogAlert accessLogAlert = new AccessLogAlert();
+		String field;
+		while ((field = JsonFields.nextField(parser)) != null) {
+			switch (field) {
+				case "requests":
+					accessLogAlert.setRequests(parser.getValueAsLong());
+					break;
+				case "requestsSecond":
+					accessLogAlert.setRequestsSecond(parser.getValueAsDouble());
+					break;
+				case "alertTime":
+					accessLogAlert.setAlertTime(JsonFields.readTime(parser, PATTERN));
+					break;
+				case "start":
+					accessLogAlert.setStart(JsonFields.readTime(parser, PATTERN));
+					break;
+				case "end":
+					accessLogAlert.setEnd(JsonFields.readTime(parser, PATTERN));
+					break;
+				case "type":
+					accessLogAlert.setType(JsonFields.readEnum(parser, AlertType.class));
+					break;
+				case "distinctHosts":
+					accessLogAlert.setDistinctHosts(parser.getValueAsLong());
+					break;
+				case "distinctUsers":
+					accessLogAlert.setDistinctUsers(parser.getValueAsLong());
+					break;
+				case "distinctResources":
+					accessLogAlert.setDistinctResources(parser.getValueAsLong());
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+		return accessLogAlert;
+	}
+}
@@ -0,0 +1,35 @@
+package com.adrian.rebollo.model.json;
+
+import static com.adrian.rebollo.model.json.JsonFields.PATTERN;
+
+import java.io.IOException;
+
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Streaming serializer of an AccessLogAlert, with the same fields and formats as its bean mapping.
+ */
+public class AccessLogAlertSerializer extends StdSerializer<AccessLogAlert> {
+
+	public AccessLogAlertSerializer() {
+		super(AccessLogAlert.class);
+	}
+
+	@Override
+	public void serialize(AccessLogAlert value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+		generator.writeStartObject(value);
+		generator.writeNumberField("requests", value.getRequests());
+		generator.writeNumberField("requestsSecond", value.getRequestsSecond());
+		JsonFields.writeTime(generator, "alertTime", value.getAlertTime(), PATTERN);
+		JsonFields.writeTime(generator, "start", value.getStart(), PATTERN);
+		JsonFields.writeTime(generator, "end", value.getEnd(), PATTERN);
+		JsonFields.writeEnum(generator, "type", value.getType());
+		generator.writeNumberField("distinctHosts", value.getDistinctHosts());
+		generator.writeNumberField("distinctUsers", value.getDistinctUsers());
+		generator.writeNumberField("distinctResources", value.getDistinctResources());
+		generator.writeEndObject();
+	}
+}
@@ -0,0 +1,85 @@
+package com.adrian.rebollo.model.json;
+
+import static com.adrian.rebollo.model.json.JsonFields.ISO;
+import static com.adrian.rebollo.model.json.JsonFields.PATTERN;
+
+import java.io.IOException;
+
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.HttpMethod;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Streaming deserializer of an AccessLogLine written by the {@link AccessLogLineSerializer}, unknown fields are skipped.
+ */
+public class AccessLogLineDeserializer extends StdDeserializer<AccessLogLine> {
+
+	public AccessLogLineDeserializer() {
+		super(AccessLogLine.class);
+	}
+
+	@Override
+	public AccessLogLine deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			return (AccessLogLine) context.handleUnexpectedToken(AccessLogLine.class, parser);
+		}
+
+		final AccessLogLine accessLogLine = new AccessLogLine();
+		String field;
+		while ((field = JsonFields.nextField(parser)) != null) {
+			switch (field) {
+				case "seqId":
+					accessLogLine.setSeqId(parser.getValueAsLong());
+					break;
+				case "insertTime":
+					accessLogLine.setInsertTime(JsonFields.readTime(parser, PATTERN));
+					break;
+				case "host":
+					accessLogLine.setHost(parser.getValueAsString());
+					break;
+				case "identifier":
+					accessLogLine.setIdentifier(parser.getValueAsString());
+					break;
+				case "user":
+					accessLogLine.setUser(parser.getValueAsString());
+					break;
+				case "dateTime":
+					accessLogLine.setDateTime(JsonFields.readTime(parser, ISO));
+					break;
+				case "httpMethod":
+					accessLogLine.setHttpMethod(JsonFields.readEnum(parser, HttpMethod.class));
+					break;
+				case "resource":
+					accessLogLine.setResource(parser.getValueAsString());
+					break;
+				case "protocol":
+					accessLogLine.setProtocol(parser.getValueAsString());
+					break;
+				case "returnedStatus":
+					accessLogLine.setReturnedStatus(parser.getValueAsInt());
+					break;
+				case "contentSize":
+					accessLogLine.setContentSize(parser.getValueAsLong());
+					break;
+				case "referrer":
+					accessLogLine.setReferrer(parser.getValueAsString());
+					break;
+				case "userAgent":
+					accessLogLine.setUserAgent(parser.getValueAsString());
+					break;
+				case "requestDuration":
+					accessLogLine.setRequestDuration(JsonFields.readLong(parser));
+					break;
+				case "upstreamDuration":
+					accessLogLine.setUpstreamDuration(JsonFields.readLong(parser));
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+		return accessLogLine;
+	}
+}
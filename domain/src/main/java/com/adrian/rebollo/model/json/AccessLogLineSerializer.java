@@ -0,0 +1,42 @@
+package com.adrian.rebollo.model.json;
+
+import static com.adrian.rebollo.model.json.JsonFields.ISO;
+import static com.adrian.rebollo.model.json.JsonFields.PATTERN;
+
+import java.io.IOException;
+
+import com.adrian.rebollo.model.AccessLogLine;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Streaming serializer of an AccessLogLine, with the same fields and formats as its bean mapping.
+ */
+public class AccessLogLineSerializer extends StdSerializer<AccessLogLine> {
+
+	public AccessLogLineSerializer() {
+		super(AccessLogLine.class);
+	}
+
+	@Override
+	public void serialize(AccessLogLine value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+		generator.writeStartObject(value);
+		generator.writeNumberField("seqId", value.getSeqId());
+		JsonFields.writeTime(generator, "insertTime", value.getInsertTime(), PATTERN);
+		generator.writeStringField("host", value.getHost());
+		generator.writeStringField("identifier", value.getIdentifier());
+		generator.writeStringField("user", value.getUser());
+		JsonFields.writeTime(generator, "dateTime", value.getDateTime(), ISO);
+		JsonFields.writeEnum(generator, "httpMethod", value.getHttpMethod());
+		generator.writeStringField("resource", value.getResource());
+		generator.writeStringField("protocol", value.getProtocol());
+		generator.writeNumberField("returnedStatus", value.getReturnedStatus());
+		generator.writeNumberField("contentSize", value.getContentSize());
+		generator.writeStringField("referrer", value.getReferrer());
+		generator.writeStringField("userAgent", value.getUserAgent());
+		JsonFields.writeLong(generator, "requestDuration", value.getRequestDuration());
+		JsonFields.writeLong(generator, "upstreamDuration", value.getUpstreamDuration());
+		generator.writeEndObject();
+	}
+}
@@ -0,0 +1,29 @@
+package com.adrian.rebollo.model.json;
+
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Jackson module with the streaming serializers and deserializers of the lines, stats and alerts.
+ * They write and read the same JSON as the bean mapping, without its reflective property accesses nor intermediate objects.
+ */
+public class AccessLogModule extends SimpleModule {
+
+	/**
+	 * writer attribute of the user facing outputs (ie: `objectMapper.writer().withAttribute(EXTERNAL, true)`):
+	 * the stats are written without their histogram and sketches, which are only needed by the internal consumers to merge them.
+	 */
+	public static final String EXTERNAL = "access-log.external";
+
+	public AccessLogModule() {
+		super("AccessLogModule");
+		addSerializer(AccessLogLine.class, new AccessLogLineSerializer());
+		addDeserializer(AccessLogLine.class, new AccessLogLineDeserializer());
+		addSerializer(AccessLogStats.class, new AccessLogStatsSerializer());
+		addDeserializer(AccessLogStats.class, new AccessLogStatsDeserializer());
+		addSerializer(AccessLogAlert.class, new AccessLogAlertSerializer());
+		addDeserializer(AccessLogAlert.class, new AccessLogAlertDeserializer());
+	}
+}
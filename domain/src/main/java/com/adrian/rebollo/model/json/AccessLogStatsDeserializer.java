@@ -0,0 +1,231 @@
+package com.adrian.rebollo.model.json;
+
+import static com.adrian.rebollo.model.json.JsonFields.PATTERN;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.HyperLogLog;
+import com.adrian.rebollo.model.LogHistogram;
+import com.adrian.rebollo.model.Percentiles;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Streaming deserializer of an AccessLogStats written by the {@link AccessLogStatsSerializer}, unknown fields are skipped.
+ */
+public class AccessLogStatsDeserializer extends StdDeserializer<AccessLogStats> {
+
+	public AccessLogStatsDeserializer() {
+		super(AccessLogStats.class);
+	}
+
+	@Override
+	public AccessLogStats deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			return (AccessLogStats) context.handleUnexpectedToken(AccessLogStats.class, parser);
+		}
+
+		final AccessLogStats accessLogStats = new AccessLogStats();
+		String field;
+		while ((field = JsonFields.nextField(parser)) != null) {
+			switch (field) {
+				case "start":
+					accessLogStats.setStart(JsonFields.readTime(parser, PATTERN));
+					break;
+				case "end":
+					accessLogStats.setEnd(JsonFields.readTime(parser, PATTERN));
+					break;
+				case "requests":
+					accessLogStats.setRequests(readCount(parser));
+					break;
+				case "validRequests":
+					accessLogStats.setValidRequests(readCount(parser));
+					break;
+				case "invalidRequests":
+					accessLogStats.setInvalidRequests(readCount(parser));
+					break;
+				case "totalContent":
+					accessLogStats.setTotalContent(readCount(parser));
+					break;
+				case "lateRequests":
+					accessLogStats.setLateRequests(parser.getValueAsLong());
+					break;
+				case "topVisitsByMethod":
+					readCounts(parser, accessLogStats.getTopVisitsByMethod());
+					break;
+				case "topValidVisitedRequestsSections":
+					readCounts(parser, accessLogStats.getTopValidVisitedRequestsSections());
+					break;
+				case "topInvalidVisitedRequestsSections":
+					readCounts(parser, accessLogStats.getTopInvalidVisitedRequestsSections());
+					break;
+				case "topVisitsByHost":
+					readCounts(parser, accessLogStats.getTopVisitsByHost());
+					break;
+				case "topVisitsByUser":
+					readCounts(parser, accessLogStats.getTopVisitsByUser());
+					break;
+				case "topVisitsSection":
+					readCounts(parser, accessLogStats.getTopVisitsSection());
+					break;
+				case "topVisitsByHostMaxError":
+					accessLogStats.setTopVisitsByHostMaxError(parser.getValueAsLong());
+					break;
+				case "topVisitsByUserMaxError":
+					accessLogStats.setTopVisitsByUserMaxError(parser.getValueAsLong());
+					break;
+				case "topVisitsSectionMaxError":
+					accessLogStats.setTopVisitsSectionMaxError(parser.getValueAsLong());
+					break;
+				case "contentSize":
+					accessLogStats.setContentSize(readPercentiles(parser));
+					break;
+				case "contentSizeHistogram":
+					accessLogStats.setContentSizeHistogram(readHistogram(parser));
+					break;
+				case "topVisitsSectionContentSize":
+					readSectionPercentiles(parser, accessLogStats.getTopVisitsSectionContentSize());
+					break;
+				case "distinctHosts":
+					accessLogStats.setDistinctHosts(parser.getValueAsLong());
+					break;
+				case "distinctUsers":
+					accessLogStats.setDistinctUsers(parser.getValueAsLong());
+					break;
+				case "distinctResources":
+					accessLogStats.setDistinctResources(parser.getValueAsLong());
+					break;
+				case "hostsSketch":
+					accessLogStats.setHostsSketch(readSketch(parser, context));
+					break;
+				case "usersSketch":
+					accessLogStats.setUsersSketch(readSketch(parser, context));
+					break;
+				case "resourcesSketch":
+					accessLogStats.setResourcesSketch(readSketch(parser, context));
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+		return accessLogStats;
+	}
+
+	private static AtomicLong readCount(JsonParser parser) throws IOException {
+		return parser.currentToken() == JsonToken.VALUE_NULL ? null : new AtomicLong(parser.getValueAsLong());
+	}
+
+	private static void readCounts(JsonParser parser, Map<String, AtomicLong> counts) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return;
+		}
+		String key;
+		while ((key = JsonFields.nextField(parser)) != null) {
+			counts.put(key, readCount(parser));
+		}
+	}
+
+	private static Percentiles readPercentiles(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		final Percentiles percentiles = new Percentiles();
+		String field;
+		while ((field = JsonFields.nextField(parser)) != null) {
+			switch (field) {
+				case "p50":
+					percentiles.setP50(parser.getValueAsLong());
+					break;
+				case "p90":
+					percentiles.setP90(parser.getValueAsLong());
+					break;
+				case "p99":
+					percentiles.setP99(parser.getValueAsLong());
+					break;
+				case "max":
+					percentiles.setMax(parser.getValueAsLong());
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+		return percentiles;
+	}
+
+	private static void readSectionPercentiles(JsonParser parser, Map<String, Percentiles> sections) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return;
+		}
+		String section;
+		while ((section = JsonFields.nextField(parser)) != null) {
+			sections.put(section, readPercentiles(parser));
+		}
+	}
+
+	private static LogHistogram readHistogram(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		final LogHistogram histogram = new LogHistogram();
+		String field;
+		while ((field = JsonFields.nextField(parser)) != null) {
+			switch (field) {
+				case "buckets":
+					histogram.setBuckets(readLongs(parser));
+					break;
+				case "count":
+					histogram.setCount(parser.getValueAsLong());
+					break;
+				case "max":
+					histogram.setMax(parser.getValueAsLong());
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+		return histogram;
+	}
+
+	private static long[] readLongs(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return null;
+		}
+		long[] values = new long[64];
+		int size = 0;
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = parser.getValueAsLong();
+		}
+		return Arrays.copyOf(values, size);
+	}
+
+	private static HyperLogLog readSketch(JsonParser parser, DeserializationContext context) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		final HyperLogLog sketch = new HyperLogLog();
+		String field;
+		while ((field = JsonFields.nextField(parser)) != null) {
+			if ("registers".equals(field)) {
+				sketch.setRegisters(parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getBinaryValue(context.getBase64Variant()));
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return sketch;
+	}
+}
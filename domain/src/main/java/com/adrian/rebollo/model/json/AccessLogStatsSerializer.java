@@ -0,0 +1,133 @@
+package com.adrian.rebollo.model.json;
+
+import static com.adrian.rebollo.model.json.JsonFields.PATTERN;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.HyperLogLog;
+import com.adrian.rebollo.model.LogHistogram;
+import com.adrian.rebollo.model.Percentiles;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Streaming serializer of an AccessLogStats, with the same fields and formats as its bean mapping,
+ * including its nested percentiles, histogram and HyperLogLog sketches (registers in base64).
+ * The histogram and sketches are left out of the writers with the {@link AccessLogModule#EXTERNAL} attribute.
+ */
+public class AccessLogStatsSerializer extends StdSerializer<AccessLogStats> {
+
+	public AccessLogStatsSerializer() {
+		super(AccessLogStats.class);
+	}
+
+	@Override
+	public void serialize(AccessLogStats value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+		final boolean external = Boolean.TRUE.equals(provider.getAttribute(AccessLogModule.EXTERNAL));
+		generator.writeStartObject(value);
+		JsonFields.writeTime(generator, "start", value.getStart(), PATTERN);
+		JsonFields.writeTime(generator, "end", value.getEnd(), PATTERN);
+		writeCount(generator, "requests", value.getRequests());
+		writeCount(generator, "validRequests", value.getValidRequests());
+		writeCount(generator, "invalidRequests", value.getInvalidRequests());
+		writeCount(generator, "totalContent", value.getTotalContent());
+		generator.writeNumberField("lateRequests", value.getLateRequests());
+
+		writeCounts(generator, "topVisitsByMethod", value.getTopVisitsByMethod());
+		writeCounts(generator, "topValidVisitedRequestsSections", value.getTopValidVisitedRequestsSections());
+		writeCounts(generator, "topInvalidVisitedRequestsSections", value.getTopInvalidVisitedRequestsSections());
+		writeCounts(generator, "topVisitsByHost", value.getTopVisitsByHost());
+		writeCounts(generator, "topVisitsByUser", value.getTopVisitsByUser());
+		writeCounts(generator, "topVisitsSection", value.getTopVisitsSection());
+		generator.writeNumberField("topVisitsByHostMaxError", value.getTopVisitsByHostMaxError());
+		generator.writeNumberField("topVisitsByUserMaxError", value.getTopVisitsByUserMaxError());
+		generator.writeNumberField("topVisitsSectionMaxError", value.getTopVisitsSectionMaxError());
+
+		generator.writeFieldName("contentSize");
+		writePercentiles(generator, value.getContentSize());
+		if (!external) {
+			writeHistogram(generator, value.getContentSizeHistogram());
+		}
+		generator.writeObjectFieldStart("topVisitsSectionContentSize");
+		for (Map.Entry<String, Percentiles> entry : value.getTopVisitsSectionContentSize().entrySet()) {
+			generator.writeFieldName(entry.getKey());
+			writePercentiles(generator, entry.getValue());
+		}
+		generator.writeEndObject();
+
+		generator.writeNumberField("distinctHosts", value.getDistinctHosts());
+		generator.writeNumberField("distinctUsers", value.getDistinctUsers());
+		generator.writeNumberField("distinctResources", value.getDistinctResources());
+		if (!external) {
+			writeSketch(generator, provider, "hostsSketch", value.getHostsSketch());
+			writeSketch(generator, provider, "usersSketch", value.getUsersSketch());
+			writeSketch(generator, provider, "resourcesSketch", value.getResourcesSketch());
+		}
+		generator.writeEndObject();
+	}
+
+	private static void writeCount(JsonGenerator generator, String name, AtomicLong count) throws IOException {
+		if (count == null) {
+			generator.writeNullField(name);
+		} else {
+			generator.writeNumberField(name, count.get());
+		}
+	}
+
+	private static void writeCounts(JsonGenerator generator, String name, Map<String, AtomicLong> counts) throws IOException {
+		generator.writeObjectFieldStart(name);
+		for (Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+			writeCount(generator, entry.getKey(), entry.getValue());
+		}
+		generator.writeEndObject();
+	}
+
+	private static void writePercentiles(JsonGenerator generator, Percentiles percentiles) throws IOException {
+		if (percentiles == null) {
+			generator.writeNull();
+			return;
+		}
+		generator.writeStartObject();
+		generator.writeNumberField("p50", percentiles.getP50());
+		generator.writeNumberField("p90", percentiles.getP90());
+		generator.writeNumberField("p99", percentiles.getP99());
+		generator.writeNumberField("max", percentiles.getMax());
+		generator.writeEndObject();
+	}
+
+	private static void writeHistogram(JsonGenerator generator, LogHistogram histogram) throws IOException {
+		if (histogram == null) {
+			generator.writeNullField("contentSizeHistogram");
+			return;
+		}
+		generator.writeObjectFieldStart("contentSizeHistogram");
+		if (histogram.getBuckets() == null) {
+			generator.writeNullField("buckets");
+		} else {
+			generator.writeFieldName("buckets");
+			generator.writeArray(histogram.getBuckets(), 0, histogram.getBuckets().length);
+		}
+		generator.writeNumberField("count", histogram.getCount());
+		generator.writeNumberField("max", histogram.getMax());
+		generator.writeEndObject();
+	}
+
+	private static void writeSketch(JsonGenerator generator, SerializerProvider provider, String name, HyperLogLog sketch) throws IOException {
+		if (sketch == null) {
+			generator.writeNullField(name);
+			return;
+		}
+		generator.writeObjectFieldStart(name);
+		if (sketch.getRegisters() == null) {
+			generator.writeNullField("registers");
+		} else {
+			generator.writeFieldName("registers");
+			generator.writeBinary(provider.getConfig().getBase64Variant(), sketch.getRegisters(), 0, sketch.getRegisters().length);
+		}
+		generator.writeEndObject();
+	}
+}
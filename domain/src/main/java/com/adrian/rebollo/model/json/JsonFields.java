@@ -0,0 +1,200 @@
+package com.adrian.rebollo.model.json;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Field level helpers shared by the streaming serializers and deserializers.
+ * Times are written as the bean mapping of the application ObjectMapper does (`WRITE_DATES_AS_TIMESTAMPS` disabled):
+ * with their `@JsonFormat` pattern when the field has one, ISO local date time otherwise.
+ * Both layouts are fixed width for the years 1 to 9999, so they are written and read digit by digit instead of through the DateTimeFormatter,
+ * which is kept for any other year and for the invalid texts, so they fail as before.
+ */
+final class JsonFields {
+
+	/**
+	 * pattern of the `@JsonFormat` time fields of the model.
+	 */
+	static final DateTimeFormatter PATTERN = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+	static final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+	private JsonFields() {
+	}
+
+	/**
+	 * length of the `PATTERN` and of the ISO times without fraction of second.
+	 */
+	private static final int TIME_LENGTH = 19;
+
+	static void writeTime(JsonGenerator generator, String name, LocalDateTime value, DateTimeFormatter formatter) throws IOException {
+		if (value == null) {
+			generator.writeNullField(name);
+		} else if (value.getYear() < 1 || value.getYear() > 9999) {
+			generator.writeStringField(name, formatter.format(value));
+		} else {
+			final char[] text = new char[TIME_LENGTH + 10];
+			final int length = formatter == PATTERN ? formatPattern(value, text) : formatIso(value, text);
+			generator.writeFieldName(name);
+			generator.writeString(text, 0, length);
+		}
+	}
+
+	/**
+	 * dd-MM-yyyy HH:mm:ss
+	 */
+	private static int formatPattern(LocalDateTime value, char[] text) {
+		digits(text, 0, value.getDayOfMonth(), 2);
+		text[2] = '-';
+		digits(text, 3, value.getMonthValue(), 2);
+		text[5] = '-';
+		digits(text, 6, value.getYear(), 4);
+		text[10] = ' ';
+		formatTime(value, text, 11);
+		return TIME_LENGTH;
+	}
+
+	/**
+	 * yyyy-MM-ddTHH:mm:ss, followed by the fraction of second without its trailing zeros, when there is one.
+	 */
+	private static int formatIso(LocalDateTime value, char[] text) {
+		digits(text, 0, value.getYear(), 4);
+		text[4] = '-';
+		digits(text, 5, value.getMonthValue(), 2);
+		text[7] = '-';
+		digits(text, 8, value.getDayOfMonth(), 2);
+		text[10] = 'T';
+		formatTime(value, text, 11);
+
+		int nano = value.getNano();
+		if (nano == 0) {
+			return TIME_LENGTH;
+		}
+		int length = TIME_LENGTH + 10;
+		while (nano % 10 == 0) {
+			nano /= 10;
+			length--;
+		}
+		text[TIME_LENGTH] = '.';
+		digits(text, TIME_LENGTH + 1, nano, length - TIME_LENGTH - 1);
+		return length;
+	}
+
+	private static void formatTime(LocalDateTime value, char[] text, int offset) {
+		digits(text, offset, value.getHour(), 2);
+		text[offset + 2] = ':';
+		digits(text, offset + 3, value.getMinute(), 2);
+		text[offset + 5] = ':';
+		digits(text, offset + 6, value.getSecond(), 2);
+	}
+
+	/**
+	 * writes the value as the given amount of digits, left padded with zeros.
+	 */
+	private static void digits(char[] text, int offset, int value, int length) {
+		for (int i = offset + length - 1; i >= offset; i--) {
+			text[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	static void writeLong(JsonGenerator generator, String name, Long value) throws IOException {
+		if (value == null) {
+			generator.writeNullField(name);
+		} else {
+			generator.writeNumberField(name, value);
+		}
+	}
+
+	static void writeEnum(JsonGenerator generator, String name, Enum<?> value) throws IOException {
+		generator.writeStringField(name, value == null ? null : value.name());
+	}
+
+	/**
+	 * the current token is the value of the field.
+	 */
+	static LocalDateTime readTime(JsonParser parser, DateTimeFormatter formatter) throws IOException {
+		if (parser.currentToken() == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		final LocalDateTime time = parser.currentToken() == JsonToken.VALUE_STRING && parser.getTextLength() == TIME_LENGTH
+				? parseTime(parser.getTextCharacters(), parser.getTextOffset(), formatter == PATTERN)
+				: null;
+		return time != null ? time : LocalDateTime.parse(parser.getText(), formatter);
+	}
+
+	/**
+	 * @return the time of the fixed width text, null when it is not in the expected layout.
+	 */
+	private static LocalDateTime parseTime(char[] text, int offset, boolean pattern) {
+		final int year;
+		final int month;
+		final int day;
+		if (pattern) {
+			day = parseDigits(text, offset, 2);
+			month = parseDigits(text, offset + 3, 2);
+			year = parseDigits(text, offset + 6, 4);
+			if (text[offset + 2] != '-' || text[offset + 5] != '-' || text[offset + 10] != ' ') {
+				return null;
+			}
+		} else {
+			year = parseDigits(text, offset, 4);
+			month = parseDigits(text, offset + 5, 2);
+			day = parseDigits(text, offset + 8, 2);
+			if (text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != 'T') {
+				return null;
+			}
+		}
+		final int hour = parseDigits(text, offset + 11, 2);
+		final int minute = parseDigits(text, offset + 14, 2);
+		final int second = parseDigits(text, offset + 17, 2);
+		if (text[offset + 13] != ':' || text[offset + 16] != ':'
+				|| (year | month | day | hour | minute | second) < 0
+				|| year < 1 || month < 1 || month > 12 || day < 1 || day > 28 && day > YearMonth.of(year, month).lengthOfMonth()
+				|| hour > 23 || minute > 59 || second > 59) {
+			return null;
+		}
+		return LocalDateTime.of(year, month, day, hour, minute, second);
+	}
+
+	/**
+	 * @return the value of the digits, negative when any of them is not a digit.
+	 */
+	private static int parseDigits(char[] text, int offset, int length) {
+		int value = 0;
+		for (int i = offset; i < offset + length; i++) {
+			final int digit = text[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	static Long readLong(JsonParser parser) throws IOException {
+		return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+	}
+
+	static <E extends Enum<E>> E readEnum(JsonParser parser, Class<E> type) throws IOException {
+		return parser.currentToken() == JsonToken.VALUE_NULL ? null : Enum.valueOf(type, parser.getText());
+	}
+
+	/**
+	 * @return the name of the next field of the current object, null at its end.
+	 * the parser is left on the field value.
+	 */
+	static String nextField(JsonParser parser) throws IOException {
+		if (parser.nextToken() != JsonToken.FIELD_NAME) {
+			return null;
+		}
+		final String name = parser.getCurrentName();
+		parser.nextToken();
+		return name;
+	}
+}
@@ -0,0 +1,61 @@
+package com.adrian.rebollo.model;
+
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class HyperLogLogTest {
+
+	@Test
+	public void emptyEstimatesZero() {
+		Assert.assertEquals(0, new HyperLogLog().estimate());
+	}
+
+	@Test
+	public void smallCardinalitiesAreAlmostExact() {
+
+		final HyperLogLog hyperLogLog = new HyperLogLog();
+		IntStream.range(0, 100).forEach(i -> hyperLogLog.add("10.0.0." + i));
+		//repeated values do not change the estimation.
+		IntStream.range(0, 100).forEach(i -> hyperLogLog.add("10.0.0." + i));
+
+		Assert.assertEquals(100, hyperLogLog.estimate(), 2);
+	}
+
+	@Test
+	public void largeCardinalitiesWithinError() {
+
+		final HyperLogLog hyperLogLog = new HyperLogLog();
+		IntStream.range(0, 1_000_000).forEach(i -> hyperLogLog.add("192.168." + (i >> 8) + "." + (i & 0xff)));
+
+		//3 standard errors.
+		Assert.assertEquals(1_000_000, hyperLogLog.estimate(), 1_000_000 * 0.05);
+	}
+
+	@Test
+	public void mergeEstimatesUnion() {
+
+		final HyperLogLog first = new HyperLogLog();
+		final HyperLogLog second = new HyperLogLog();
+		IntStream.range(0, 20_000).forEach(i -> first.add("/resource/" + i));
+		IntStream.range(10_000, 30_000).forEach(i -> second.add("/resource/" + i));
+
+		Assert.assertEquals(30_000, first.merge(second).estimate(), 30_000 * 0.05);
+	}
+
+	@Test
+	public void serializesRegisters() throws Exception {
+
+		final ObjectMapper objectMapper = new ObjectMapper();
+		final HyperLogLog hyperLogLog = new HyperLogLog();
+		IntStream.range(0, 1000).forEach(i -> hyperLogLog.add("user" + i));
+
+		final HyperLogLog deserialized = objectMapper.readValue(objectMapper.writeValueAsString(hyperLogLog), HyperLogLog.class);
+
+		Assert.assertEquals(hyperLogLog, deserialized);
+		Assert.assertEquals(hyperLogLog.estimate(), deserialized.estimate());
+	}
+}
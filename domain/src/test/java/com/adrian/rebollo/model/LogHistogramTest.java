@@ -0,0 +1,81 @@
+package com.adrian.rebollo.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LogHistogramTest {
+
+	@Test
+	public void emptyHistogram() {
+		final LogHistogram histogram = new LogHistogram();
+
+		Assert.assertEquals(0, histogram.getCount());
+		Assert.assertEquals(0, histogram.percentile(99));
+	}
+
+	@Test
+	public void bucketsAreContiguous() {
+		for (long value = 0; value < 100_000; value++) {
+			final int index = LogHistogram.index(value);
+			Assert.assertTrue(value <= LogHistogram.highestValue(index));
+			Assert.assertTrue(index == 0 || value > LogHistogram.highestValue(index - 1));
+		}
+		Assert.assertEquals(Long.MAX_VALUE, LogHistogram.highestValue(LogHistogram.index(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void smallValuesAreExact() {
+		final LogHistogram histogram = new LogHistogram();
+		for (int value = 1; value <= 10; value++) {
+			histogram.record(value);
+		}
+
+		Assert.assertEquals(5, histogram.percentile(50));
+		Assert.assertEquals(9, histogram.percentile(90));
+		Assert.assertEquals(10, histogram.percentile(99));
+		Assert.assertEquals(10, histogram.getMax());
+	}
+
+	@Test
+	public void percentilesWithinRelativeError() {
+		final Random random = new Random(7);
+		final LogHistogram histogram = new LogHistogram();
+		final long[] values = new long[100_000];
+		for (int i = 0; i < values.length; i++) {
+			//heavy tail: mostly small responses and a few huge downloads.
+			values[i] = random.nextInt(100) == 0 ? 10_000_000 + random.nextInt(100_000_000) : random.nextInt(50_000);
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+
+		for (double percentile : new double[] {50, 90, 99, 99.9}) {
+			final long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+			final long estimated = histogram.percentile(percentile);
+			Assert.assertTrue(estimated >= exact);
+			Assert.assertTrue(estimated - exact <= exact / 16 + 1);
+		}
+		Assert.assertEquals(values[values.length - 1], histogram.getMax());
+	}
+
+	@Test
+	public void mergeAddsBuckets() {
+		final LogHistogram small = new LogHistogram();
+		final LogHistogram large = new LogHistogram();
+		for (int i = 0; i < 90; i++) {
+			small.record(100);
+		}
+		for (int i = 0; i < 10; i++) {
+			large.record(1_000_000);
+		}
+
+		small.merge(large);
+
+		Assert.assertEquals(100, small.getCount());
+		Assert.assertEquals(100, small.percentile(90), 100 / 16);
+		Assert.assertEquals(1_000_000, small.percentile(99));
+		Assert.assertEquals(1_000_000, small.getMax());
+	}
+}
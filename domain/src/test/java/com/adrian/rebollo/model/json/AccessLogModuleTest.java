@@ -0,0 +1,215 @@
+package com.adrian.rebollo.model.json;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.AlertType;
+import com.adrian.rebollo.model.HttpMethod;
+import com.adrian.rebollo.model.Percentiles;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+public class AccessLogModuleTest {
+
+	private final ObjectMapper beanMapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.configure(SerializationFeature.INDENT_OUTPUT, true)
+			.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+
+	private final ObjectMapper moduleMapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.registerModule(new AccessLogModule())
+			.configure(SerializationFeature.INDENT_OUTPUT, true)
+			.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+
+	@Test
+	public void testLineAsBeans() throws Exception {
+
+		final AccessLogLine line = line();
+		final String json = moduleMapper.writeValueAsString(line);
+
+		Assert.assertEquals(beanMapper.writeValueAsString(line), json);
+		Assert.assertEquals(line, moduleMapper.readValue(json, AccessLogLine.class));
+		Assert.assertEquals(line, moduleMapper.readValue(beanMapper.writeValueAsString(line), AccessLogLine.class));
+	}
+
+	@Test
+	public void testLineWithNulls() throws Exception {
+
+		final AccessLogLine line = AccessLogLine.builder().seqId(7).returnedStatus(200).build();
+		final String json = moduleMapper.writeValueAsString(line);
+
+		Assert.assertEquals(beanMapper.writeValueAsString(line), json);
+		Assert.assertEquals(line, moduleMapper.readValue(json, AccessLogLine.class));
+	}
+
+	@Test
+	public void testTimesAsBeans() throws Exception {
+
+		for (LocalDateTime time : List.of(
+				LocalDateTime.of(2020, 2, 29, 0, 0, 0),
+				LocalDateTime.of(2020, 12, 31, 23, 59, 59, 120_000_000),
+				LocalDateTime.of(2020, 1, 1, 10, 0, 0, 1),
+				LocalDateTime.of(1, 1, 1, 0, 0, 0),
+				LocalDateTime.of(0, 1, 1, 0, 0, 0),
+				LocalDateTime.of(10000, 1, 1, 0, 0, 0))) {
+
+			final AccessLogLine line = line().setInsertTime(time.withNano(0)).setDateTime(time);
+			final String json = moduleMapper.writeValueAsString(line);
+
+			Assert.assertEquals(beanMapper.writeValueAsString(line), json);
+			//the year of era of the pattern reads the year 0 as 1, in both mappings.
+			Assert.assertEquals(beanMapper.readValue(json, AccessLogLine.class), moduleMapper.readValue(json, AccessLogLine.class));
+		}
+	}
+
+	@Test
+	public void testInvalidTimesAsBeans() throws Exception {
+
+		//the pattern resolves the day to the end of the month, as the bean mapping does.
+		final String json = "{\"insertTime\":\"31-02-2020 10:00:00\"}";
+		Assert.assertEquals(beanMapper.readValue(json, AccessLogLine.class), moduleMapper.readValue(json, AccessLogLine.class));
+
+		try {
+			moduleMapper.readValue("{\"dateTime\":\"2020-01-01T25:00:00\"}", AccessLogLine.class);
+			Assert.fail("invalid time");
+		} catch (IOException | DateTimeException e) {
+			//expected.
+		}
+	}
+
+	@Test
+	public void testLinesArray() throws Exception {
+
+		final AccessLogLine[] lines = {line(), line().setSeqId(2)};
+		final String json = moduleMapper.writeValueAsString(lines);
+
+		Assert.assertEquals(beanMapper.writeValueAsString(lines), json);
+		Assert.assertArrayEquals(lines, moduleMapper.readValue(json, AccessLogLine[].class));
+	}
+
+	@Test
+	public void testStatsAsBeans() throws Exception {
+
+		final AccessLogStats stats = stats();
+		final String json = moduleMapper.writeValueAsString(stats);
+
+		Assert.assertEquals(beanMapper.writeValueAsString(stats), json);
+		Assert.assertEquals(json, moduleMapper.writeValueAsString(moduleMapper.readValue(json, AccessLogStats.class)));
+		Assert.assertEquals(json, moduleMapper.writeValueAsString(beanMapper.readValue(json, AccessLogStats.class)));
+
+		final AccessLogStats read = moduleMapper.readValue(json, AccessLogStats.class);
+		Assert.assertEquals(stats.getHostsSketch().estimate(), read.getHostsSketch().estimate());
+		Assert.assertEquals(stats.getContentSizeHistogram().percentile(99), read.getContentSizeHistogram().percentile(99));
+	}
+
+	@Test
+	public void testExternalStats() throws Exception {
+
+		final AccessLogStats stats = stats();
+		final String json = moduleMapper.writer().withAttribute(AccessLogModule.EXTERNAL, true).writeValueAsString(stats);
+
+		Assert.assertFalse(json.contains("contentSizeHistogram"));
+		Assert.assertFalse(json.contains("Sketch"));
+		final AccessLogStats read = moduleMapper.readValue(json, AccessLogStats.class);
+		Assert.assertEquals(stats.getDistinctHosts(), read.getDistinctHosts());
+		Assert.assertEquals(stats.getContentSize(), read.getContentSize());
+		Assert.assertEquals(stats.getTopVisitsSectionContentSize(), read.getTopVisitsSectionContentSize());
+	}
+
+	@Test
+	public void testEmptyStats() throws Exception {
+
+		final AccessLogStats stats = new AccessLogStats(null, null);
+		final String json = moduleMapper.writeValueAsString(stats);
+
+		Assert.assertEquals(beanMapper.writeValueAsString(stats), json);
+		Assert.assertEquals(json, moduleMapper.writeValueAsString(moduleMapper.readValue(json, AccessLogStats.class)));
+	}
+
+	@Test
+	public void testAlertAsBeans() throws Exception {
+
+		final AccessLogAlert alert = AccessLogAlert.builder()
+				.requests(1500)
+				.requestsSecond(12.5)
+				.alertTime(LocalDateTime.of(2020, 1, 10, 12, 0, 5))
+				.start(LocalDateTime.of(2020, 1, 10, 11, 58, 5))
+				.end(LocalDateTime.of(2020, 1, 10, 12, 0, 5))
+				.type(AlertType.HIGH_TRAFFIC)
+				.distinctHosts(3)
+				.distinctUsers(2)
+				.distinctResources(40)
+				.build();
+		final String json = moduleMapper.writeValueAsString(alert);
+
+		Assert.assertEquals(beanMapper.writeValueAsString(alert), json);
+		Assert.assertEquals(alert, moduleMapper.readValue(json, AccessLogAlert.class));
+	}
+
+	@Test
+	public void testUnknownFieldsAreSkipped() throws Exception {
+
+		final String json = "{\"seqId\":3,\"tags\":{\"a\":[1,2,{\"b\":null}]},\"host\":\"127.0.0.1\",\"other\":\"x\"}";
+		final AccessLogLine line = moduleMapper.readValue(json, AccessLogLine.class);
+
+		Assert.assertEquals(3, line.getSeqId());
+		Assert.assertEquals("127.0.0.1", line.getHost());
+	}
+
+	private static AccessLogLine line() {
+		return AccessLogLine.builder()
+				.seqId(1)
+				.insertTime(LocalDateTime.of(2020, 1, 10, 12, 0, 1))
+				.host("127.0.0.1")
+				.identifier("-")
+				.user("james")
+				.dateTime(LocalDateTime.of(2020, 1, 10, 12, 0, 0))
+				.httpMethod(HttpMethod.GET)
+				.resource("/report/users?id=1")
+				.protocol("HTTP/1.0")
+				.returnedStatus(200)
+				.contentSize(123)
+				.referrer("http://example.com/\"quoted\"")
+				.userAgent("curl/7.64.1")
+				.requestDuration(15L)
+				.build();
+	}
+
+	private static AccessLogStats stats() {
+		final AccessLogStats stats = new AccessLogStats(LocalDateTime.of(2020, 1, 10, 12, 0, 0), LocalDateTime.of(2020, 1, 10, 12, 0, 10));
+		stats.setRequests(new AtomicLong(300));
+		stats.setValidRequests(new AtomicLong(290));
+		stats.setInvalidRequests(new AtomicLong(10));
+		stats.setTotalContent(new AtomicLong(45000));
+		stats.setLateRequests(2);
+		stats.getTopVisitsByMethod().put("GET", new AtomicLong(250));
+		stats.getTopVisitsByMethod().put("POST", new AtomicLong(50));
+		stats.getTopValidVisitedRequestsSections().put("/report", new AtomicLong(290));
+		stats.getTopInvalidVisitedRequestsSections().put("/api", new AtomicLong(10));
+		stats.getTopVisitsByHost().put("127.0.0.1", new AtomicLong(300));
+		stats.getTopVisitsByUser().put("james", new AtomicLong(300));
+		stats.getTopVisitsSection().put("/report", new AtomicLong(290));
+		stats.setTopVisitsByHostMaxError(1);
+		for (int i = 0; i < 300; i++) {
+			stats.getContentSizeHistogram().record(i * 10);
+			stats.getHostsSketch().add("host" + i % 7);
+			stats.getResourcesSketch().add("/report/" + i);
+		}
+		stats.setContentSize(Percentiles.of(stats.getContentSizeHistogram()));
+		stats.getTopVisitsSectionContentSize().put("/report", Percentiles.of(stats.getContentSizeHistogram()));
+		stats.setDistinctHosts(stats.getHostsSketch().estimate());
+		stats.setDistinctResources(stats.getResourcesSketch().estimate());
+		return stats;
+	}
+}
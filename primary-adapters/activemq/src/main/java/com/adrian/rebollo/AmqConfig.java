@@ -1,22 +1,72 @@
 package com.adrian.rebollo;
 
+import java.io.File;
+import java.net.URI;
+
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.util.ClassUtils;
+
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @EnableAsync
 @Configuration
+@Profile("!inmemory")
 public class AmqConfig {
 
+	/**
+	 * persistence adapter the broker loads when it is persistent, shipped on the `org.apache.activemq:activemq-kahadb-store` artifact.
+	 */
+	private static final String KAHADB_ADAPTER = "org.apache.activemq.store.kahadb.KahaDBPersistenceAdapter";
+
 	@Value("${adapters.activemq.broker-url}")
 	private String brokerUrl;
 	@Value("${service.max-thread-pool-size}")
 	private int maxThreadPoolSize;
 
+	/**
+	 * single node mode: the broker runs inside this JVM, and both the JmsTemplate and the Camel routes reach it through the vm:// `broker-url`,
+	 * its host being the broker name, ie: `vm://access-log-monitor?create=false`.
+	 * It has no network connector nor JMX, the lines are always sent non persistent (see PrimaryActiveMQ),
+	 * and stats and alerts are only kept in KahaDB under `data-directory` when `persistent` is enabled, in memory otherwise.
+	 */
+	@Bean(destroyMethod = "stop")
+	@ConditionalOnProperty(value = "adapters.activemq.embedded.enabled", havingValue = "true")
+	public BrokerService embeddedBroker(
+			@Value("${adapters.activemq.embedded.persistent:false}") boolean persistent,
+			@Value("${adapters.activemq.embedded.data-directory:./activemq-data}") String dataDirectory) throws Exception {
+
+		final URI uri = URI.create(brokerUrl);
+		if (!"vm".equals(uri.getScheme()) || uri.getHost() == null) {
+			throw new IllegalStateException(String.format("Embedded broker requires a vm://<broker-name> broker-url, but it is %s", brokerUrl));
+		}
+		if (persistent && !ClassUtils.isPresent(KAHADB_ADAPTER, getClass().getClassLoader())) {
+			throw new IllegalStateException("Persistent embedded broker requires org.apache.activemq:activemq-kahadb-store on the classpath");
+		}
+
+		final BrokerService brokerService = new BrokerService();
+		brokerService.setBrokerName(uri.getHost());
+		brokerService.setPersistent(persistent);
+		brokerService.setDataDirectoryFile(new File(dataDirectory));
+		brokerService.setUseJmx(false);
+		//stopped by the application context, once the routes and the listeners using it are stopped.
+		brokerService.setUseShutdownHook(false);
+		brokerService.start();
+		brokerService.waitUntilStarted();
+		LOG.info("Started embedded broker={} persistent={}", uri.getHost(), persistent);
+		return brokerService;
+	}
+
 	@Bean
 	public ActiveMQConnectionFactory senderActiveMQConnectionFactory() {
 		ActiveMQConnectionFactory activeMQConnectionFactory = new ActiveMQConnectionFactory();
@@ -26,13 +76,17 @@ public class AmqConfig {
 		return activeMQConnectionFactory;
 	}
 
+	/**
+	 * @param embeddedBroker requested so it is started before anything is sent to it.
+	 */
 	@Bean
-	public CachingConnectionFactory cachingConnectionFactory() {
+	public CachingConnectionFactory cachingConnectionFactory(ObjectProvider<BrokerService> embeddedBroker) {
+		embeddedBroker.ifAvailable(broker -> LOG.debug("Sending to embedded broker={}", broker.getBrokerName()));
 		return new CachingConnectionFactory(senderActiveMQConnectionFactory());
 	}
 
 	@Bean
-	public JmsTemplate jmsTemplate() {
-		return new JmsTemplate(cachingConnectionFactory());
+	public JmsTemplate jmsTemplate(CachingConnectionFactory cachingConnectionFactory) {
+		return new JmsTemplate(cachingConnectionFactory);
 	}
 }
@@ -1,37 +1,98 @@
 package com.adrian.rebollo;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+import javax.jms.DeliveryMode;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jms.annotation.EnableJms;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.adrian.rebollo.api.InternalDispatcher;
+import com.adrian.rebollo.codec.MessageCodecs;
 import com.adrian.rebollo.model.AccessLogAlert;
 import com.adrian.rebollo.model.AccessLogLine;
 import com.adrian.rebollo.model.AccessLogStats;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Internal dispatcher implementation to internally dispatch objects into AMQ destinations.
+ * Payloads are encoded by the configured codec (see MessageCodecs).
+ * Log lines are accumulated and sent as a single message once `adapters.activemq.line-batch.size` lines are pending,
+ * or when the pending ones have waited `adapters.activemq.line-batch.linger` millis, saving a broker round-trip and a commit per line.
+ * With the embedded broker the lines are sent non persistent, so they never reach its store, as they are consumed right away.
  */
 @Slf4j
 @Service
+@Profile("!inmemory")
 @EnableJms
 @EnableScheduling
 @RequiredArgsConstructor
 public class PrimaryActiveMQ implements InternalDispatcher {
 
+	/**
+	 * max lines sent in a single message, 1 sends every line on its own message.
+	 */
+	@Value("${adapters.activemq.line-batch.size:100}")
+	private int lineBatchSize;
+
+	@Value("${adapters.activemq.embedded.enabled:false}")
+	private boolean nonPersistentLines;
+
 	private final JmsTemplate jmsTemplate;
-	private final ObjectMapper objectMapper;
+	private final MessageCodecs messageCodecs;
 	private final PrimaryEndpoint endpoint;
 
+	private final Object lineBatchLock = new Object();
+	private List<AccessLogLine> lineBatch = new ArrayList<>();
+
 	@Override
 	public void dispatch(AccessLogLine accessLogLine) {
-		send(endpoint.getInternalLogLineQueue(), accessLogLine);
+		if (lineBatchSize <= 1) {
+			sendLines(accessLogLine);
+			return;
+		}
+
+		List<AccessLogLine> fullBatch = null;
+		synchronized (lineBatchLock) {
+			lineBatch.add(accessLogLine);
+			if (lineBatch.size() >= lineBatchSize) {
+				fullBatch = lineBatch;
+				lineBatch = new ArrayList<>(lineBatchSize);
+			}
+		}
+		//sent out of the lock, so the other parser threads keep adding lines meanwhile.
+		if (fullBatch != null) {
+			sendLines(fullBatch);
+		}
+	}
+
+	/**
+	 * send the pending lines, so a line never waits more than the linger millis for its batch to be full.
+	 */
+	@Override
+	@PreDestroy
+	@Scheduled(fixedDelayString = "${adapters.activemq.line-batch.linger:10}")
+	public void flushLines() {
+		final List<AccessLogLine> pendingBatch;
+		synchronized (lineBatchLock) {
+			if (lineBatch.isEmpty()) {
+				return;
+			}
+			pendingBatch = lineBatch;
+			lineBatch = new ArrayList<>(lineBatchSize);
+		}
+		sendLines(pendingBatch);
 	}
 
 	@Override
@@ -44,9 +105,23 @@ public class PrimaryActiveMQ implements InternalDispatcher {
 		send(endpoint.getInternalLogAlertQueue(), accessLogAlert);
 	}
 
-	@SneakyThrows
+	private void sendLines(Object lines) {
+		send(endpoint.getInternalLogLineQueue(), lines, nonPersistentLines ? DeliveryMode.NON_PERSISTENT : DeliveryMode.PERSISTENT);
+	}
+
 	private void send(String destination, Object message) {
-		var serializedMessage = (message instanceof String) ? (String) message : objectMapper.writeValueAsString(message);
-		jmsTemplate.send(destination, session -> session.createTextMessage(serializedMessage));
+		send(destination, message, DeliveryMode.PERSISTENT);
+	}
+
+	private void send(String destination, Object message, int deliveryMode) {
+		jmsTemplate.execute(session -> {
+			final MessageProducer producer = session.createProducer(session.createQueue(destination));
+			try {
+				producer.send(messageCodecs.createMessage(session, message), deliveryMode, Message.DEFAULT_PRIORITY, Message.DEFAULT_TIME_TO_LIVE);
+			} finally {
+				producer.close();
+			}
+			return null;
+		}, false);
 	}
 }
@@ -0,0 +1,374 @@
+package com.adrian.rebollo.codec;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.AlertType;
+import com.adrian.rebollo.model.HttpMethod;
+import com.adrian.rebollo.model.HyperLogLog;
+import com.adrian.rebollo.model.LogHistogram;
+import com.adrian.rebollo.model.Percentiles;
+
+/**
+ * Compact bytes messages: a payload type byte followed by the fields in declaration order, without any field name.
+ * Numbers are varints, times are epoch millis deltas, and the strings of a message are dictionary encoded,
+ * so the hosts, users and protocols repeated in a batch of lines are only written once.
+ * HyperLogLog sketches with less than half of their registers set only write the set ones.
+ */
+@Component
+public class BinaryMessageCodec implements MessageCodec {
+
+	public static final String NAME = "binary";
+
+	private static final int LINES = 1;
+	private static final int STATS = 2;
+	private static final int ALERT = 3;
+
+	private static final int NULL = 0;
+	private static final int DENSE = 1;
+	private static final int SPARSE = 2;
+
+	private static final HttpMethod[] HTTP_METHODS = HttpMethod.values();
+	private static final AlertType[] ALERT_TYPES = AlertType.values();
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public Object encode(Object payload) {
+		if (payload instanceof AccessLogLine) {
+			return encodeLines(List.of((AccessLogLine) payload));
+		}
+		if (payload instanceof Collection) {
+			@SuppressWarnings("unchecked")
+			final Collection<AccessLogLine> accessLogLines = (Collection<AccessLogLine>) payload;
+			return encodeLines(accessLogLines);
+		}
+		if (payload instanceof AccessLogStats) {
+			final BinaryWriter writer = new BinaryWriter(16384);
+			writer.writeByte(STATS);
+			writeStats(writer, (AccessLogStats) payload);
+			return writer.toByteArray();
+		}
+		if (payload instanceof AccessLogAlert) {
+			final BinaryWriter writer = new BinaryWriter(64);
+			writer.writeByte(ALERT);
+			writeAlert(writer, (AccessLogAlert) payload);
+			return writer.toByteArray();
+		}
+		throw new IllegalArgumentException(String.format("Payload=%s can not be encoded by the BinaryMessageCodec", payload));
+	}
+
+	@Override
+	public <T> T decode(Object body, Class<T> type) {
+		if (!(body instanceof byte[])) {
+			throw new IllegalArgumentException(String.format("BinaryMessageCodec can not decode a %s body", body == null ? null : body.getClass().getSimpleName()));
+		}
+		final BinaryReader reader = new BinaryReader((byte[]) body);
+		final int payloadType = reader.readByte();
+
+		if (payloadType == LINES && type == AccessLogLine[].class) {
+			final AccessLogLine[] accessLogLines = new AccessLogLine[(int) reader.readVarLong()];
+			for (int i = 0; i < accessLogLines.length; i++) {
+				accessLogLines[i] = readLine(reader);
+			}
+			return type.cast(accessLogLines);
+		}
+		if (payloadType == STATS && type == AccessLogStats.class) {
+			return type.cast(readStats(reader));
+		}
+		if (payloadType == ALERT && type == AccessLogAlert.class) {
+			return type.cast(readAlert(reader));
+		}
+		throw new IllegalArgumentException(String.format("Binary payload type=%s can not be decoded as %s", payloadType, type.getSimpleName()));
+	}
+
+	private static byte[] encodeLines(Collection<AccessLogLine> accessLogLines) {
+		final BinaryWriter writer = new BinaryWriter(64 + accessLogLines.size() * 64);
+		writer.writeByte(LINES);
+		writer.writeVarLong(accessLogLines.size());
+		accessLogLines.forEach(accessLogLine -> writeLine(writer, accessLogLine));
+		return writer.toByteArray();
+	}
+
+	private static void writeLine(BinaryWriter writer, AccessLogLine accessLogLine) {
+		writer.writeLong(accessLogLine.getSeqId());
+		writer.writeTime(accessLogLine.getInsertTime());
+		writer.writeString(accessLogLine.getHost());
+		writer.writeString(accessLogLine.getIdentifier());
+		writer.writeString(accessLogLine.getUser());
+		writer.writeTime(accessLogLine.getDateTime());
+		writer.writeVarLong(accessLogLine.getHttpMethod() == null ? 0 : accessLogLine.getHttpMethod().ordinal() + 1);
+		writer.writeString(accessLogLine.getResource());
+		writer.writeString(accessLogLine.getProtocol());
+		writer.writeLong(accessLogLine.getReturnedStatus());
+		writer.writeLong(accessLogLine.getContentSize());
+		writer.writeString(accessLogLine.getReferrer());
+		writer.writeString(accessLogLine.getUserAgent());
+		writer.writeNullableLong(accessLogLine.getRequestDuration());
+		writer.writeNullableLong(accessLogLine.getUpstreamDuration());
+	}
+
+	private static AccessLogLine readLine(BinaryReader reader) {
+		final AccessLogLine accessLogLine = new AccessLogLine();
+		accessLogLine.setSeqId(reader.readLong());
+		accessLogLine.setInsertTime(reader.readTime());
+		accessLogLine.setHost(reader.readString());
+		accessLogLine.setIdentifier(reader.readString());
+		accessLogLine.setUser(reader.readString());
+		accessLogLine.setDateTime(reader.readTime());
+		final int httpMethod = (int) reader.readVarLong();
+		accessLogLine.setHttpMethod(httpMethod == 0 ? null : HTTP_METHODS[httpMethod - 1]);
+		accessLogLine.setResource(reader.readString());
+		accessLogLine.setProtocol(reader.readString());
+		accessLogLine.setReturnedStatus(reader.readInt());
+		accessLogLine.setContentSize(reader.readLong());
+		accessLogLine.setReferrer(reader.readString());
+		accessLogLine.setUserAgent(reader.readString());
+		accessLogLine.setRequestDuration(reader.readNullableLong());
+		accessLogLine.setUpstreamDuration(reader.readNullableLong());
+		return accessLogLine;
+	}
+
+	private static void writeStats(BinaryWriter writer, AccessLogStats accessLogStats) {
+		writer.writeTime(accessLogStats.getStart());
+		writer.writeTime(accessLogStats.getEnd());
+		writer.writeLong(accessLogStats.getRequests().get());
+		writer.writeLong(accessLogStats.getValidRequests().get());
+		writer.writeLong(accessLogStats.getInvalidRequests().get());
+		writer.writeLong(accessLogStats.getTotalContent().get());
+		writer.writeLong(accessLogStats.getLateRequests());
+
+		writeCounts(writer, accessLogStats.getTopVisitsByMethod());
+		writeCounts(writer, accessLogStats.getTopValidVisitedRequestsSections());
+		writeCounts(writer, accessLogStats.getTopInvalidVisitedRequestsSections());
+		writeCounts(writer, accessLogStats.getTopVisitsByHost());
+		writeCounts(writer, accessLogStats.getTopVisitsByUser());
+		writeCounts(writer, accessLogStats.getTopVisitsSection());
+		writer.writeLong(accessLogStats.getTopVisitsByHostMaxError());
+		writer.writeLong(accessLogStats.getTopVisitsByUserMaxError());
+		writer.writeLong(accessLogStats.getTopVisitsSectionMaxError());
+
+		writePercentiles(writer, accessLogStats.getContentSize());
+		writeHistogram(writer, accessLogStats.getContentSizeHistogram());
+		writer.writeVarLong(accessLogStats.getTopVisitsSectionContentSize().size());
+		accessLogStats.getTopVisitsSectionContentSize().forEach((section, percentiles) -> {
+			writer.writeString(section);
+			writePercentiles(writer, percentiles);
+		});
+
+		writer.writeLong(accessLogStats.getDistinctHosts());
+		writer.writeLong(accessLogStats.getDistinctUsers());
+		writer.writeLong(accessLogStats.getDistinctResources());
+		writeSketch(writer, accessLogStats.getHostsSketch());
+		writeSketch(writer, accessLogStats.getUsersSketch());
+		writeSketch(writer, accessLogStats.getResourcesSketch());
+	}
+
+	private static AccessLogStats readStats(BinaryReader reader) {
+		final AccessLogStats accessLogStats = AccessLogStats.with(reader.readTime(), reader.readTime());
+		accessLogStats.getRequests().set(reader.readLong());
+		accessLogStats.getValidRequests().set(reader.readLong());
+		accessLogStats.getInvalidRequests().set(reader.readLong());
+		accessLogStats.getTotalContent().set(reader.readLong());
+		accessLogStats.setLateRequests(reader.readLong());
+
+		readCounts(reader, accessLogStats.getTopVisitsByMethod());
+		readCounts(reader, accessLogStats.getTopValidVisitedRequestsSections());
+		readCounts(reader, accessLogStats.getTopInvalidVisitedRequestsSections());
+		readCounts(reader, accessLogStats.getTopVisitsByHost());
+		readCounts(reader, accessLogStats.getTopVisitsByUser());
+		readCounts(reader, accessLogStats.getTopVisitsSection());
+		accessLogStats.setTopVisitsByHostMaxError(reader.readLong());
+		accessLogStats.setTopVisitsByUserMaxError(reader.readLong());
+		accessLogStats.setTopVisitsSectionMaxError(reader.readLong());
+
+		accessLogStats.setContentSize(readPercentiles(reader));
+		accessLogStats.setContentSizeHistogram(readHistogram(reader));
+		final long sections = reader.readVarLong();
+		for (long i = 0; i < sections; i++) {
+			accessLogStats.getTopVisitsSectionContentSize().put(reader.readString(), readPercentiles(reader));
+		}
+
+		accessLogStats.setDistinctHosts(reader.readLong());
+		accessLogStats.setDistinctUsers(reader.readLong());
+		accessLogStats.setDistinctResources(reader.readLong());
+		accessLogStats.setHostsSketch(readSketch(reader));
+		accessLogStats.setUsersSketch(readSketch(reader));
+		accessLogStats.setResourcesSketch(readSketch(reader));
+		return accessLogStats;
+	}
+
+	private static void writeAlert(BinaryWriter writer, AccessLogAlert accessLogAlert) {
+		writer.writeLong(accessLogAlert.getRequests());
+		writer.writeDouble(accessLogAlert.getRequestsSecond());
+		writer.writeTime(accessLogAlert.getAlertTime());
+		writer.writeTime(accessLogAlert.getStart());
+		writer.writeTime(accessLogAlert.getEnd());
+		writer.writeVarLong(accessLogAlert.getType() == null ? 0 : accessLogAlert.getType().ordinal() + 1);
+		writer.writeLong(accessLogAlert.getDistinctHosts());
+		writer.writeLong(accessLogAlert.getDistinctUsers());
+		writer.writeLong(accessLogAlert.getDistinctResources());
+	}
+
+	private static AccessLogAlert readAlert(BinaryReader reader) {
+		final AccessLogAlert accessLogAlert = new AccessLogAlert();
+		accessLogAlert.setRequests(reader.readLong());
+		accessLogAlert.setRequestsSecond(reader.readDouble());
+		accessLogAlert.setAlertTime(reader.readTime());
+		accessLogAlert.setStart(reader.readTime());
+		accessLogAlert.setEnd(reader.readTime());
+		final int type = (int) reader.readVarLong();
+		accessLogAlert.setType(type == 0 ? null : ALERT_TYPES[type - 1]);
+		accessLogAlert.setDistinctHosts(reader.readLong());
+		accessLogAlert.setDistinctUsers(reader.readLong());
+		accessLogAlert.setDistinctResources(reader.readLong());
+		return accessLogAlert;
+	}
+
+	private static void writeCounts(BinaryWriter writer, Map<String, AtomicLong> counts) {
+		writer.writeVarLong(counts.size());
+		counts.forEach((key, count) -> {
+			writer.writeString(key);
+			writer.writeLong(count.get());
+		});
+	}
+
+	private static void readCounts(BinaryReader reader, Map<String, AtomicLong> counts) {
+		final long size = reader.readVarLong();
+		for (long i = 0; i < size; i++) {
+			counts.put(reader.readString(), new AtomicLong(reader.readLong()));
+		}
+	}
+
+	private static void writePercentiles(BinaryWriter writer, Percentiles percentiles) {
+		if (percentiles == null) {
+			writer.writeByte(NULL);
+			return;
+		}
+		writer.writeByte(DENSE);
+		writer.writeLong(percentiles.getP50());
+		writer.writeLong(percentiles.getP90());
+		writer.writeLong(percentiles.getP99());
+		writer.writeLong(percentiles.getMax());
+	}
+
+	private static Percentiles readPercentiles(BinaryReader reader) {
+		if (reader.readByte() == NULL) {
+			return null;
+		}
+		return new Percentiles(reader.readLong(), reader.readLong(), reader.readLong(), reader.readLong());
+	}
+
+	private static void writeHistogram(BinaryWriter writer, LogHistogram histogram) {
+		if (histogram == null || histogram.getBuckets() == null) {
+			writer.writeByte(NULL);
+			return;
+		}
+		writer.writeByte(DENSE);
+		writer.writeVarLong(histogram.getBuckets().length);
+		for (long bucket : histogram.getBuckets()) {
+			writer.writeLong(bucket);
+		}
+		writer.writeLong(histogram.getCount());
+		writer.writeLong(histogram.getMax());
+	}
+
+	private static LogHistogram readHistogram(BinaryReader reader) {
+		if (reader.readByte() == NULL) {
+			return null;
+		}
+		final long[] buckets = new long[(int) reader.readVarLong()];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = reader.readLong();
+		}
+		final LogHistogram histogram = new LogHistogram();
+		histogram.setBuckets(buckets);
+		histogram.setCount(reader.readLong());
+		histogram.setMax(reader.readLong());
+		return histogram;
+	}
+
+	/**
+	 * the sketches of small windows have most of their registers empty, so only the set ones are written with their index delta.
+	 */
+	private static void writeSketch(BinaryWriter writer, HyperLogLog sketch) {
+		if (sketch == null || sketch.getRegisters() == null) {
+			writer.writeByte(NULL);
+			return;
+		}
+		final byte[] registers = sketch.getRegisters();
+		int set = 0;
+		for (byte register : registers) {
+			if (register != 0) {
+				set++;
+			}
+		}
+		if (set * 2 >= registers.length) {
+			writer.writeByte(DENSE);
+			writer.writeBytes(registers);
+			return;
+		}
+		writer.writeByte(SPARSE);
+		writer.writeVarLong(registers.length);
+		writer.writeVarLong(set);
+		int previous = 0;
+		for (int index = 0; index < registers.length; index++) {
+			if (registers[index] != 0) {
+				writer.writeVarLong(index - previous);
+				writer.writeByte(registers[index]);
+				previous = index;
+			}
+		}
+	}
+
+	private static HyperLogLog readSketch(BinaryReader reader) {
+		final int encoding = reader.readByte();
+		if (encoding == NULL) {
+			return null;
+		}
+		final HyperLogLog sketch = new HyperLogLog();
+		if (encoding == DENSE) {
+			final byte[] registers = reader.readBytes();
+			checkRegisters(registers.length);
+			sketch.setRegisters(registers);
+			return sketch;
+		}
+		if (encoding != SPARSE) {
+			throw new IllegalArgumentException(String.format("Binary message has an unknown sketch encoding=%s", encoding));
+		}
+		//the length and the index deltas come from the wire, so they are checked before any register is allocated or set.
+		final long length = reader.readVarLong();
+		final byte[] registers = new byte[checkRegisters(length)];
+		final long set = reader.readVarLong();
+		if (set < 0 || set > length) {
+			throw new IllegalArgumentException(String.format("Binary message has a malformed sketch with %s set registers", set));
+		}
+		long index = 0;
+		for (long i = 0; i < set; i++) {
+			index += reader.readVarLong();
+			if (index < 0 || index >= registers.length) {
+				throw new IllegalArgumentException(String.format("Binary message has a malformed sketch with register index=%s", index));
+			}
+			registers[(int) index] = (byte) reader.readByte();
+		}
+		sketch.setRegisters(registers);
+		return sketch;
+	}
+
+	private static int checkRegisters(long length) {
+		if (length != HyperLogLog.REGISTERS) {
+			throw new IllegalArgumentException(String.format("Binary message has a malformed sketch with %s registers", length));
+		}
+		return (int) length;
+	}
+}
@@ -0,0 +1,103 @@
+package com.adrian.rebollo.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the primitives written by a {@link BinaryWriter}, throwing an IllegalArgumentException when the buffer is truncated or malformed.
+ */
+class BinaryReader {
+
+	private final List<String> dictionary = new ArrayList<>();
+	private final byte[] buffer;
+	private int position;
+	private long lastTime;
+
+	BinaryReader(byte[] buffer) {
+		this.buffer = buffer;
+	}
+
+	int readByte() {
+		if (position >= buffer.length) {
+			throw new IllegalArgumentException(String.format("Binary message of %s bytes is truncated", buffer.length));
+		}
+		return buffer[position++] & 0xFF;
+	}
+
+	long readVarLong() {
+		long value = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			final int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Binary message has a malformed varint");
+	}
+
+	int readInt() {
+		return (int) readLong();
+	}
+
+	long readLong() {
+		return unzigzag(readVarLong());
+	}
+
+	Long readNullableLong() {
+		final long value = readVarLong();
+		return value == 0 ? null : unzigzag(value - 1);
+	}
+
+	double readDouble() {
+		long bits = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+			bits |= (long) readByte() << shift;
+		}
+		return Double.longBitsToDouble(bits);
+	}
+
+	byte[] readBytes() {
+		final int length = (int) readVarLong();
+		if (length < 0 || position + length > buffer.length) {
+			throw new IllegalArgumentException(String.format("Binary message of %s bytes is truncated", buffer.length));
+		}
+		final byte[] value = new byte[length];
+		System.arraycopy(buffer, position, value, 0, length);
+		position += length;
+		return value;
+	}
+
+	String readString() {
+		final long value = readVarLong();
+		if (value == 0) {
+			return null;
+		}
+		if (value == 1) {
+			final String string = new String(readBytes(), StandardCharsets.UTF_8);
+			dictionary.add(string);
+			return string;
+		}
+		if (value - 2 >= dictionary.size()) {
+			throw new IllegalArgumentException(String.format("Binary message refers to an unknown string=%s", value - 2));
+		}
+		return dictionary.get((int) (value - 2));
+	}
+
+	LocalDateTime readTime() {
+		final long value = readVarLong();
+		if (value == 0) {
+			return null;
+		}
+		final long time = lastTime + unzigzag(value - 1);
+		lastTime = time;
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(time, 1000), (int) Math.floorMod(time, 1000) * 1_000_000, ZoneOffset.UTC);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
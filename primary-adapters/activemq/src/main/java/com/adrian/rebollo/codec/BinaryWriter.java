@@ -0,0 +1,112 @@
+package com.adrian.rebollo.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Growable byte buffer writing the {@link BinaryMessageCodec} primitives:
+ * unsigned and zigzag varints (LEB128), times as the varint delta of epoch millis from the previous written time,
+ * and strings into a dictionary, so a repeated string is written as its dictionary index.
+ * Null values are written as 0, so the written values are shifted by 1.
+ */
+class BinaryWriter {
+
+	private final Map<String, Integer> dictionary = new HashMap<>();
+	private byte[] buffer;
+	private int size;
+	private long lastTime;
+
+	BinaryWriter(int initialCapacity) {
+		this.buffer = new byte[initialCapacity];
+	}
+
+	void writeByte(int value) {
+		ensureCapacity(1);
+		buffer[size++] = (byte) value;
+	}
+
+	void writeVarLong(long value) {
+		ensureCapacity(10);
+		while ((value & ~0x7FL) != 0) {
+			buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[size++] = (byte) value;
+	}
+
+	/**
+	 * small negative values are written as small varints too.
+	 */
+	void writeLong(long value) {
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	void writeNullableLong(Long value) {
+		if (value == null) {
+			writeVarLong(0);
+		} else {
+			writeVarLong(((value << 1) ^ (value >> 63)) + 1);
+		}
+	}
+
+	void writeDouble(double value) {
+		final long bits = Double.doubleToRawLongBits(value);
+		ensureCapacity(Long.BYTES);
+		for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+			buffer[size++] = (byte) (bits >>> shift);
+		}
+	}
+
+	void writeBytes(byte[] value) {
+		writeVarLong(value.length);
+		ensureCapacity(value.length);
+		System.arraycopy(value, 0, buffer, size, value.length);
+		size += value.length;
+	}
+
+	/**
+	 * 0 is null, 1 is followed by a new string added to the dictionary, and any other value is the dictionary index + 2.
+	 */
+	void writeString(String value) {
+		if (value == null) {
+			writeVarLong(0);
+			return;
+		}
+		final Integer index = dictionary.get(value);
+		if (index != null) {
+			writeVarLong(index + 2L);
+			return;
+		}
+		dictionary.put(value, dictionary.size());
+		writeVarLong(1);
+		writeBytes(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * times are written as epoch millis of their UTC local date time, which are only used to read them back as the same local date time.
+	 */
+	void writeTime(LocalDateTime value) {
+		if (value == null) {
+			writeVarLong(0);
+			return;
+		}
+		final long time = value.toInstant(ZoneOffset.UTC).toEpochMilli();
+		final long delta = time - lastTime;
+		lastTime = time;
+		writeVarLong(((delta << 1) ^ (delta >> 63)) + 1);
+	}
+
+	byte[] toByteArray() {
+		return Arrays.copyOf(buffer, size);
+	}
+
+	private void ensureCapacity(int bytes) {
+		if (size + bytes > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(size + bytes, buffer.length * 2));
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.adrian.rebollo.codec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+/**
+ * Text messages with the payloads serialized by the application ObjectMapper, human readable for debugging.
+ * It is the codec of the messages without the {@link MessageCodecs#HEADER} header, ie: sent before the codecs were introduced.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonMessageCodec implements MessageCodec {
+
+	public static final String NAME = "json";
+
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * readers by payload type, created once so their root deserializer is only looked up once.
+	 */
+	private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	@SneakyThrows
+	public Object encode(Object payload) {
+		return objectMapper.writeValueAsString(payload);
+	}
+
+	@Override
+	@SneakyThrows
+	public <T> T decode(Object body, Class<T> type) {
+		//a single line is read as an array of one line.
+		final ObjectReader reader = readers.computeIfAbsent(type, t -> objectMapper.readerFor(t).with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY));
+		return (body instanceof byte[]) ? reader.readValue((byte[]) body) : reader.readValue((String) body);
+	}
+}
@@ -0,0 +1,25 @@
+package com.adrian.rebollo.codec;
+
+/**
+ * Encoding of the internal messages payloads, selected by name through the {@link MessageCodecs#HEADER} message header.
+ */
+public interface MessageCodec {
+
+	/**
+	 * @return name of the codec, sent in the {@link MessageCodecs#HEADER} header of the encoded messages.
+	 */
+	String getName();
+
+	/**
+	 * encode the given payload (a line, a list of lines, stats or an alert).
+	 *
+	 * @return the message body, a String for text messages or a byte[] for bytes messages.
+	 */
+	Object encode(Object payload);
+
+	/**
+	 * decode the given message body into the expected type.
+	 * lines are always decoded as an AccessLogLine[], whether they were sent alone or in a batch.
+	 */
+	<T> T decode(Object body, Class<T> type);
+}
@@ -0,0 +1,72 @@
+package com.adrian.rebollo.codec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registry of the available {@link MessageCodec}s.
+ * Messages are encoded by the `adapters.activemq.codec` one and carry its name in the {@link #HEADER} header,
+ * so every message is decoded by the codec which encoded it, whatever the configured one (ie: while switching codecs with messages in the queues).
+ */
+@Slf4j
+@Component
+public class MessageCodecs {
+
+	public static final String HEADER = "codec";
+
+	private final Map<String, MessageCodec> codecs;
+
+	@Getter
+	private final MessageCodec codec;
+
+	public MessageCodecs(List<MessageCodec> codecs, @Value("${adapters.activemq.codec:binary}") String codec) {
+		this.codecs = codecs.stream().collect(Collectors.toMap(MessageCodec::getName, Function.identity()));
+		this.codec = this.codecs.get(codec);
+		if (this.codec == null) {
+			throw new IllegalArgumentException(String.format("Unknown codec=%s, available codecs are %s", codec, this.codecs.keySet()));
+		}
+		LOG.info("Initializing MessageCodecs with codec={}", codec);
+	}
+
+	/**
+	 * @return a message with the given payload encoded by the configured codec, and its name in the codec header.
+	 */
+	public Message createMessage(Session session, Object payload) throws JMSException {
+		final Object body = codec.encode(payload);
+		final Message message;
+		if (body instanceof byte[]) {
+			final BytesMessage bytesMessage = session.createBytesMessage();
+			bytesMessage.writeBytes((byte[]) body);
+			message = bytesMessage;
+		} else {
+			message = session.createTextMessage((String) body);
+		}
+		message.setStringProperty(HEADER, codec.getName());
+		return message;
+	}
+
+	/**
+	 * decode the body of a consumed message with the codec named by its header, json when it has none.
+	 */
+	public <T> T decode(org.apache.camel.Message message, Class<T> type) {
+		final String name = message.getHeader(HEADER, JsonMessageCodec.NAME, String.class);
+		final MessageCodec messageCodec = codecs.get(name);
+		if (messageCodec == null) {
+			throw new IllegalArgumentException(String.format("Message with unknown codec=%s", name));
+		}
+		return messageCodec.decode(message.getBody(), type);
+	}
+}
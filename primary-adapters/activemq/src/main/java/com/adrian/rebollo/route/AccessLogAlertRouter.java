@@ -2,13 +2,14 @@ package com.adrian.rebollo.route;
 
 import static com.adrian.rebollo.helper.ActiveMqDestinationBuilder.queue;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import com.adrian.rebollo.PrimaryEndpoint;
 import com.adrian.rebollo.api.ExternalDispatcherObserver;
+import com.adrian.rebollo.codec.MessageCodecs;
 import com.adrian.rebollo.helper.EnhancedRouteBuilder;
 import com.adrian.rebollo.model.AccessLogAlert;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 
@@ -16,11 +17,12 @@ import lombok.RequiredArgsConstructor;
  * Route for HttpAccessLogAlert which are handled by the LogService
  */
 @Component
+@Profile("!inmemory")
 @RequiredArgsConstructor
 public class AccessLogAlertRouter extends EnhancedRouteBuilder {
 
 	private final PrimaryEndpoint endpoint;
-	private final ObjectMapper objectMapper;
+	private final MessageCodecs messageCodecs;
 	private final ExternalDispatcherObserver externalDispatcherObserver;
 
 	@Override
@@ -32,7 +34,7 @@ public class AccessLogAlertRouter extends EnhancedRouteBuilder {
 				.setTransacted(true)
 				.build())
 				.process((exchange) -> {
-					AccessLogAlert payload = objectMapper.readValue(exchange.getIn().getBody(String.class), AccessLogAlert.class);
+					AccessLogAlert payload = messageCodecs.decode(exchange.getIn(), AccessLogAlert.class);
 					externalDispatcherObserver.notify(payload);
 				});
 	}
@@ -2,36 +2,54 @@ package com.adrian.rebollo.route;
 
 import static com.adrian.rebollo.helper.ActiveMqDestinationBuilder.queue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import com.adrian.rebollo.PrimaryEndpoint;
 import com.adrian.rebollo.api.AccessLogStatsService;
+import com.adrian.rebollo.codec.MessageCodec;
+import com.adrian.rebollo.codec.MessageCodecs;
 import com.adrian.rebollo.helper.EnhancedRouteBuilder;
 import com.adrian.rebollo.model.AccessLogLine;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Route for HttpAccessLogLine which are handled by the HttpAccessLogAlertService
+ * Every message holds a single line or a batch of them (see PrimaryActiveMQ), acknowledged at once.
+ * A line which can not be handled is dead lettered alone by the route itself, in the same exchange:
+ * the dead letter queue producer shares the connection factory of the transacted consumer, so it is sent in the consumer transaction,
+ * and it is committed with the batch or rolled back (and sent again on redelivery) with it.
  */
+@Slf4j
 @Component
+@Profile("!inmemory")
 @RequiredArgsConstructor
 public class AccessLogLineRouter extends EnhancedRouteBuilder {
 
+	/**
+	 * exchange property holding the encoded lines of the batch to dead letter.
+	 */
+	static final String DEAD_LINES = "deadLines";
+
 	@Value("${service.thread-pool-size}")
 	private int threadPoolSize;
 	@Value("${service.max-thread-pool-size}")
 	private int maxThreadPoolSize;
 
 	private final PrimaryEndpoint endpoint;
-	private final ObjectMapper objectMapper;
+	private final MessageCodecs messageCodecs;
 	private final AccessLogStatsService accessLogStatsService;
 
 	@Override
 	public void configure() {
-		errorHandler(deadLetterChannel(queue(endpoint.getInternalLogLineQueueDead()).build()));
+		final String deadLetterQueue = queue(endpoint.getInternalLogLineQueueDead()).build();
+		errorHandler(deadLetterChannel(deadLetterQueue));
 
 		/**
 		 * Use the threadPoolSize and maxThreadPoolSize to allow parallel messages handling.
@@ -57,6 +75,23 @@ public class AccessLogLineRouter extends EnhancedRouteBuilder {
 				.setMaxConcurrentConsumers(maxThreadPoolSize)
 				.setTransacted(true)
 				.build())
-				.process((exchange) -> accessLogStatsService.handle(objectMapper.readValue(exchange.getIn().getBody(String.class), AccessLogLine.class)));
+				.process((exchange) -> {
+					final AccessLogLine[] accessLogLines = messageCodecs.decode(exchange.getIn(), AccessLogLine[].class);
+					final MessageCodec codec = messageCodecs.getCodec();
+					final List<Object> deadLines = new ArrayList<>();
+					for (AccessLogLine accessLogLine : accessLogLines) {
+						try {
+							accessLogStatsService.handle(accessLogLine);
+						} catch (RuntimeException exception) {
+							//only the failing line is dead lettered, redelivering the whole batch would count the other lines twice.
+							LOG.error("Dead lettering accessLogLine={} which could not be handled", accessLogLine, exception);
+							deadLines.add(codec.encode(accessLogLine));
+						}
+					}
+					exchange.setProperty(DEAD_LINES, deadLines);
+					exchange.getIn().setHeader(MessageCodecs.HEADER, codec.getName());
+				})
+				.split(exchangeProperty(DEAD_LINES))
+					.to(deadLetterQueue);
 	}
 }
@@ -2,28 +2,35 @@ package com.adrian.rebollo.route;
 
 import static com.adrian.rebollo.helper.ActiveMqDestinationBuilder.queue;
 
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import com.adrian.rebollo.PrimaryEndpoint;
 import com.adrian.rebollo.api.AccessLogAlertService;
+import com.adrian.rebollo.api.AccessLogRollupService;
 import com.adrian.rebollo.api.ExternalDispatcherObserver;
+import com.adrian.rebollo.codec.MessageCodecs;
 import com.adrian.rebollo.helper.EnhancedRouteBuilder;
 import com.adrian.rebollo.model.AccessLogStats;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 
 /**
- * Route for AccessLogStats which are handled by the accessLogAlertService and externalDispatcherObserver
+ * Route for AccessLogStats which are handled by the accessLogAlertService, accessLogRollupService and externalDispatcherObserver
  */
 @Component
+@Profile("!inmemory")
 @RequiredArgsConstructor
 public class AccessLogStatsRouter extends EnhancedRouteBuilder {
 
 	private final PrimaryEndpoint endpoint;
-	private final ObjectMapper objectMapper;
+	private final MessageCodecs messageCodecs;
 	private final AccessLogAlertService accessLogAlertService;
 	private final ExternalDispatcherObserver externalDispatcherObserver;
+	//only available when `service.rollup.enabled`
+	private final Optional<AccessLogRollupService> accessLogRollupService;
 
 	@Override
 	public void configure() {
@@ -34,9 +41,11 @@ public class AccessLogStatsRouter extends EnhancedRouteBuilder {
 				.setTransacted(true)
 				.build())
 				.process((exchange) -> {
-					AccessLogStats payload = objectMapper.readValue(exchange.getIn().getBody(String.class), AccessLogStats.class);
+					AccessLogStats payload = messageCodecs.decode(exchange.getIn(), AccessLogStats.class);
 					//route the stats to the alert service
 					accessLogAlertService.handle(payload);
+					//route the stats to the rollups
+					accessLogRollupService.ifPresent(rollupService -> rollupService.handle(payload));
 					//route the stats to the ExternalDispatcherObserver
 					externalDispatcherObserver.notify(payload);
 				});
@@ -0,0 +1,78 @@
+package com.adrian.rebollo;
+
+import java.util.List;
+
+import javax.jms.DeliveryMode;
+import javax.jms.Message;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.adrian.rebollo.codec.BinaryMessageCodec;
+import com.adrian.rebollo.codec.MessageCodecs;
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AlertType;
+
+public class AmqConfigTest {
+
+	private final AmqConfig amqConfig = new AmqConfig();
+	private BrokerService brokerService;
+	private CachingConnectionFactory connectionFactory;
+
+	@After
+	public void tearDown() throws Exception {
+		if (connectionFactory != null) {
+			connectionFactory.destroy();
+		}
+		if (brokerService != null) {
+			brokerService.stop();
+		}
+	}
+
+	@Test
+	public void testEmbeddedBroker() throws Exception {
+
+		ReflectionTestUtils.setField(amqConfig, "brokerUrl", "vm://embedded-test?create=false");
+		ReflectionTestUtils.setField(amqConfig, "maxThreadPoolSize", 10);
+		brokerService = amqConfig.embeddedBroker(false, "target/activemq-data");
+		Assert.assertEquals("embedded-test", brokerService.getBrokerName());
+		Assert.assertFalse(brokerService.isPersistent());
+
+		final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("embeddedBroker", brokerService);
+		connectionFactory = amqConfig.cachingConnectionFactory(beanFactory.getBeanProvider(BrokerService.class));
+		final JmsTemplate jmsTemplate = amqConfig.jmsTemplate(connectionFactory);
+		jmsTemplate.setReceiveTimeout(5000);
+
+		final PrimaryEndpoint endpoint = new PrimaryEndpoint();
+		endpoint.setInternalLogLineQueue("line");
+		endpoint.setInternalLogAlertQueue("alert");
+		final PrimaryActiveMQ primaryActiveMQ = new PrimaryActiveMQ(jmsTemplate, new MessageCodecs(List.of(new BinaryMessageCodec()), BinaryMessageCodec.NAME), endpoint);
+		ReflectionTestUtils.setField(primaryActiveMQ, "lineBatchSize", 1);
+		ReflectionTestUtils.setField(primaryActiveMQ, "nonPersistentLines", true);
+
+		primaryActiveMQ.dispatch(AccessLogLine.builder().seqId(1).build());
+		primaryActiveMQ.dispatch(AccessLogAlert.builder().type(AlertType.NO_ALERT).build());
+
+		final Message line = jmsTemplate.receive("line");
+		final Message alert = jmsTemplate.receive("alert");
+		Assert.assertNotNull(line);
+		Assert.assertNotNull(alert);
+		Assert.assertEquals(DeliveryMode.NON_PERSISTENT, line.getJMSDeliveryMode());
+		Assert.assertEquals(DeliveryMode.PERSISTENT, alert.getJMSDeliveryMode());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testEmbeddedBrokerRequiresVmUrl() throws Exception {
+
+		ReflectionTestUtils.setField(amqConfig, "brokerUrl", "tcp://localhost:61616");
+		brokerService = amqConfig.embeddedBroker(false, "target/activemq-data");
+	}
+}
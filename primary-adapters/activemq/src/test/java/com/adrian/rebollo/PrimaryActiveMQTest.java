@@ -0,0 +1,125 @@
+package com.adrian.rebollo;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.SessionCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.adrian.rebollo.codec.MessageCodecs;
+import com.adrian.rebollo.model.AccessLogLine;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PrimaryActiveMQTest {
+
+	private PrimaryActiveMQ primaryActiveMQ;
+
+	@Mock
+	private JmsTemplate jmsTemplate;
+	@Mock
+	private MessageCodecs messageCodecs;
+	@Mock
+	private Session session;
+	@Mock
+	private Queue queue;
+	@Mock
+	private MessageProducer producer;
+	@Mock
+	private Message message;
+
+	@Before
+	public void init() throws JMSException {
+		final PrimaryEndpoint endpoint = new PrimaryEndpoint();
+		endpoint.setInternalLogLineQueue("internal-log-line");
+
+		primaryActiveMQ = new PrimaryActiveMQ(jmsTemplate, messageCodecs, endpoint);
+		ReflectionTestUtils.setField(primaryActiveMQ, "lineBatchSize", 3);
+
+		doAnswer(invocation -> ((SessionCallback<?>) invocation.getArgument(0)).doInJms(session))
+				.when(jmsTemplate).execute(any(SessionCallback.class), eq(false));
+		when(session.createQueue("internal-log-line")).thenReturn(queue);
+		when(session.createProducer(queue)).thenReturn(producer);
+		when(messageCodecs.createMessage(eq(session), any())).thenReturn(message);
+	}
+
+	@Test
+	public void testBatchIsSentAtTheSizeLimit() throws JMSException {
+
+		final List<AccessLogLine> lines = lines(3);
+
+		primaryActiveMQ.dispatch(lines.get(0));
+		primaryActiveMQ.dispatch(lines.get(1));
+
+		verify(producer, never()).send(any(Message.class), anyInt(), anyInt(), anyLong());
+
+		primaryActiveMQ.dispatch(lines.get(2));
+
+		Assert.assertEquals(List.of(lines), sentPayloads(1));
+		verify(producer).send(message, DeliveryMode.PERSISTENT, Message.DEFAULT_PRIORITY, Message.DEFAULT_TIME_TO_LIVE);
+		verify(producer).close();
+	}
+
+	@Test
+	public void testFlushSendsThePartialBatch() throws JMSException {
+
+		final List<AccessLogLine> lines = lines(2);
+
+		lines.forEach(primaryActiveMQ::dispatch);
+		primaryActiveMQ.flushLines();
+		//nothing left to send.
+		primaryActiveMQ.flushLines();
+
+		Assert.assertEquals(List.of(lines), sentPayloads(1));
+	}
+
+	@Test
+	public void testEveryLineIsSentWithBatchSize1() throws JMSException {
+		ReflectionTestUtils.setField(primaryActiveMQ, "lineBatchSize", 1);
+		ReflectionTestUtils.setField(primaryActiveMQ, "nonPersistentLines", true);
+
+		final List<AccessLogLine> lines = lines(2);
+
+		lines.forEach(primaryActiveMQ::dispatch);
+
+		Assert.assertEquals(List.of(lines.get(0), lines.get(1)), sentPayloads(2));
+		verify(producer, times(2)).send(message, DeliveryMode.NON_PERSISTENT, Message.DEFAULT_PRIORITY, Message.DEFAULT_TIME_TO_LIVE);
+	}
+
+	private List<Object> sentPayloads(int messages) throws JMSException {
+		final ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+		verify(messageCodecs, times(messages)).createMessage(eq(session), payloads.capture());
+		return payloads.getAllValues();
+	}
+
+	private static List<AccessLogLine> lines(int size) {
+		final AccessLogLine[] lines = new AccessLogLine[size];
+		for (int i = 0; i < size; i++) {
+			lines[i] = AccessLogLine.builder().seqId(i + 1).host("127.0.0.1").build();
+		}
+		return List.of(lines);
+	}
+}
@@ -0,0 +1,187 @@
+package com.adrian.rebollo.codec;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.AlertType;
+import com.adrian.rebollo.model.HttpMethod;
+import com.adrian.rebollo.model.HyperLogLog;
+import com.adrian.rebollo.model.LogHistogram;
+import com.adrian.rebollo.model.Percentiles;
+
+public class BinaryMessageCodecTest {
+
+	private static final LocalDateTime TIME = LocalDateTime.of(2018, 5, 9, 16, 0, 42, 123_000_000);
+
+	private final BinaryMessageCodec binaryMessageCodec = new BinaryMessageCodec();
+
+	@Test
+	public void testLines() {
+
+		final AccessLogLine first = AccessLogLine.builder()
+				.seqId(1)
+				.insertTime(TIME.plusSeconds(1))
+				.host("127.0.0.1")
+				.identifier("-")
+				.user("frank")
+				.dateTime(TIME)
+				.httpMethod(HttpMethod.GET)
+				.resource("/api/user")
+				.protocol("HTTP/1.0")
+				.returnedStatus(200)
+				.contentSize(123)
+				.requestDuration(1500L)
+				.build();
+		final AccessLogLine second = AccessLogLine.builder()
+				.seqId(2)
+				.insertTime(TIME.minusDays(1))
+				.host("127.0.0.1")
+				.user("frank")
+				.dateTime(TIME.minusDays(1))
+				.httpMethod(HttpMethod.POST)
+				.resource("/api/user")
+				.protocol("HTTP/1.0")
+				.returnedStatus(503)
+				.contentSize(-1)
+				.referrer("http://example.com/ñ")
+				.userAgent("curl/7.64.1")
+				.build();
+
+		final byte[] body = (byte[]) binaryMessageCodec.encode(List.of(first, second));
+
+		Assert.assertArrayEquals(new AccessLogLine[] {first, second}, binaryMessageCodec.decode(body, AccessLogLine[].class));
+		Assert.assertArrayEquals(new AccessLogLine[] {first}, binaryMessageCodec.decode(binaryMessageCodec.encode(first), AccessLogLine[].class));
+	}
+
+	@Test
+	public void testStats() {
+
+		final AccessLogStats accessLogStats = AccessLogStats.with(TIME, TIME.plusSeconds(10))
+				.setRequests(new AtomicLong(300))
+				.setValidRequests(new AtomicLong(200))
+				.setInvalidRequests(new AtomicLong(100))
+				.setTotalContent(new AtomicLong(25800))
+				.setLateRequests(3)
+				.setTopVisitsByHostMaxError(7)
+				.setContentSize(new Percentiles(123, 123, 123, 123))
+				.setDistinctHosts(2)
+				.setDistinctUsers(2)
+				.setDistinctResources(1);
+		accessLogStats.getTopVisitsByMethod().put("GET", new AtomicLong(200));
+		accessLogStats.getTopVisitsByMethod().put("POST", new AtomicLong(100));
+		accessLogStats.getTopVisitsSection().put("/api", new AtomicLong(200));
+		accessLogStats.getTopVisitsByHost().put("127.0.0.1", new AtomicLong(200));
+		accessLogStats.getTopVisitsSectionContentSize().put("/api", new Percentiles(12, 123, 123, 123));
+
+		final LogHistogram histogram = new LogHistogram();
+		histogram.record(12);
+		histogram.record(123);
+		accessLogStats.setContentSizeHistogram(histogram);
+
+		final HyperLogLog sparse = new HyperLogLog();
+		sparse.add("127.0.0.1");
+		sparse.add("10.0.0.2");
+		final HyperLogLog dense = new HyperLogLog();
+		for (int i = 0; i < 100_000; i++) {
+			dense.add("/api/" + i);
+		}
+		accessLogStats.setHostsSketch(sparse).setUsersSketch(null).setResourcesSketch(dense);
+
+		final AccessLogStats decoded = binaryMessageCodec.decode(binaryMessageCodec.encode(accessLogStats), AccessLogStats.class);
+
+		Assert.assertEquals(TIME, decoded.getStart());
+		Assert.assertEquals(TIME.plusSeconds(10), decoded.getEnd());
+		Assert.assertEquals(300, decoded.getRequests().get());
+		Assert.assertEquals(200, decoded.getValidRequests().get());
+		Assert.assertEquals(100, decoded.getInvalidRequests().get());
+		Assert.assertEquals(25800, decoded.getTotalContent().get());
+		Assert.assertEquals(3, decoded.getLateRequests());
+		Assert.assertEquals(List.of("GET", "POST"), List.copyOf(decoded.getTopVisitsByMethod().keySet()));
+		Assert.assertEquals(100, decoded.getTopVisitsByMethod().get("POST").get());
+		Assert.assertEquals(200, decoded.getTopVisitsSection().get("/api").get());
+		Assert.assertEquals(200, decoded.getTopVisitsByHost().get("127.0.0.1").get());
+		Assert.assertTrue(decoded.getTopInvalidVisitedRequestsSections().isEmpty());
+		Assert.assertEquals(7, decoded.getTopVisitsByHostMaxError());
+		Assert.assertEquals(accessLogStats.getContentSize(), decoded.getContentSize());
+		Assert.assertEquals(histogram, decoded.getContentSizeHistogram());
+		Assert.assertEquals(new Percentiles(12, 123, 123, 123), decoded.getTopVisitsSectionContentSize().get("/api"));
+		Assert.assertEquals(2, decoded.getDistinctHosts());
+		Assert.assertEquals(sparse, decoded.getHostsSketch());
+		Assert.assertNull(decoded.getUsersSketch());
+		Assert.assertEquals(dense, decoded.getResourcesSketch());
+	}
+
+	@Test
+	public void testAlert() {
+
+		final AccessLogAlert accessLogAlert = AccessLogAlert.builder()
+				.requests(300)
+				.requestsSecond(2.5)
+				.alertTime(TIME.plusMinutes(2))
+				.start(TIME)
+				.end(TIME.plusMinutes(2))
+				.type(AlertType.HIGH_TRAFFIC)
+				.distinctHosts(2)
+				.build();
+
+		Assert.assertEquals(accessLogAlert, binaryMessageCodec.decode(binaryMessageCodec.encode(accessLogAlert), AccessLogAlert.class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongType() {
+		binaryMessageCodec.decode(binaryMessageCodec.encode(new AccessLogAlert()), AccessLogStats.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTruncated() {
+		final byte[] body = (byte[]) binaryMessageCodec.encode(AccessLogLine.builder().host("127.0.0.1").build());
+		binaryMessageCodec.decode(Arrays.copyOf(body, body.length - 3), AccessLogLine[].class);
+	}
+
+	@Test
+	public void testCorruptSketch() {
+		final byte[] registers = new byte[HyperLogLog.REGISTERS];
+		registers[4000] = 5;
+		final HyperLogLog sketch = new HyperLogLog();
+		sketch.setRegisters(registers);
+		final byte[] body = (byte[]) binaryMessageCodec.encode(AccessLogStats.with(TIME, TIME.plusSeconds(10)).setHostsSketch(sketch));
+		//sparse encoding, 4096 registers, 1 set, index delta 4000, rank 5.
+		final int sketchAt = indexOf(body, new byte[] {2, (byte) 0x80, 0x20, 1, (byte) 0xA0, 0x1F, 5});
+		Assert.assertEquals(sketch, binaryMessageCodec.decode(body, AccessLogStats.class).getHostsSketch());
+
+		//register count
+		assertCorrupt(body, sketchAt + 2, (byte) 0x7F);
+		//set registers above the register count
+		assertCorrupt(body, sketchAt + 3, (byte) 0xFF);
+		//register index out of the registers
+		assertCorrupt(body, sketchAt + 5, (byte) 0x7F);
+	}
+
+	private void assertCorrupt(byte[] body, int at, byte value) {
+		final byte[] corrupt = body.clone();
+		corrupt[at] = value;
+		try {
+			binaryMessageCodec.decode(corrupt, AccessLogStats.class);
+			Assert.fail("corrupt sketch was decoded");
+		} catch (IllegalArgumentException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("malformed sketch"));
+		}
+	}
+
+	private static int indexOf(byte[] body, byte[] sequence) {
+		for (int i = 0; i + sequence.length <= body.length; i++) {
+			if (Arrays.equals(body, i, i + sequence.length, sequence, 0, sequence.length)) {
+				return i;
+			}
+		}
+		throw new AssertionError("sequence not found in the body");
+	}
+}
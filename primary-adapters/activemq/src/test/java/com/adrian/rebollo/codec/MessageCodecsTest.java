@@ -0,0 +1,54 @@
+package com.adrian.rebollo.codec;
+
+import java.util.List;
+
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AlertType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+public class MessageCodecsTest {
+
+	private final JsonMessageCodec jsonMessageCodec = new JsonMessageCodec(new ObjectMapper().registerModule(new JavaTimeModule()));
+	private final BinaryMessageCodec binaryMessageCodec = new BinaryMessageCodec();
+	private final MessageCodecs messageCodecs = new MessageCodecs(List.of(jsonMessageCodec, binaryMessageCodec), BinaryMessageCodec.NAME);
+
+	@Test
+	public void testDecodeByHeader() {
+
+		final AccessLogAlert accessLogAlert = AccessLogAlert.builder().requests(300).type(AlertType.NO_ALERT).build();
+
+		final DefaultMessage binary = new DefaultMessage(new DefaultCamelContext());
+		binary.setBody(binaryMessageCodec.encode(accessLogAlert));
+		binary.setHeader(MessageCodecs.HEADER, BinaryMessageCodec.NAME);
+
+		final DefaultMessage json = new DefaultMessage(new DefaultCamelContext());
+		json.setBody(jsonMessageCodec.encode(accessLogAlert));
+		json.setHeader(MessageCodecs.HEADER, JsonMessageCodec.NAME);
+
+		Assert.assertEquals(accessLogAlert, messageCodecs.decode(binary, AccessLogAlert.class));
+		Assert.assertEquals(accessLogAlert, messageCodecs.decode(json, AccessLogAlert.class));
+	}
+
+	@Test
+	public void testDecodeWithoutHeader() {
+
+		final AccessLogLine accessLogLine = AccessLogLine.builder().seqId(1).host("127.0.0.1").build();
+
+		final DefaultMessage message = new DefaultMessage(new DefaultCamelContext());
+		message.setBody(jsonMessageCodec.encode(accessLogLine));
+
+		Assert.assertArrayEquals(new AccessLogLine[] {accessLogLine}, messageCodecs.decode(message, AccessLogLine[].class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownCodec() {
+		new MessageCodecs(List.of(jsonMessageCodec, binaryMessageCodec), "xml");
+	}
+}
@@ -0,0 +1,105 @@
+package com.adrian.rebollo.route;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ConsumerTemplate;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.stub.StubComponent;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.adrian.rebollo.PrimaryEndpoint;
+import com.adrian.rebollo.api.AccessLogStatsService;
+import com.adrian.rebollo.codec.BinaryMessageCodec;
+import com.adrian.rebollo.codec.MessageCodecs;
+import com.adrian.rebollo.model.AccessLogLine;
+
+/**
+ * runs the route with the `activemq` component replaced by an in memory stub, which accepts the same endpoint options.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AccessLogLineRouterTest {
+
+	private static final String LINE_QUEUE = "activemq:queue:internal-log-line";
+	private static final String DEAD_QUEUE = "activemq:queue:internal-log-line-dead";
+
+	private final BinaryMessageCodec binaryMessageCodec = new BinaryMessageCodec();
+	private final MessageCodecs messageCodecs = new MessageCodecs(List.of(binaryMessageCodec), BinaryMessageCodec.NAME);
+
+	@Mock
+	private AccessLogStatsService accessLogStatsService;
+
+	private CamelContext camelContext;
+	private ProducerTemplate producerTemplate;
+	private ConsumerTemplate consumerTemplate;
+
+	@Before
+	public void init() throws Exception {
+		final PrimaryEndpoint endpoint = new PrimaryEndpoint();
+		endpoint.setInternalLogLineQueue("internal-log-line");
+		endpoint.setInternalLogLineQueueDead("internal-log-line-dead");
+
+		final AccessLogLineRouter accessLogLineRouter = new AccessLogLineRouter(endpoint, messageCodecs, accessLogStatsService);
+		ReflectionTestUtils.setField(accessLogLineRouter, "threadPoolSize", 1);
+		ReflectionTestUtils.setField(accessLogLineRouter, "maxThreadPoolSize", 1);
+
+		camelContext = new DefaultCamelContext();
+		camelContext.addComponent("activemq", new StubComponent());
+		camelContext.addRoutes(accessLogLineRouter);
+		camelContext.start();
+		producerTemplate = camelContext.createProducerTemplate();
+		consumerTemplate = camelContext.createConsumerTemplate();
+	}
+
+	@After
+	public void destroy() {
+		camelContext.stop();
+	}
+
+	@Test
+	public void testFailingLineIsDeadLetteredAlone() {
+
+		final List<AccessLogLine> lines = List.of(line(1), line(2), line(3));
+		doThrow(new IllegalStateException("failing line")).when(accessLogStatsService).handle(eq(lines.get(1)));
+
+		producerTemplate.sendBodyAndHeader(LINE_QUEUE, binaryMessageCodec.encode(lines), MessageCodecs.HEADER, BinaryMessageCodec.NAME);
+
+		final Exchange dead = consumerTemplate.receive(DEAD_QUEUE, 5000);
+
+		Assert.assertNotNull(dead);
+		Assert.assertArrayEquals(new AccessLogLine[] {lines.get(1)}, messageCodecs.decode(dead.getIn(), AccessLogLine[].class));
+		Assert.assertNull(consumerTemplate.receiveBody(DEAD_QUEUE, 200));
+		verify(accessLogStatsService).handle(eq(lines.get(0)));
+		verify(accessLogStatsService).handle(eq(lines.get(2)));
+	}
+
+	@Test
+	public void testBatchWithoutFailuresIsNotDeadLettered() {
+
+		final List<AccessLogLine> lines = List.of(line(1), line(2));
+
+		producerTemplate.sendBodyAndHeader(LINE_QUEUE, binaryMessageCodec.encode(lines), MessageCodecs.HEADER, BinaryMessageCodec.NAME);
+
+		verify(accessLogStatsService, timeout(5000)).handle(eq(lines.get(1)));
+		verify(accessLogStatsService).handle(eq(lines.get(0)));
+		Assert.assertNull(consumerTemplate.receiveBody(DEAD_QUEUE, 200));
+	}
+
+	private static AccessLogLine line(long seqId) {
+		return AccessLogLine.builder().seqId(seqId).host("10.0.0." + seqId).build();
+	}
+}
@@ -0,0 +1,34 @@
+package com.adrian.rebollo.inmemory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+
+import lombok.Getter;
+
+/**
+ * In-process replacement of the internal queues: one {@link RingBuffer} per message type, allocated once at startup.
+ * The {@link PrimaryInMemory} dispatcher publishes into them and the {@link InMemoryRoutes} consume them.
+ */
+@Getter
+@Component
+@Profile("inmemory")
+public class InMemoryChannels {
+
+	private final RingBuffer<AccessLogLine> logLines;
+	private final RingBuffer<AccessLogStats> logStats;
+	private final RingBuffer<AccessLogAlert> logAlerts;
+
+	public InMemoryChannels(
+			@Value("${adapters.inmemory.line-buffer-size:65536}") int lineBufferSize,
+			@Value("${adapters.inmemory.buffer-size:1024}") int bufferSize,
+			@Value("${adapters.inmemory.batch-size:1000}") int batchSize) {
+		this.logLines = new RingBuffer<>("inmemory-log-line", lineBufferSize, batchSize);
+		this.logStats = new RingBuffer<>("inmemory-log-stats", bufferSize, batchSize);
+		this.logAlerts = new RingBuffer<>("inmemory-log-alert", bufferSize, batchSize);
+	}
+}
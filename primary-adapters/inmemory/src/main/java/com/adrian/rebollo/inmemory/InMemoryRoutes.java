@@ -0,0 +1,80 @@
+package com.adrian.rebollo.inmemory;
+
+import java.util.Optional;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.adrian.rebollo.api.AccessLogAlertService;
+import com.adrian.rebollo.api.AccessLogRollupService;
+import com.adrian.rebollo.api.AccessLogStatsService;
+import com.adrian.rebollo.api.ExternalDispatcherObserver;
+import com.adrian.rebollo.parser.AccessLogLineParsingStage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumers of the {@link InMemoryChannels}, routing every object to the same services as the ActiveMQ routes:
+ * lines to the accessLogStatsService, stats to the accessLogAlertService, accessLogRollupService and externalDispatcherObserver,
+ * and alerts to the externalDispatcherObserver.
+ * They are started before and stopped after the {@link AccessLogLineParsingStage}, in a lower lifecycle phase,
+ * so the lines it dispatches while stopping are still consumed.
+ */
+@Slf4j
+@Component
+@Profile("inmemory")
+@RequiredArgsConstructor
+public class InMemoryRoutes implements SmartLifecycle {
+
+	private static final long STOP_TIMEOUT = 5000;
+
+	private final InMemoryChannels channels;
+	private final AccessLogStatsService accessLogStatsService;
+	private final AccessLogAlertService accessLogAlertService;
+	private final ExternalDispatcherObserver externalDispatcherObserver;
+	//only available when `service.rollup.enabled`
+	private final Optional<AccessLogRollupService> accessLogRollupService;
+
+	private volatile boolean running;
+
+	@Override
+	public void start() {
+		channels.getLogLines().start(accessLogStatsService::handle);
+		channels.getLogStats().start(accessLogStats -> {
+			accessLogAlertService.handle(accessLogStats);
+			accessLogRollupService.ifPresent(rollupService -> rollupService.handle(accessLogStats));
+			externalDispatcherObserver.notify(accessLogStats);
+		});
+		channels.getLogAlerts().start(externalDispatcherObserver::notify);
+		running = true;
+	}
+
+	/**
+	 * stop the consumers once they have handled the pending objects, lines first as they may still produce stats.
+	 */
+	@Override
+	public void stop() {
+		LOG.info("Stopping InMemoryRoutes, pending lines={} stats={} alerts={}",
+				channels.getLogLines().getBacklog(), channels.getLogStats().getBacklog(), channels.getLogAlerts().getBacklog());
+		running = false;
+		try {
+			channels.getLogLines().stop(STOP_TIMEOUT);
+			channels.getLogStats().stop(STOP_TIMEOUT);
+			channels.getLogAlerts().stop(STOP_TIMEOUT);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		return AccessLogLineParsingStage.PHASE - 1;
+	}
+}
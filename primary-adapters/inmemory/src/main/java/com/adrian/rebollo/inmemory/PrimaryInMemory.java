@@ -0,0 +1,39 @@
+package com.adrian.rebollo.inmemory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.adrian.rebollo.api.InternalDispatcher;
+import com.adrian.rebollo.model.AccessLogAlert;
+import com.adrian.rebollo.model.AccessLogLine;
+import com.adrian.rebollo.model.AccessLogStats;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Internal dispatcher implementation for single node deployments, enabled with the `inmemory` profile.
+ * Objects are handed to the consumers through the {@link InMemoryChannels} ring buffers, without any serialization nor broker round-trip.
+ * Unlike the ActiveMQ queues, the pending objects are lost if the service stops abruptly.
+ */
+@Service
+@Profile("inmemory")
+@RequiredArgsConstructor
+public class PrimaryInMemory implements InternalDispatcher {
+
+	private final InMemoryChannels channels;
+
+	@Override
+	public void dispatch(AccessLogLine accessLogLine) {
+		channels.getLogLines().publish(accessLogLine);
+	}
+
+	@Override
+	public void dispatch(AccessLogStats accessLogStats) {
+		channels.getLogStats().publish(accessLogStats);
+	}
+
+	@Override
+	public void dispatch(AccessLogAlert accessLogAlert) {
+		channels.getLogAlerts().publish(accessLogAlert);
+	}
+}
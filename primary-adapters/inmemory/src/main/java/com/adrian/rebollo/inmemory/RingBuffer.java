@@ -0,0 +1,205 @@
+package com.adrian.rebollo.inmemory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded multi-producer, single-consumer ring buffer, in the style of the LMAX Disruptor.
+ * Its slots are allocated once: producers claim a sequence, store the event into its slot and publish the sequence,
+ * and a single consumer thread (started with the handler) hands every contiguous range of published events to the handler as a batch, advancing its cursor once per batch.
+ * When the buffer is full the producers wait for the consumer (backpressure), and an idle consumer parks until it is signaled.
+ * An event failing in the handler is logged and skipped, so the following ones are still handled.
+ * Once stopped, publishing is rejected, and the events the consumer has not handled when it stops are logged as lost.
+ */
+@Slf4j
+public class RingBuffer<T> {
+
+	/**
+	 * max time a consumer parks without being signaled, so it notices it has been stopped.
+	 */
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Getter
+	private final String name;
+	private final Object[] entries;
+	private final int mask;
+	private final int maxBatchSize;
+	private Consumer<T> handler;
+
+	/**
+	 * sequence published in every slot, a slot is readable when it holds the expected sequence.
+	 */
+	private final AtomicLongArray published;
+
+	/**
+	 * last sequence claimed by a producer.
+	 */
+	private final AtomicLong claimed = new AtomicLong(-1);
+
+	/**
+	 * last sequence handled by the consumer, whose slot can be reused.
+	 */
+	private volatile long consumed = -1;
+
+	private volatile boolean waiting;
+	private volatile boolean run = true;
+	private volatile Thread consumer;
+
+	/**
+	 * @param name of the consumer thread
+	 * @param size of the buffer, rounded up to a power of 2
+	 * @param maxBatchSize max events handled before advancing the consumer cursor
+	 */
+	public RingBuffer(String name, int size, int maxBatchSize) {
+		final int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+		this.name = name;
+		this.entries = new Object[capacity];
+		this.mask = capacity - 1;
+		this.maxBatchSize = maxBatchSize;
+		this.published = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			published.set(i, -1);
+		}
+	}
+
+	public int getCapacity() {
+		return entries.length;
+	}
+
+	/**
+	 * @return the published events not handled yet.
+	 */
+	public long getBacklog() {
+		return claimed.get() - consumed;
+	}
+
+	/**
+	 * store the event into the next slot, waiting while the buffer is full.
+	 * @throws IllegalStateException if the buffer has been stopped, as the event would never be handled
+	 */
+	public void publish(T event) {
+
+		if (!run) {
+			throw new IllegalStateException(String.format("RingBuffer=%s has been stopped", name));
+		}
+
+		final long sequence = claimed.incrementAndGet();
+		final int index = (int) sequence & mask;
+
+		//the slot is reused once the consumer has handled the event stored a lap before.
+		while (sequence - entries.length > consumed) {
+			if (!run) {
+				throw new IllegalStateException(String.format("RingBuffer=%s has been stopped", name));
+			}
+			signal();
+			LockSupport.parkNanos(1_000);
+		}
+
+		entries[index] = event;
+		//the volatile store orders the slot write before the sequence is visible to the consumer,
+		//and the following read of `waiting` after it, so a parking consumer is always signaled.
+		published.set(index, sequence);
+
+		if (waiting) {
+			signal();
+		}
+	}
+
+	/**
+	 * start the consumer thread.
+	 * @param handler of every event, called by the consumer thread in publishing order
+	 */
+	public void start(Consumer<T> handler) {
+		this.handler = handler;
+		final Thread thread = new Thread(this::consume, name);
+		consumer = thread;
+		thread.start();
+		LOG.info("Started RingBuffer={} with capacity={} maxBatchSize={}", name, entries.length, maxBatchSize);
+	}
+
+	/**
+	 * stops the consumer once it has handled the already published events, waiting for it at most the given millis.
+	 * the producers must be stopped first: an event published while stopping may not be handled, and it is then logged as lost.
+	 */
+	public void stop(long timeout) throws InterruptedException {
+		run = false;
+		final Thread thread = consumer;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			thread.join(timeout);
+		}
+		final long lost = getBacklog();
+		if (lost > 0) {
+			LOG.warn("Stopped RingBuffer={} with lost={} events not handled", name, lost);
+		}
+	}
+
+	/**
+	 * consumer loop, until stopped.
+	 * the events published before stopping are still handled.
+	 */
+	private void consume() {
+
+		long next = consumed + 1;
+
+		while (true) {
+
+			long available = next - 1;
+			while (available - next + 1 < maxBatchSize && published.get((int) (available + 1) & mask) == available + 1) {
+				available++;
+			}
+
+			if (available < next) {
+				if (!run) {
+					break;
+				}
+				await(next);
+				continue;
+			}
+
+			for (long sequence = next; sequence <= available; sequence++) {
+				final int index = (int) sequence & mask;
+				@SuppressWarnings("unchecked")
+				final T event = (T) entries[index];
+				entries[index] = null;
+				handle(event);
+			}
+
+			consumed = available;
+			next = available + 1;
+		}
+	}
+
+	private void handle(T event) {
+		try {
+			handler.accept(event);
+		} catch (RuntimeException exception) {
+			LOG.error("Discarding event={} which could not be handled by RingBuffer={}", event, name, exception);
+		}
+	}
+
+	/**
+	 * park until a producer publishes the given sequence.
+	 * the sequence is checked again after flagging the wait, so a publish racing with it is never missed.
+	 */
+	private void await(long sequence) {
+		waiting = true;
+		if (run && published.get((int) sequence & mask) != sequence) {
+			LockSupport.parkNanos(this, MAX_PARK_NANOS);
+		}
+		waiting = false;
+	}
+
+	private void signal() {
+		final Thread thread = consumer;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.adrian.rebollo.inmemory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RingBufferTest {
+
+	private RingBuffer<Long> ringBuffer;
+
+	@After
+	public void tearDown() throws InterruptedException {
+		if (ringBuffer != null) {
+			ringBuffer.stop(1000);
+		}
+	}
+
+	@Test
+	public void testCapacity() {
+
+		Assert.assertEquals(1024, new RingBuffer<Long>("test", 1000, 10).getCapacity());
+		Assert.assertEquals(1024, new RingBuffer<Long>("test", 1024, 10).getCapacity());
+		Assert.assertEquals(2, new RingBuffer<Long>("test", 1, 10).getCapacity());
+	}
+
+	@Test
+	public void testMultipleProducersKeepTheirOrder() throws InterruptedException {
+
+		final int producers = 4;
+		final int events = 20000;
+		//a small buffer, so the producers have to wait for the consumer.
+		ringBuffer = new RingBuffer<>("test", 64, 16);
+
+		final List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch latch = new CountDownLatch(producers * events);
+		ringBuffer.start(event -> {
+			handled.add(event);
+			latch.countDown();
+		});
+
+		final List<Thread> threads = new ArrayList<>();
+		for (int producer = 0; producer < producers; producer++) {
+			final long id = producer;
+			final Thread thread = new Thread(() -> {
+				for (long event = 0; event < events; event++) {
+					ringBuffer.publish(id * events + event);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join(10000);
+		}
+
+		Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+		Assert.assertEquals(producers * events, handled.size());
+
+		final long[] last = new long[producers];
+		for (int producer = 0; producer < producers; producer++) {
+			last[producer] = producer * (long) events - 1;
+		}
+		for (Long event : handled) {
+			final int producer = (int) (event / events);
+			Assert.assertEquals(last[producer] + 1, event.longValue());
+			last[producer] = event;
+		}
+		Assert.assertEquals(0, ringBuffer.getBacklog());
+	}
+
+	@Test
+	public void testFailingEventIsSkipped() throws InterruptedException {
+
+		ringBuffer = new RingBuffer<>("test", 8, 8);
+
+		final List<Long> handled = new CopyOnWriteArrayList<>();
+		final CountDownLatch latch = new CountDownLatch(2);
+		ringBuffer.start(event -> {
+			if (event == 2L) {
+				throw new IllegalArgumentException("wrong event");
+			}
+			handled.add(event);
+			latch.countDown();
+		});
+
+		ringBuffer.publish(1L);
+		ringBuffer.publish(2L);
+		ringBuffer.publish(3L);
+
+		Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(List.of(1L, 3L), handled);
+	}
+
+	@Test
+	public void testStopHandlesPublishedEvents() throws InterruptedException {
+
+		ringBuffer = new RingBuffer<>("test", 1024, 100);
+
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final List<Long> handled = new CopyOnWriteArrayList<>();
+		ringBuffer.start(event -> {
+			try {
+				blocked.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			handled.add(event);
+		});
+
+		for (long event = 0; event < 500; event++) {
+			ringBuffer.publish(event);
+		}
+		blocked.countDown();
+		ringBuffer.stop(5000);
+
+		Assert.assertEquals(500, handled.size());
+		Assert.assertEquals(0, ringBuffer.getBacklog());
+	}
+
+	@Test
+	public void testPublishAfterStopIsRejected() throws InterruptedException {
+
+		ringBuffer = new RingBuffer<>("test", 16, 4);
+
+		final List<Long> handled = new CopyOnWriteArrayList<>();
+		ringBuffer.start(handled::add);
+		ringBuffer.publish(1L);
+		ringBuffer.stop(5000);
+
+		try {
+			ringBuffer.publish(2L);
+			Assert.fail("publish after stop must be rejected");
+		} catch (IllegalStateException expected) {
+			Assert.assertEquals(List.of(1L), handled);
+			Assert.assertEquals(0, ringBuffer.getBacklog());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testPublishFullAndStopped() throws InterruptedException {
+
+		ringBuffer = new RingBuffer<>("test", 2, 2);
+		ringBuffer.stop(0);
+
+		ringBuffer.publish(1L);
+		ringBuffer.publish(2L);
+		ringBuffer.publish(3L);
+	}
+}
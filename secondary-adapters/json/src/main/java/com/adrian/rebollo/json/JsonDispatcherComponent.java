@@ -12,8 +12,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.adrian.rebollo.model.LogInfo;
+import com.adrian.rebollo.model.json.AccessLogModule;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -36,7 +38,7 @@ public class JsonDispatcherComponent {
 	 */
 	void createNewJson() {
 		try(FileOutputStream fileOutputStream = getOutputStream()) {
-			objectMapper.writeValue(fileOutputStream, new JsonInfo());
+			externalWriter().writeValue(fileOutputStream, new JsonInfo());
 			fileOutputStream.flush();
 		} catch (IOException exception) {
 			LOG.error(String.format("Could not write object into %s", fileName), exception);
@@ -53,7 +55,7 @@ public class JsonDispatcherComponent {
 
 		try(FileOutputStream fileOutputStream = getOutputStream()) {
 			jsonInfo.getResult().add(logInfo);
-			objectMapper.writeValue(fileOutputStream, jsonInfo);
+			externalWriter().writeValue(fileOutputStream, jsonInfo);
 		} catch (IOException exception) {
 			LOG.error(String.format("Could not write object to json %s", fileName), exception);
 		}
@@ -71,6 +73,13 @@ public class JsonDispatcherComponent {
 		return new JsonInfo();
 	}
 
+	/**
+	 * the json file is user facing, so the stats are written without their histogram and sketches.
+	 */
+	private ObjectWriter externalWriter() {
+		return objectMapper.writer().withAttribute(AccessLogModule.EXTERNAL, true);
+	}
+
 	private FileInputStream getInputStream() throws IOException {
 		return FileUtils.openInputStream((new File(fileName)));
 	}
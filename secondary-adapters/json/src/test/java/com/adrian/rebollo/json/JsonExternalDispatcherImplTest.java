@@ -1,37 +1,59 @@
 package com.adrian.rebollo.json;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.adrian.rebollo.model.AlertType;
 import com.adrian.rebollo.model.AccessLogAlert;
 import com.adrian.rebollo.model.AccessLogStats;
+import com.adrian.rebollo.model.json.AccessLogModule;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 public class JsonExternalDispatcherImplTest {
 
-	private JsonDispatcherComponent logComponent = new JsonDispatcherComponent(new JsonMapper());
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private JsonDispatcherComponent logComponent = new JsonDispatcherComponent(JsonMapper.builder()
+			.addModule(new JavaTimeModule())
+			.addModule(new AccessLogModule())
+			.build());
 	private JsonExternalDispatcherImpl logService = new JsonExternalDispatcherImpl(logComponent);
 
 	@Before
 	public void init() {
-		ReflectionTestUtils.setField(logComponent, "fileName", "/test.json");
-		ReflectionTestUtils.setField(logService, "fileName", "/test.json");
+		ReflectionTestUtils.setField(logComponent, "fileName", jsonFile().getPath());
+		ReflectionTestUtils.setField(logService, "fileName", jsonFile().getPath());
 	}
 
 	@Test
-	public void handleStats() {
+	public void handleStats() throws IOException {
 		final AccessLogStats stats = new AccessLogStats()
 				.setRequests(new AtomicLong(3L))
 				.setTotalContent(new AtomicLong(400))
 				.setValidRequests(new AtomicLong(2))
 				.setInvalidRequests(new AtomicLong(1));
+		stats.getHostsSketch().add("127.0.0.1");
 		logService.init();
 		logService.dispatch(stats);
+
+		//the user facing file has the distinct counts, without the sketches they are estimated with.
+		final String json = FileUtils.readFileToString(jsonFile(), StandardCharsets.UTF_8);
+		Assert.assertTrue(json.contains("\"distinctHosts\""));
+		Assert.assertFalse(json.contains("Sketch"));
+		Assert.assertFalse(json.contains("contentSizeHistogram"));
 	}
 
 	@Test
@@ -47,4 +69,8 @@ public class JsonExternalDispatcherImplTest {
 		logService.init();
 		logService.dispatch(alert);
 	}
+
+	private File jsonFile() {
+		return new File(folder.getRoot(), "test.json");
+	}
 }